@@ -0,0 +1,38 @@
+package sis.hust.edu.vn.digital_signature.config.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import sis.hust.edu.vn.digital_signature.service.gc.OrphanCollector;
+import sis.hust.edu.vn.digital_signature.service.gc.OrphanGcReport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the last orphan collector run: GET /actuator/orphangc
+ */
+@Component
+@Endpoint(id = "orphangc")
+@RequiredArgsConstructor
+public class OrphanGcEndpoint {
+
+    private final OrphanCollector orphanCollector;
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", orphanCollector.isRunning());
+
+        OrphanGcReport last = orphanCollector.getLastReport();
+        if (last != null) {
+            body.put("startedAt", last.getStartedAt());
+            body.put("finishedAt", last.getFinishedAt());
+            body.put("deleted", last.getDeleted());
+            body.put("completed", last.getCompleted());
+            body.put("error", last.getError());
+        }
+        return body;
+    }
+}
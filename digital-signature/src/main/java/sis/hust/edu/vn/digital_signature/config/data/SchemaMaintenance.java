@@ -0,0 +1,116 @@
+package sis.hust.edu.vn.digital_signature.config.data;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Schema changes that {@code ddl-auto=update} does not make: it never removes objects an entity stops
+ * declaring, and with {@code unique_constraint_strategy=skip} it never creates the unique indexes that
+ * queries and race handling depend on.
+ *
+ * Each step runs once, in its own transaction, after Hibernate has updated the schema and before the
+ * web server accepts requests; applied steps are recorded in {@code schema_maintenance}. An advisory
+ * lock keeps instances starting together from running a step twice. A failing step stops startup:
+ * the application must not run without the indexes it relies on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaMaintenance implements SmartInitializingSingleton {
+
+    private static final long LOCK_KEY = 0x5343484D41494E54L;
+
+    private static final List<Step> STEPS = List.of(
+            new Step("files-uploader-content-hash", List.of(
+                    // Replaced by idx_files_uploader_content_hash: deduplication is per uploader
+                    "DROP INDEX IF EXISTS idx_files_content_hash",
+                    // Rows that would break the unique index below stop taking part in deduplication; they stay usable
+                    "UPDATE files SET content_hash = NULL WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER "
+                            + "(PARTITION BY uploaded_by, content_hash ORDER BY id) AS duplicate FROM files "
+                            + "WHERE content_hash IS NOT NULL) ranked WHERE duplicate > 1)",
+                    // Target of the ON CONFLICT in FileRepository.insertOrAcquire
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_files_uploader_content_hash "
+                            + "ON files (uploaded_by, content_hash)")),
+            new Step("blobs-from-files", List.of(
+                    // Objects stored before sharing become shareable: the oldest row per content hands its object
+                    // over; the others keep their own object, which is deleted with them
+                    "INSERT INTO blobs (content_hash, storage_key, size, ref_count, created_at, updated_at) "
+                            + "SELECT DISTINCT ON (content_hash) content_hash, file_path, file_size, 1, now(), now() "
+                            + "FROM files WHERE content_hash IS NOT NULL AND ref_count > 0 "
+                            + "ORDER BY content_hash, id "
+                            + "ON CONFLICT (content_hash) DO NOTHING")),
+            new Step("refresh-token-indexes", List.of(
+                    // Raw tokens stored before hashing: never read any more, so they only add to a leak
+                    "DO $$ BEGIN IF EXISTS (SELECT 1 FROM information_schema.columns "
+                            + "WHERE table_name = 'refresh_token' AND column_name = 'token') THEN "
+                            + "UPDATE refresh_token SET token = NULL WHERE token IS NOT NULL; END IF; END $$",
+                    // One session per user: older duplicates left by racing logins are signed out
+                    "DELETE FROM refresh_token WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER "
+                            + "(PARTITION BY user_id ORDER BY expirt_date DESC NULLS LAST, id DESC) AS duplicate "
+                            + "FROM refresh_token WHERE user_id IS NOT NULL) ranked WHERE duplicate > 1)",
+                    // Lookup for refresh, rotation and logout
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uk_refresh_token_token_hash ON refresh_token (token_hash)",
+                    // Lookup for replaceForUser, and what a concurrent first login collides on
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uk_refresh_token_user ON refresh_token (user_id)")),
+            new Step("signature-task-uniqueness", List.of(
+                    // Keep the task that got furthest for each signer, then the oldest
+                    "DELETE FROM signature_tasks WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER "
+                            + "(PARTITION BY document_id, signer_id ORDER BY (status = 'COMPLETED') DESC, id) "
+                            + "AS duplicate FROM signature_tasks) ranked WHERE duplicate > 1)",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uk_signature_tasks_document_signer "
+                            + "ON signature_tasks (document_id, signer_id)",
+                    "DELETE FROM document_signatures WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER "
+                            + "(PARTITION BY document_id, signer_id ORDER BY id) AS duplicate "
+                            + "FROM document_signatures) ranked WHERE duplicate > 1)",
+                    // A worker that lost its lease may still be signing: its insert must fail, not duplicate
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uk_document_signatures_document_signer "
+                            + "ON document_signatures (document_id, signer_id)")),
+            new Step("bulk-send-recipient-uniqueness", List.of(
+                    // Keep the row that already has its document, then the oldest
+                    "DELETE FROM bulk_send_recipients WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER "
+                            + "(PARTITION BY job_id, row_number ORDER BY (document_id IS NOT NULL) DESC, id) "
+                            + "AS duplicate FROM bulk_send_recipients) ranked WHERE duplicate > 1)",
+                    // A retried or concurrent import must not give one row a second document and invite
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uk_bulk_send_recipients_job_row "
+                            + "ON bulk_send_recipients (job_id, row_number)"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_maintenance "
+                + "(id VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL DEFAULT now())");
+        for (Step step : STEPS) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(step));
+            } catch (Exception e) {
+                throw new IllegalStateException("Schema maintenance step " + step.id() + " failed", e);
+            }
+        }
+    }
+
+    private void apply(Step step) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, LOCK_KEY);
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_maintenance WHERE id = ?", Integer.class, step.id());
+        if (applied != null && applied > 0) {
+            return;
+        }
+        for (String statement : step.statements()) {
+            jdbcTemplate.execute(statement);
+        }
+        jdbcTemplate.update("INSERT INTO schema_maintenance (id) VALUES (?)", step.id());
+        log.info("Applied schema maintenance step {}", step.id());
+    }
+
+    private record Step(String id, List<String> statements) {
+    }
+}
@@ -0,0 +1,353 @@
+package sis.hust.edu.vn.digital_signature.config.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService.Claim;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService.StoredResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@code Idempotency-Key} support for the non-idempotent POST endpoints listed in {@code idempotency.paths}.
+ *
+ * The first request with a key executes and its response (unless 5xx, 409 or 429) is stored; retries with the same
+ * key and body get the stored response back ({@code Idempotent-Replayed: true}) without touching storage, crypto
+ * or the domain tables. Duplicates arriving while the first is still running on this instance wait for its
+ * result; on another instance they get a 409. Reusing a key with a different body is a 422.
+ * Keys are scoped per caller and endpoint.
+ *
+ * Metric: {@code idempotency.requests} (counter by outcome).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${idempotency.paths:/api/signing/*/complete,/api/documents/upload,/api/documents/*/invite}")
+    private List<String> paths;
+
+    // Non-multipart bodies are buffered to fingerprint them
+    @Value("${idempotency.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @Value("${idempotency.max-response-bytes:1048576}")
+    private int maxResponseBytes;
+
+    // How long a duplicate waits for the in-flight original on this instance
+    @Value("${idempotency.wait-ms:30000}")
+    private long waitMillis;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        HttpServletRequest executedRequest = request;
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            // The container keeps the parsed parts, so reading them here does not consume the upload
+            for (Part part : request.getParts()) {
+                digest.update(part.getName().getBytes(StandardCharsets.UTF_8));
+                if (part.getSubmittedFileName() != null) {
+                    digest.update(part.getSubmittedFileName().getBytes(StandardCharsets.UTF_8));
+                }
+                try (InputStream in = part.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } else {
+            if (request.getContentLengthLong() > maxBodyBytes) {
+                writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large for an idempotent request");
+                return;
+            }
+            byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large for an idempotent request");
+                return;
+            }
+            digest.update(body);
+            executedRequest = new CachedBodyRequest(request, body);
+        }
+        String fingerprint = HexFormat.of().formatHex(digest.digest());
+        String id = hash(scope() + "\n" + request.getMethod() + " " + request.getRequestURI() + "\n" + key);
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, execution);
+        if (running != null) {
+            awaitOriginal(running, fingerprint, response);
+            return;
+        }
+
+        try {
+            Claim claim = idempotencyService.claim(id, fingerprint);
+            switch (claim.getResult()) {
+                case CLAIMED -> execute(id, claim.getLease(), fingerprint, executedRequest, response, filterChain, execution);
+                case REPLAY -> {
+                    execution.complete(claim.getResponse());
+                    count("replayed");
+                    replay(response, claim.getResponse());
+                }
+                case MISMATCH -> {
+                    count("mismatch");
+                    writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                            HEADER + " was already used for a different request");
+                }
+                case IN_PROGRESS -> {
+                    count("conflict");
+                    writeError(response, HttpStatus.CONFLICT,
+                            "A request with this " + HEADER + " is still being processed. Please retry later.");
+                }
+            }
+        } finally {
+            // Waiters get null (and a 409) unless a replayable response was produced
+            execution.complete(null);
+            inFlight.remove(id, execution);
+        }
+    }
+
+    private void execute(String id, LocalDateTime lease, String fingerprint, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain,
+                         CompletableFuture<StoredResponse> execution)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+
+            int status = wrapper.getStatus();
+            byte[] body = wrapper.getContentAsByteArray();
+            if (isReplayable(status) && body.length <= maxResponseBytes) {
+                StoredResponse storedResponse = new StoredResponse(
+                        fingerprint, status, wrapper.getContentType(), new String(body, StandardCharsets.UTF_8));
+                if (!idempotencyService.complete(id, lease, storedResponse)) {
+                    count("lease_lost");
+                }
+                execution.complete(storedResponse);
+                stored = true;
+            }
+            count("executed");
+        } finally {
+            if (!stored) {
+                try {
+                    if (!idempotencyService.release(id, lease)) {
+                        count("lease_lost");
+                    }
+                } catch (Exception e) {
+                    // The claim's lock runs out and the key becomes usable again
+                    log.warn("Could not release idempotency key: {}", e.getMessage());
+                }
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void awaitOriginal(CompletableFuture<StoredResponse> running, String fingerprint,
+                               HttpServletResponse response) throws IOException {
+        StoredResponse original = null;
+        try {
+            original = running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Fall through to the conflict response
+        }
+
+        if (original == null) {
+            count("conflict");
+            writeError(response, HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still being processed. Please retry later.");
+        } else if (!original.getFingerprint().equals(fingerprint)) {
+            count("mismatch");
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+        } else {
+            count("coalesced");
+            replay(response, original);
+        }
+    }
+
+    private boolean isReplayable(int status) {
+        // Failures a retry may get past are not stored
+        return status < 500 && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getBody() != null) {
+            byte[] body = stored.getBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(objectMapper.writeValueAsString(Response.error(status.value(), message)));
+    }
+
+    private String scope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return "anonymous";
+        }
+        return "user:" + authentication.getName();
+    }
+
+    private void count(String outcome) {
+        Counter.builder("idempotency.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String hash(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Request whose body was read for the fingerprint and is served again from memory.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), java.nio.charset.Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package sis.hust.edu.vn.digital_signature.config.interceptor;
 
-import io.github.bucket4j.Bucket;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +8,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimitConfig;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimitPolicy;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimitPolicyRegistry;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimiter;
 
 import java.io.IOException;
 
@@ -18,6 +20,8 @@ import java.io.IOException;
 public class RateLimitInterceptor implements HandlerInterceptor {
 
     private final RateLimitConfig rateLimitConfig;
+    private final RateLimiter rateLimiter;
+    private final RateLimitPolicyRegistry rateLimitPolicyRegistry;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -33,12 +37,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
 
         String clientId = getClientId(request);
-        Bucket bucket = rateLimitConfig.resolveBucket(clientId);
-
-        if (bucket.tryConsume(1)) {
+        RateLimitPolicy policy = rateLimitPolicyRegistry.resolve(handler);
+        if (rateLimiter.tryConsume(policy.bucket(), clientId, policy.cost())) {
             return true;
         } else {
-            log.warn("Rate limit exceeded for client: {}", clientId);
+            log.warn("Rate limit exceeded for client: {} (bucket {})", clientId, policy.bucket());
             sendErrorResponse(response, HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests. Please try again later.");
             return false;
         }
@@ -0,0 +1,43 @@
+package sis.hust.edu.vn.digital_signature.config.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Connection hold-time instrumentation: wraps the DataSource and tags connections with the
+ * service method that checked them out.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.connection.hold-tracking-enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionHoldTimeConfig {
+
+    @Bean
+    public ServiceOperationAspect serviceOperationAspect() {
+        return new ServiceOperationAspect();
+    }
+
+    // Static, and resolving its dependencies lazily, so the post-processor does not pull beans in early
+    @Bean
+    public static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+                    Duration warnThreshold = Duration.ofMillis(
+                            environment.getProperty("db.connection.hold-warn-ms", Long.class, 500L));
+                    return new ConnectionHoldTimeDataSource(dataSource, meterRegistry.getObject(), warnThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+}
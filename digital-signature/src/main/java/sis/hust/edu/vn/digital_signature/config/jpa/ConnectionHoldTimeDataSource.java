@@ -0,0 +1,88 @@
+package sis.hust.edu.vn.digital_signature.config.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how long each pooled connection is held, from checkout to close, per service method.
+ *
+ * Metric: {@code db.connection.hold} (timer by operation). Holds longer than the warn threshold are
+ * logged, which is how storage I/O or crypto creeping back into a transaction shows up.
+ */
+@Slf4j
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    private static final String UNATTRIBUTED = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration warnThreshold;
+
+    public ConnectionHoldTimeDataSource(DataSource target, MeterRegistry meterRegistry, Duration warnThreshold) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        String operation = ServiceOperationAspect.currentOperation();
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            if (released.compareAndSet(false, true)) {
+                                record(operation != null ? operation : UNATTRIBUTED, System.nanoTime() - start);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void record(String operation, long heldNanos) {
+        Timer.builder("db.connection.hold")
+                .description("Time a pooled connection was checked out")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(heldNanos, TimeUnit.NANOSECONDS);
+
+        if (heldNanos > warnThreshold.toNanos()) {
+            log.warn("{} held a database connection for {}ms", operation, TimeUnit.NANOSECONDS.toMillis(heldNanos));
+        }
+    }
+}
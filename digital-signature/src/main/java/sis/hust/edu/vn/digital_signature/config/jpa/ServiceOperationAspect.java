@@ -0,0 +1,36 @@
+package sis.hust.edu.vn.digital_signature.config.jpa;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Remembers the outermost service method running on the current thread, so database connections
+ * can be attributed to the operation that checked them out.
+ */
+@Aspect
+public class ServiceOperationAspect {
+
+    private static final ThreadLocal<String> CURRENT_OPERATION = new ThreadLocal<>();
+
+    /**
+     * @return e.g. {@code SignerService.completeSigning}, or null outside any service call
+     */
+    public static String currentOperation() {
+        return CURRENT_OPERATION.get();
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && within(sis.hust.edu.vn.digital_signature..*)")
+    public Object track(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT_OPERATION.get() != null) {
+            return joinPoint.proceed();
+        }
+        CURRENT_OPERATION.set(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT_OPERATION.remove();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package sis.hust.edu.vn.digital_signature.config.otp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sis.hust.edu.vn.digital_signature.repository.auth.OtpCodeRepository;
+import sis.hust.edu.vn.digital_signature.service.auth.otp.InMemoryOtpStore;
+import sis.hust.edu.vn.digital_signature.service.auth.otp.JdbcOtpStore;
+import sis.hust.edu.vn.digital_signature.service.auth.otp.OtpStore;
+
+/**
+ * Creates the OtpStore selected by {@code otp.store}: {@code memory} for a single instance,
+ * {@code jdbc} when several instances must verify each other's codes.
+ */
+@Configuration
+@Slf4j
+public class OtpStoreConfig {
+
+    @Value("${otp.store:memory}")
+    private String storeType;
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${otp.memory.max-entries:100000}")
+    private int memoryMaxEntries;
+
+    @Value("${otp.jdbc.purge-batch-size:1000}")
+    private int jdbcPurgeBatchSize;
+
+    @Bean
+    public OtpStore otpStore(OtpCodeRepository otpCodeRepository, MeterRegistry meterRegistry) {
+        if ("jdbc".equalsIgnoreCase(storeType)) {
+            log.info("Initializing JDBC OTP store");
+            return new JdbcOtpStore(otpCodeRepository, maxAttempts, jdbcPurgeBatchSize);
+        }
+        log.info("Initializing in-memory OTP store, at most {} codes", memoryMaxEntries);
+        return new InMemoryOtpStore(memoryMaxEntries, maxAttempts, meterRegistry);
+    }
+}
@@ -0,0 +1,147 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
+import sis.hust.edu.vn.digital_signature.repository.ratelimit.RateLimitBucketRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buckets shared by all instances in the {@code rate_limit_buckets} table through the Bucket4j
+ * JDBC proxy, so a client gets the configured limit cluster-wide rather than once per instance.
+ *
+ * Each instance keeps the proxy of every active bucket with a delaying optimization: up to
+ * {@code localTokens} tokens are consumed locally and synchronized with the table at most every
+ * {@code localSync}, so most requests cost no round trip. The price is that a client may overshoot
+ * by about {@code localTokens} per instance within one sync interval.
+ *
+ * When the table cannot be reached the limiter stops trying for {@code failureBackoff} and either
+ * fails open to this instance's local buckets or fails closed with a 503.
+ *
+ * Metrics: {@code rate.limit.degraded} (requests decided without the shared table).
+ */
+@Slf4j
+public class DistributedRateLimiter implements RateLimiter {
+
+    private static final int TOUCH_BATCH_SIZE = 500;
+
+    private final ProxyManager<String> proxyManager;
+    private final Map<String, BucketConfiguration> configurations;
+    private final DelayParameters delayParameters;
+    private final Cache<String, Bucket> proxies;
+    private final RateLimiter fallback;
+    private final boolean failOpen;
+    private final long failureBackoffMs;
+    private final RateLimitBucketRepository rateLimitBucketRepository;
+    private final Duration idleExpiry;
+    private final Counter degradedCounter;
+
+    // Buckets used since the last touch flush, so idle rows can be told apart from live ones
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private volatile long remoteRetryAt;
+
+    public DistributedRateLimiter(ProxyManager<String> proxyManager, Map<String, BucketConfiguration> configurations,
+                                  long localTokens, Duration localSync, int maxBuckets, Duration idleExpiry,
+                                  boolean failOpen, Duration failureBackoff,
+                                  RateLimitBucketRepository rateLimitBucketRepository, MeterRegistry meterRegistry) {
+        this.proxyManager = proxyManager;
+        this.configurations = configurations;
+        this.delayParameters = new DelayParameters(localTokens, localSync);
+        this.proxies = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(maxBuckets)
+                .build();
+        this.fallback = new LocalRateLimiter(configurations, maxBuckets, idleExpiry);
+        this.failOpen = failOpen;
+        this.failureBackoffMs = failureBackoff.toMillis();
+        this.rateLimitBucketRepository = rateLimitBucketRepository;
+        this.idleExpiry = idleExpiry;
+        this.degradedCounter = Counter.builder("rate.limit.degraded")
+                .description("Rate limit decisions made without the shared bucket table")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean tryConsume(String bucket, String key, long tokens) {
+        if (System.currentTimeMillis() < remoteRetryAt) {
+            return degraded(bucket, key, tokens);
+        }
+        try {
+            String id = bucket + ':' + key;
+            boolean allowed = proxies.get(id, k -> newProxy(k, configurations.get(bucket))).tryConsume(tokens);
+            touched.add(id);
+            return allowed;
+        } catch (Exception e) {
+            remoteRetryAt = System.currentTimeMillis() + failureBackoffMs;
+            log.warn("Shared rate limit buckets unreachable, {} for {}ms: {}",
+                    failOpen ? "using local buckets" : "rejecting requests", failureBackoffMs, e.getMessage());
+            return degraded(bucket, key, tokens);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.distributed.touch-interval-ms:60000}")
+    public void flushTouched() {
+        if (touched.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(touched);
+        touched.removeAll(keys);
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int from = 0; from < keys.size(); from += TOUCH_BATCH_SIZE) {
+                rateLimitBucketRepository.touch(keys.subList(from, Math.min(from + TOUCH_BATCH_SIZE, keys.size())), now);
+            }
+        } catch (Exception e) {
+            log.warn("Could not record rate limit bucket activity: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A bucket idle for the longest window is full again, so dropping its row loses nothing.
+     */
+    @Scheduled(cron = "${rate-limit.distributed.purge-cron:0 */15 * * * *}")
+    public void purgeIdle() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleExpiry);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = rateLimitBucketRepository.deleteIdleBatch(cutoff, TOUCH_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == TOUCH_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Purged {} idle rate limit buckets", total);
+        }
+    }
+
+    private Bucket newProxy(String id, BucketConfiguration configuration) {
+        return proxyManager.builder()
+                .withOptimization(Optimizations.delaying(delayParameters))
+                .build(id, () -> configuration);
+    }
+
+    private boolean degraded(String bucket, String key, long tokens) {
+        degradedCounter.increment();
+        if (failOpen) {
+            return fallback.tryConsume(bucket, key, tokens);
+        }
+        throw new CapacityExceededException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Rate limiter temporarily unavailable, please retry", Math.max(1, failureBackoffMs / 1000));
+    }
+}
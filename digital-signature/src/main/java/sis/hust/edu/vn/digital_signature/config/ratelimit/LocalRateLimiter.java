@@ -0,0 +1,42 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Buckets held by this instance only: every instance enforces the full limit on its own.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Map<String, BucketConfiguration> configurations;
+    private final Cache<String, Bucket> buckets;
+
+    public LocalRateLimiter(Map<String, BucketConfiguration> configurations, int maxBuckets, Duration idleExpiry) {
+        this.configurations = configurations;
+        // Evicted only once idle for the longest window, by which time the bucket would be full again anyway
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(maxBuckets)
+                .build();
+    }
+
+    @Override
+    public boolean tryConsume(String bucket, String key, long tokens) {
+        return buckets.get(bucket + ':' + key, k -> newBucket(bucket)).tryConsume(tokens);
+    }
+
+    private Bucket newBucket(String bucket) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : configurations.get(bucket).getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,32 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named buckets for {@link RateLimited} routes, {@code rate-limit.buckets.<name>.tokens-per-minute}
+ * and {@code tokens-per-hour}. The {@code default} bucket is configured by
+ * {@code rate-limit.requests-per-minute} and {@code requests-per-hour}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitBucketProperties {
+
+    private Map<String, BucketLimits> buckets = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class BucketLimits {
+
+        private long tokensPerMinute;
+
+        private long tokensPerHour;
+    }
+}
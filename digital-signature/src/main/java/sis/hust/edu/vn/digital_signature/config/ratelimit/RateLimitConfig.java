@@ -1,20 +1,39 @@
 package sis.hust.edu.vn.digital_signature.config.ratelimit;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import sis.hust.edu.vn.digital_signature.repository.ratelimit.RateLimitBucketRepository;
 
+import javax.sql.DataSource;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Creates the RateLimiter selected by {@code rate-limit.store}: {@code local} keeps buckets per
+ * instance, {@code jdbc} shares them through Postgres so limits hold across instances.
+ * Every client has one bucket per name: {@code default} plus {@code rate-limit.buckets.*}.
+ */
 @Configuration
+@RequiredArgsConstructor
 @Getter
+@Slf4j
 public class RateLimitConfig {
 
+    // Longest refill window; a bucket idle this long is full again and can be dropped
+    private static final Duration IDLE_EXPIRY = Duration.ofHours(1);
+
     @Value("${rate-limit.requests-per-minute:60}")
     private int requestsPerMinute;
 
@@ -24,39 +43,66 @@ public class RateLimitConfig {
     @Value("${rate-limit.enabled:true}")
     private boolean enabled;
 
-    private Cache<String, Bucket> bucketCache;
+    @Value("${rate-limit.store:local}")
+    private String store;
+
+    @Value("${rate-limit.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Value("${rate-limit.distributed.local-tokens:5}")
+    private long distributedLocalTokens;
+
+    @Value("${rate-limit.distributed.local-sync-ms:1000}")
+    private long distributedLocalSyncMs;
+
+    @Value("${rate-limit.distributed.fail-open:true}")
+    private boolean distributedFailOpen;
+
+    @Value("${rate-limit.distributed.failure-backoff-ms:5000}")
+    private long distributedFailureBackoffMs;
+
+    private final RateLimitBucketProperties bucketProperties;
+
+    // Bucket name -> limits, the default bucket included
+    private Map<String, BucketConfiguration> bucketConfigurations;
 
     @PostConstruct
-    public void init() {
-        bucketCache = Caffeine.newBuilder()
-                .expireAfterWrite(Duration.ofHours(1))
-                .maximumSize(10_000)
-                .build();
+    void init() {
+        Map<String, BucketConfiguration> configurations = new HashMap<>();
+        configurations.put(RateLimitPolicy.DEFAULT_BUCKET, bucketConfiguration(requestsPerMinute, requestsPerHour));
+        bucketProperties.getBuckets().forEach((name, limits) ->
+                configurations.put(name, bucketConfiguration(limits.getTokensPerMinute(), limits.getTokensPerHour())));
+        bucketConfigurations = Map.copyOf(configurations);
     }
 
     @Bean
-    public Cache<String, Bucket> bucketCacheBean() {
-        if (bucketCache == null) {
-            init();
+    public RateLimiter rateLimiter(DataSource dataSource, RateLimitBucketRepository rateLimitBucketRepository,
+                                   MeterRegistry meterRegistry) {
+        if ("jdbc".equalsIgnoreCase(store)) {
+            log.info("Initializing shared rate limit buckets: {} tokens consumed locally between syncs, fail {}",
+                    distributedLocalTokens, distributedFailOpen ? "open" : "closed");
+            SQLProxyConfiguration<String> proxyConfiguration = SQLProxyConfiguration.builder()
+                    .withTableSettings(BucketTableSettings.customSettings("rate_limit_buckets", "id", "state"))
+                    .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                    .build(dataSource);
+            return new DistributedRateLimiter(new PostgreSQLSelectForUpdateBasedProxyManager<>(proxyConfiguration),
+                    bucketConfigurations, distributedLocalTokens, Duration.ofMillis(distributedLocalSyncMs),
+                    maxBuckets, IDLE_EXPIRY, distributedFailOpen, Duration.ofMillis(distributedFailureBackoffMs),
+                    rateLimitBucketRepository, meterRegistry);
         }
-        return bucketCache;
+        return new LocalRateLimiter(bucketConfigurations, maxBuckets, IDLE_EXPIRY);
     }
 
-    public Bucket resolveBucket(String key) {
-        if (bucketCache == null) {
-            init();
-        }
-        return bucketCache.get(key, k -> Bucket.builder()
+    private BucketConfiguration bucketConfiguration(long perMinute, long perHour) {
+        return BucketConfiguration.builder()
                 .addLimit(limit -> limit
-                        .capacity(requestsPerMinute)
-                        .refillIntervally(requestsPerMinute, Duration.ofMinutes(1))
+                        .capacity(perMinute)
+                        .refillIntervally(perMinute, Duration.ofMinutes(1))
                 )
                 .addLimit(limit -> limit
-                        .capacity(requestsPerHour)
-                        .refillIntervally(requestsPerHour, Duration.ofHours(1))
+                        .capacity(perHour)
+                        .refillIntervally(perHour, IDLE_EXPIRY)
                 )
-                .build());
+                .build();
     }
 }
-
-
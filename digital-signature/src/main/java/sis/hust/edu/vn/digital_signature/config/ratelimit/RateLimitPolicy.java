@@ -0,0 +1,11 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+/**
+ * Which bucket a route draws from and how many tokens one call takes.
+ */
+public record RateLimitPolicy(String bucket, long cost) {
+
+    public static final String DEFAULT_BUCKET = "default";
+
+    public static final RateLimitPolicy DEFAULT = new RateLimitPolicy(DEFAULT_BUCKET, 1);
+}
@@ -0,0 +1,73 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Handler method to {@link RateLimitPolicy} map, built once from every request mapping when the
+ * context is ready so resolving a request's policy is a single lookup, without reflection.
+ * A policy naming an unknown bucket, or costing more than its bucket can ever hold, fails startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitPolicyRegistry {
+
+    private final RateLimitConfig rateLimitConfig;
+
+    private volatile Map<Method, RateLimitPolicy> policies = Map.of();
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        Map<Method, RateLimitPolicy> resolved = new HashMap<>();
+        event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()
+                .forEach(mapping -> mapping.getHandlerMethods().values().forEach(handlerMethod -> {
+                    RateLimited rateLimited = findAnnotation(handlerMethod);
+                    if (rateLimited != null) {
+                        resolved.put(handlerMethod.getMethod(), validate(handlerMethod, rateLimited));
+                    }
+                }));
+        policies = Map.copyOf(resolved);
+        log.info("Rate limit policies: {} routes with their own bucket or cost", resolved.size());
+    }
+
+    public RateLimitPolicy resolve(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return policies.getOrDefault(handlerMethod.getMethod(), RateLimitPolicy.DEFAULT);
+        }
+        return RateLimitPolicy.DEFAULT;
+    }
+
+    private RateLimited findAnnotation(HandlerMethod handlerMethod) {
+        RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RateLimited.class);
+        return rateLimited != null
+                ? rateLimited
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimited.class);
+    }
+
+    private RateLimitPolicy validate(HandlerMethod handlerMethod, RateLimited rateLimited) {
+        BucketConfiguration configuration = rateLimitConfig.getBucketConfigurations().get(rateLimited.bucket());
+        if (configuration == null) {
+            throw new IllegalStateException("Unknown rate limit bucket '" + rateLimited.bucket() + "' on " + handlerMethod);
+        }
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            if (rateLimited.cost() < 1 || rateLimited.cost() > bandwidth.getCapacity()) {
+                throw new IllegalStateException("Rate limit cost " + rateLimited.cost() + " on " + handlerMethod
+                        + " does not fit bucket '" + rateLimited.bucket() + "'");
+            }
+        }
+        return new RateLimitPolicy(rateLimited.bucket(), rateLimited.cost());
+    }
+}
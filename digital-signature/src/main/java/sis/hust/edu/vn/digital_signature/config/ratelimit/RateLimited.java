@@ -0,0 +1,20 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limit policy of a controller method (or of every method of a controller class):
+ * each call takes {@code cost} tokens from the caller's {@code bucket}, one of
+ * {@code rate-limit.buckets.*}. Unannotated routes take one token from {@code default}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String bucket() default RateLimitPolicy.DEFAULT_BUCKET;
+
+    long cost() default 1;
+}
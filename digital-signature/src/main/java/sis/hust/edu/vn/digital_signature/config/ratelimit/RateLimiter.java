@@ -0,0 +1,13 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+/**
+ * Consumes request tokens from a client's bucket. A client has one bucket per name in
+ * {@code rate-limit.buckets}, plus {@code default}.
+ */
+public interface RateLimiter {
+
+    /**
+     * @return false when the client is over its limit
+     */
+    boolean tryConsume(String bucket, String key, long tokens);
+}
@@ -0,0 +1,13 @@
+package sis.hust.edu.vn.digital_signature.config.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration
+ * Enables @Scheduled background maintenance jobs
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
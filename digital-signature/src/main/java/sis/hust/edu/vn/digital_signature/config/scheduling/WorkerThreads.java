@@ -0,0 +1,53 @@
+package sis.hust.edu.vn.digital_signature.config.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the background worker pools that block on I/O (storage, webhooks,
+ * signature tasks, event fan-out, bulk send).
+ *
+ * With {@code spring.threads.virtual.enabled=true} on Java 21+, the same switch that moves Tomcat
+ * and Spring's task executors to virtual threads makes these workers virtual too: a worker parked
+ * on a socket then holds no platform thread. Pool sizes still cap how much work runs at once.
+ * CPU-bound pools (password hashing) keep platform threads either way.
+ */
+@Component
+@Slf4j
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (virtual) {
+            log.info("Background I/O workers run on virtual threads");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @param namePrefix e.g. {@code "webhook-worker-"}; threads are numbered after it
+     */
+    public ThreadFactory factory(String namePrefix) {
+        return virtual ? new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory() : platformFactory(namePrefix);
+    }
+
+    public static ThreadFactory platformFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package sis.hust.edu.vn.digital_signature.config.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,6 +32,9 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -51,6 +56,8 @@ public class SecurityConfig {
                 )
                         .authorizeHttpRequests(auth -> auth
                                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                                                // Re-dispatch of an already authorized async request (SSE streams) carries no token
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
                                                 // 1. Các API Public (Đăng ký, Đăng nhập, Refresh, OTP...) -> CHO PHÉP HẾT
                                                 .requestMatchers(
@@ -68,7 +75,9 @@ public class SecurityConfig {
                                                 .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                                                 
                                                 // 3. Actuator endpoints cho Cloud Health Check (Render, Azure, etc.)
-                                                .requestMatchers("/actuator/**").permitAll()
+                                                // Only health/info are public; metrics and the orphan GC report need an admin
+                                                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                                 .requestMatchers("/", "/ping", "/health").permitAll()
                                                 
                                                 // 3. API Public để người ngoài vào ký (quan trọng cho flow Invite)
@@ -95,7 +104,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Raising the cost takes effect for new hashes at once and for existing ones on their next login
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -109,8 +119,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(List.of("*")); // Use pattern instead for credentials
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "x-auth-token"));
-        configuration.setExposedHeaders(List.of("x-auth-token", "Content-Disposition"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "x-auth-token", "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("x-auth-token", "Content-Disposition", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true); // Enable credentials for Authorization header
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -1,13 +1,19 @@
 package sis.hust.edu.vn.digital_signature.config.storage;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
 import sis.hust.edu.vn.digital_signature.service.storage.LocalStorageService;
 import sis.hust.edu.vn.digital_signature.service.storage.R2StorageService;
+import sis.hust.edu.vn.digital_signature.service.storage.ResilientStorageService;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageResilienceSettings;
 import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
 
+import java.time.Duration;
+
 /**
  * Configuration class for storage service.
  * Creates appropriate StorageService bean based on STORAGE_TYPE environment variable.
@@ -26,6 +32,9 @@ public class StorageConfig {
     @Value("${storage.local.base-url:http://localhost:5555}")
     private String localBaseUrl;
 
+    @Value("${storage.local.migrate-flat-layout:true}")
+    private boolean localMigrateFlatLayout;
+
     // R2 storage config
     @Value("${storage.r2.endpoint:}")
     private String r2Endpoint;
@@ -45,8 +54,80 @@ public class StorageConfig {
     @Value("${storage.r2.presigned-url-expiry-minutes:60}")
     private int r2PresignedUrlExpiryMinutes;
 
+    @Value("${storage.r2.max-connections:50}")
+    private int r2MaxConnections;
+
+    @Value("${storage.r2.connection-timeout-ms:2000}")
+    private long r2ConnectionTimeoutMs;
+
+    @Value("${storage.r2.socket-timeout-ms:10000}")
+    private long r2SocketTimeoutMs;
+
+    @Value("${storage.r2.api-call-timeout-ms:30000}")
+    private long r2ApiCallTimeoutMs;
+
+    @Value("${storage.r2.part-timeout-ms:120000}")
+    private long r2PartTimeoutMs;
+
+    // Resilience layer (bulkhead, timeouts, circuit breaker, hedged GETs)
+    @Value("${storage.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+
+    @Value("${storage.resilience.max-concurrent-calls:16}")
+    private int resilienceMaxConcurrentCalls;
+
+    @Value("${storage.resilience.max-wait-ms:100}")
+    private long resilienceMaxWaitMs;
+
+    @Value("${storage.resilience.upload-timeout-ms:30000}")
+    private long resilienceUploadTimeoutMs;
+
+    @Value("${storage.resilience.part-timeout-ms:120000}")
+    private long resiliencePartTimeoutMs;
+
+    @Value("${storage.resilience.download-timeout-ms:10000}")
+    private long resilienceDownloadTimeoutMs;
+
+    @Value("${storage.resilience.delete-timeout-ms:5000}")
+    private long resilienceDeleteTimeoutMs;
+
+    @Value("${storage.resilience.list-timeout-ms:10000}")
+    private long resilienceListTimeoutMs;
+
+    @Value("${storage.resilience.circuit.failure-threshold:5}")
+    private int resilienceCircuitFailureThreshold;
+
+    @Value("${storage.resilience.circuit.open-ms:30000}")
+    private long resilienceCircuitOpenMs;
+
+    @Value("${storage.resilience.hedge-delay-ms:500}")
+    private long resilienceHedgeDelayMs;
+
     @Bean
-    public StorageService storageService() {
+    public StorageService storageService(WorkerThreads workerThreads, MeterRegistry meterRegistry) {
+        StorageService storageService = createStorageService();
+        if (!resilienceEnabled) {
+            return storageService;
+        }
+
+        log.info("Storage resilience: max {} concurrent calls, hedge delay {}ms, circuit opens after {} failures",
+                resilienceMaxConcurrentCalls, resilienceHedgeDelayMs, resilienceCircuitFailureThreshold);
+        StorageResilienceSettings settings = StorageResilienceSettings.builder()
+                .maxConcurrentCalls(resilienceMaxConcurrentCalls)
+                .maxWait(Duration.ofMillis(resilienceMaxWaitMs))
+                .uploadTimeout(Duration.ofMillis(resilienceUploadTimeoutMs))
+                .partTimeout(Duration.ofMillis(resiliencePartTimeoutMs))
+                .downloadTimeout(Duration.ofMillis(resilienceDownloadTimeoutMs))
+                .deleteTimeout(Duration.ofMillis(resilienceDeleteTimeoutMs))
+                .listTimeout(Duration.ofMillis(resilienceListTimeoutMs))
+                .circuitFailureThreshold(resilienceCircuitFailureThreshold)
+                .circuitOpenDuration(Duration.ofMillis(resilienceCircuitOpenMs))
+                .hedgeDelay(Duration.ofMillis(resilienceHedgeDelayMs))
+                .build();
+        return new ResilientStorageService(storageService, settings, workerThreads.factory("storage-io-"), meterRegistry);
+    }
+
+    private StorageService createStorageService() {
         if ("r2".equalsIgnoreCase(storageType)) {
             // Validate R2 configuration
             if (r2Endpoint == null || r2Endpoint.isEmpty() ||
@@ -72,7 +153,12 @@ public class StorageConfig {
                     r2Bucket,
                     r2Region,
                     r2PresignedUrlExpiryMinutes,
-                    localBaseUrl  // Use same base URL as local storage for proxy endpoint
+                    localBaseUrl,  // Use same base URL as local storage for proxy endpoint
+                    r2MaxConnections,
+                    Duration.ofMillis(r2ConnectionTimeoutMs),
+                    Duration.ofMillis(r2SocketTimeoutMs),
+                    Duration.ofMillis(r2ApiCallTimeoutMs),
+                    Duration.ofMillis(r2PartTimeoutMs)
             );
         } else {
             return createLocalStorageService();
@@ -83,6 +169,10 @@ public class StorageConfig {
         log.info("Initializing Local Storage Service");
         log.info("Upload directory: {}", localUploadDir);
         log.info("Base URL: {}", localBaseUrl);
-        return new LocalStorageService(localUploadDir, localBaseUrl);
+        LocalStorageService localStorageService = new LocalStorageService(localUploadDir, localBaseUrl);
+        if (localMigrateFlatLayout) {
+            localStorageService.startFlatLayoutMigration();
+        }
+        return localStorageService;
     }
 }
@@ -10,6 +10,8 @@ public class ErrorMessages {
 
     public static final String INVALID_REFRESH_TOKEN = "Invalid refresh token";
 
+    public static final String ACCOUNT_DISABLED = "Account is disabled";
+
     public static final String USERNAME_ALREADY_EXISTS = "Username already exists";
 
     public static final String EMAIL_ALREADY_EXISTS = "Email already exists";
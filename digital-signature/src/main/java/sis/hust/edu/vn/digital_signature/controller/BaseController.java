@@ -23,6 +23,14 @@ public abstract class BaseController {
         return ResponseEntity.status(201).body(Response.success(message, data));
     }
 
+    protected <T> ResponseEntity<Response<T>> accepted(String message, T data) {
+        return ResponseEntity.accepted().body(Response.<T>builder()
+                .status(202)
+                .message(message)
+                .data(data)
+                .build());
+    }
+
     protected <T> ResponseEntity<PageResponse<T>> successPage(Page<T> page) {
         return ResponseEntity.ok(PageResponse.success(page));
     }
@@ -31,6 +39,14 @@ public abstract class BaseController {
         return ResponseEntity.ok(PageResponse.success(message, page));
     }
 
+    protected <T> ResponseEntity<Response<T>> unprocessable(String message, T data) {
+        return ResponseEntity.unprocessableEntity().body(Response.<T>builder()
+                .status(422)
+                .message(message)
+                .data(data)
+                .build());
+    }
+
     protected <T> ResponseEntity<Response<T>> badRequest(String message) {
         return ResponseEntity.badRequest().body(Response.error(message));
     }
@@ -6,6 +6,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
 import sis.hust.edu.vn.digital_signature.controller.BaseController;
 import sis.hust.edu.vn.digital_signature.dto.auth.request.ChangePasswordRequest;
 import sis.hust.edu.vn.digital_signature.dto.auth.request.LoginRequest;
@@ -31,12 +32,14 @@ public class AuthController extends BaseController {
     private final AuthService authService;
     private final UserMapper userMapper;
 
+    @RateLimited(bucket = "auth", cost = 5)
     @PostMapping("/register")
     public ResponseEntity<Response<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
         AuthResponse authResponse = authService.register(request);
         return success("User registered successfully", authResponse);
     }
 
+    @RateLimited(bucket = "auth", cost = 5)
     @PostMapping("/login")
     public ResponseEntity<Response<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
         AuthResponse authResponse = authService.login(request);
@@ -62,6 +65,7 @@ public class AuthController extends BaseController {
         return success(userResponse);
     }
 
+    @RateLimited(bucket = "auth", cost = 5)
     @PostMapping("/change-password")
     public ResponseEntity<Response<Void>> changePassword(
             @CurrentUser User user,
@@ -70,6 +74,7 @@ public class AuthController extends BaseController {
         return success("Password changed successfully", null);
     }
 
+    @RateLimited(bucket = "auth", cost = 10)
     @PostMapping("/send-otp")
     public ResponseEntity<Response<Map<String, String>>> sendOtp(@Valid @RequestBody SendOtpRequest request) {
         String otp = authService.sendOtp(request.getEmail(), request.getType());
@@ -79,12 +84,14 @@ public class AuthController extends BaseController {
         return success("OTP generated successfully", response);
     }
 
+    @RateLimited(bucket = "auth", cost = 5)
     @PostMapping("/reset-password")
     public ResponseEntity<Response<Void>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
         authService.resetPassword(request.getEmail(), request.getOtp(), request.getNewPassword());
         return success("Password reset successfully", null);
     }
 
+    @RateLimited(bucket = "auth", cost = 5)
     @PostMapping(value = "/verify-otp", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Response<AuthResponse>> verifyOtp(
             @RequestPart("username") String username,
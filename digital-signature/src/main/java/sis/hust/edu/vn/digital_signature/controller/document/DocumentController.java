@@ -2,24 +2,31 @@ package sis.hust.edu.vn.digital_signature.controller.document;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
+import sis.hust.edu.vn.digital_signature.constants.pagination.PaginationConstants;
 import sis.hust.edu.vn.digital_signature.controller.BaseController;
+import sis.hust.edu.vn.digital_signature.dto.common.response.PageResponse;
 import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
 import sis.hust.edu.vn.digital_signature.dto.document.GetDocumentResponse;
 import sis.hust.edu.vn.digital_signature.dto.document.ListDocumentsResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.BulkInviteResponse;
 import sis.hust.edu.vn.digital_signature.dto.signer.InviteSignersRequest;
 import sis.hust.edu.vn.digital_signature.dto.signer.InviteSignersResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.SignerResponse;
 import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
 import sis.hust.edu.vn.digital_signature.entity.model.Document;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
 import sis.hust.edu.vn.digital_signature.security.annotation.CurrentUser;
 import sis.hust.edu.vn.digital_signature.service.document.DocumentService;
 import sis.hust.edu.vn.digital_signature.service.document.PdfExportService;
+import sis.hust.edu.vn.digital_signature.service.signer.BulkInviteService;
 import sis.hust.edu.vn.digital_signature.service.signer.SignerService;
 import sis.hust.edu.vn.digital_signature.util.pagination.PaginationUtils;
 
@@ -34,6 +41,7 @@ public class DocumentController extends BaseController {
 
     private final DocumentService documentService;
     private final SignerService signerService;
+    private final BulkInviteService bulkInviteService;
     private final PdfExportService pdfExportService;
 
     @GetMapping
@@ -83,6 +91,7 @@ public class DocumentController extends BaseController {
         return success(response);
     }
 
+    @RateLimited(bucket = "upload", cost = 10)
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Response<Document>> uploadDocument(
             @RequestPart("file") MultipartFile file,
@@ -119,6 +128,19 @@ public class DocumentController extends BaseController {
         return success("Signers invited successfully", response);
     }
 
+    @RateLimited(bucket = "bulk", cost = 10)
+    @PostMapping(value = "/{documentId}/invite/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Response<BulkInviteResponse>> inviteSignersFromCsv(
+            @PathVariable String documentId,
+            @RequestPart("file") MultipartFile file,
+            @CurrentUser User user) throws IOException {
+        BulkInviteResponse response = bulkInviteService.inviteFromCsv(documentId, file.getInputStream(), user.getId());
+        if (response.getInvitedCount() == 0) {
+            return unprocessable("No signers were invited: the CSV file has invalid rows", response);
+        }
+        return success("Signers invited successfully", response);
+    }
+
     @PostMapping("/{documentId}/self-sign")
     public ResponseEntity<Response<sis.hust.edu.vn.digital_signature.dto.signer.SelfSignResponse>> selfSign(
             @PathVariable String documentId,
@@ -128,13 +150,29 @@ public class DocumentController extends BaseController {
         return success("Self-sign initiated successfully", response);
     }
 
+    @GetMapping("/{id}/signers")
+    public ResponseEntity<PageResponse<SignerResponse>> listSigners(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer limit,
+            @CurrentUser User user) {
+        // Signers in signing order; page is 1-based like the document list
+        int pageNumber = (page != null && page > 0) ? page - 1 : 0;
+        int pageSize = (limit != null && limit > 0 && limit <= PaginationConstants.MAX_SIZE)
+                ? limit
+                : PaginationConstants.DEFAULT_SIZE;
+        Page<SignerResponse> signers = documentService.listSigners(
+                id, user.getId(), user.getEmail(), PageRequest.of(pageNumber, pageSize));
+        return successPage(signers);
+    }
+
+    @RateLimited(bucket = "export", cost = 10)
     @GetMapping("/{id}/download")
     public ResponseEntity<byte[]> downloadDocument(
             @PathVariable String id,
             @CurrentUser User user) {
         // Verify user has access (owner or signer)
-        GetDocumentResponse docResponse = documentService.getDocumentWithFieldsAndSigners(id, user.getId(), user.getEmail());
-        Document document = docResponse.getDocument();
+        Document document = documentService.getDocumentById(id, user.getId(), user.getEmail());
         
         // Generate PDF with embedded signatures
         byte[] pdfBytes = pdfExportService.generatePdfWithSignatures(id);
@@ -153,13 +191,13 @@ public class DocumentController extends BaseController {
                 .body(pdfBytes);
     }
 
+    @RateLimited(bucket = "export", cost = 20)
     @GetMapping("/{id}/download-with-qr")
     public ResponseEntity<byte[]> downloadDocumentWithQr(
             @PathVariable String id,
             @CurrentUser User user) {
         // Verify user has access (owner or signer)
-        GetDocumentResponse docResponse = documentService.getDocumentWithFieldsAndSigners(id, user.getId(), user.getEmail());
-        Document document = docResponse.getDocument();
+        Document document = documentService.getDocumentById(id, user.getId(), user.getEmail());
         
         // Generate PDF with embedded signatures and QR code
         byte[] pdfBytes = pdfExportService.generatePdfWithSignaturesAndQr(id);
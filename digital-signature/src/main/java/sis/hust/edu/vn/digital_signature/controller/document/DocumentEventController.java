@@ -0,0 +1,29 @@
+package sis.hust.edu.vn.digital_signature.controller.document;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sis.hust.edu.vn.digital_signature.controller.BaseController;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.security.annotation.CurrentUser;
+import sis.hust.edu.vn.digital_signature.service.event.DocumentEventHub;
+
+/**
+ * Server-Sent Events stream of status changes (signed, declined, completed) on the caller's documents.
+ * Replaces polling the document list; a {@code resync} event means the client should reload once.
+ */
+@RestController
+@RequestMapping("/api/documents/events")
+@RequiredArgsConstructor
+public class DocumentEventController extends BaseController {
+
+    private final DocumentEventHub documentEventHub;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@CurrentUser User user) {
+        return documentEventHub.subscribe(user.getId());
+    }
+}
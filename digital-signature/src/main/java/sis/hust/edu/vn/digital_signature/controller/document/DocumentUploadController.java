@@ -0,0 +1,74 @@
+package sis.hust.edu.vn.digital_signature.controller.document;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
+import sis.hust.edu.vn.digital_signature.controller.BaseController;
+import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
+import sis.hust.edu.vn.digital_signature.dto.upload.CreateUploadRequest;
+import sis.hust.edu.vn.digital_signature.dto.upload.UploadSessionResponse;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.security.annotation.CurrentUser;
+import sis.hust.edu.vn.digital_signature.service.upload.ChunkedUploadService;
+
+import java.io.IOException;
+
+/**
+ * Resumable chunked document upload.
+ * Chunks are sent as raw {@code application/octet-stream} bodies so they are streamed, not buffered as multipart.
+ */
+@RestController
+@RequestMapping("/api/documents/uploads")
+@RequiredArgsConstructor
+public class DocumentUploadController extends BaseController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<Response<UploadSessionResponse>> createUpload(
+            @Valid @RequestBody CreateUploadRequest request,
+            @CurrentUser User user) {
+        return created("Upload session created", chunkedUploadService.createSession(request, user.getId()));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Response<UploadSessionResponse>> getUploadStatus(
+            @PathVariable String uploadId,
+            @CurrentUser User user) {
+        return success(chunkedUploadService.getStatus(uploadId, user.getId()));
+    }
+
+    @RateLimited(bucket = "upload")
+    @PutMapping(value = "/{uploadId}/chunks", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Response<UploadSessionResponse>> appendChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            HttpServletRequest request,
+            @CurrentUser User user) throws IOException {
+        UploadSessionResponse response = chunkedUploadService.appendChunk(
+                uploadId, user.getId(), offset, request.getInputStream(), request.getContentLengthLong());
+        return success(response);
+    }
+
+    @RateLimited(bucket = "upload", cost = 5)
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Response<Document>> completeUpload(
+            @PathVariable String uploadId,
+            @CurrentUser User user) {
+        Document document = chunkedUploadService.completeUpload(uploadId, user.getId());
+        return created("Document uploaded successfully", document);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(
+            @PathVariable String uploadId,
+            @CurrentUser User user) {
+        chunkedUploadService.abortUpload(uploadId, user.getId());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -8,8 +8,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
 import sis.hust.edu.vn.digital_signature.controller.BaseController;
 import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageUnavailableException;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
 import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
 
 import java.util.Map;
@@ -20,6 +23,7 @@ import java.util.Map;
 public class FileController extends BaseController {
 
     private final StorageService storageService;
+    private final FileService fileService;
 
     @Value("${storage.type:local}")
     private String storageType;
@@ -29,10 +33,11 @@ public class FileController extends BaseController {
      * Works for both local and R2 storage.
      * CORS is handled globally by SecurityConfig - don't add headers here to avoid duplicates.
      */
+    @RateLimited(bucket = "export", cost = 2)
     @GetMapping("/{fileName}")
     public ResponseEntity<Resource> getFile(@PathVariable String fileName) {
         try {
-            byte[] data = storageService.download(fileName);
+            byte[] data = fileService.getFileBytes(fileName);
             ByteArrayResource resource = new ByteArrayResource(data);
 
             // Determine content type from file extension
@@ -45,6 +50,10 @@ public class FileController extends BaseController {
                     .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                     .header(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
                     .body(resource);
+        } catch (StorageUnavailableException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -0,0 +1,75 @@
+package sis.hust.edu.vn.digital_signature.controller.template;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
+import sis.hust.edu.vn.digital_signature.controller.BaseController;
+import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
+import sis.hust.edu.vn.digital_signature.dto.template.BulkSendJobResponse;
+import sis.hust.edu.vn.digital_signature.dto.template.BulkSendRequest;
+import sis.hust.edu.vn.digital_signature.dto.template.CreateTemplateRequest;
+import sis.hust.edu.vn.digital_signature.dto.template.TemplateResponse;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.security.annotation.CurrentUser;
+import sis.hust.edu.vn.digital_signature.service.template.BulkSendService;
+import sis.hust.edu.vn.digital_signature.service.template.TemplateService;
+
+import java.util.List;
+
+/**
+ * Document templates and bulk send.
+ * A bulk send is accepted immediately (202) and runs in the background; poll the job for progress.
+ */
+@RestController
+@RequestMapping("/api/templates")
+@RequiredArgsConstructor
+public class TemplateController extends BaseController {
+
+    private final TemplateService templateService;
+    private final BulkSendService bulkSendService;
+
+    @PostMapping
+    public ResponseEntity<Response<TemplateResponse>> createTemplate(
+            @Valid @RequestBody CreateTemplateRequest request,
+            @CurrentUser User user) {
+        return created("Template created successfully", templateService.createFromDocument(request, user.getId()));
+    }
+
+    @GetMapping
+    public ResponseEntity<Response<List<TemplateResponse>>> listTemplates(@CurrentUser User user) {
+        return success(templateService.listTemplates(user.getId()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Response<TemplateResponse>> getTemplate(
+            @PathVariable String id,
+            @CurrentUser User user) {
+        return success(templateService.getTemplate(id, user.getId()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteTemplate(
+            @PathVariable String id,
+            @CurrentUser User user) {
+        templateService.deleteTemplate(id, user.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    @RateLimited(bucket = "bulk", cost = 20)
+    @PostMapping("/{id}/bulk-send")
+    public ResponseEntity<Response<BulkSendJobResponse>> bulkSend(
+            @PathVariable String id,
+            @Valid @RequestBody BulkSendRequest request,
+            @CurrentUser User user) {
+        return accepted("Bulk send queued", bulkSendService.startBulkSend(id, request, user.getId()));
+    }
+
+    @GetMapping("/bulk-send/{jobId}")
+    public ResponseEntity<Response<BulkSendJobResponse>> getBulkSendJob(
+            @PathVariable String jobId,
+            @CurrentUser User user) {
+        return success(bulkSendService.getJob(jobId, user.getId()));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
 import sis.hust.edu.vn.digital_signature.controller.BaseController;
 import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
 import sis.hust.edu.vn.digital_signature.entity.model.Document;
@@ -47,6 +48,7 @@ public class PublicVerificationController extends BaseController {
      * @param documentId The document ID to view
      * @return Document info with file URL
      */
+    @RateLimited(bucket = "verify", cost = 2)
     @GetMapping("/verify/{documentId}")
     public ResponseEntity<Response<Map<String, Object>>> getDocumentForVerification(
             @PathVariable String documentId) {
@@ -3,6 +3,7 @@ package sis.hust.edu.vn.digital_signature.controller.verification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.config.ratelimit.RateLimited;
 import sis.hust.edu.vn.digital_signature.controller.BaseController;
 import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
 import sis.hust.edu.vn.digital_signature.dto.verification.VerificationResponse;
@@ -26,6 +27,7 @@ public class VerificationController extends BaseController {
      * @param documentId The document ID to verify
      * @return Verification result with signature details
      */
+    @RateLimited(bucket = "verify", cost = 10)
     @GetMapping("/{documentId}/verify")
     public ResponseEntity<Response<VerificationResponse>> verifyDocument(
             @PathVariable String documentId) {
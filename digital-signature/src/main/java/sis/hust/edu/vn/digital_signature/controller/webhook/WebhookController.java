@@ -0,0 +1,47 @@
+package sis.hust.edu.vn.digital_signature.controller.webhook;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sis.hust.edu.vn.digital_signature.controller.BaseController;
+import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
+import sis.hust.edu.vn.digital_signature.dto.webhook.CreateWebhookRequest;
+import sis.hust.edu.vn.digital_signature.dto.webhook.WebhookEndpointResponse;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.security.annotation.CurrentUser;
+import sis.hust.edu.vn.digital_signature.service.webhook.WebhookService;
+
+import java.util.List;
+
+/**
+ * Webhook subscriptions for document and signer status events on the caller's documents.
+ * The signing secret is only returned by the create call.
+ */
+@RestController
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+public class WebhookController extends BaseController {
+
+    private final WebhookService webhookService;
+
+    @PostMapping
+    public ResponseEntity<Response<WebhookEndpointResponse>> createWebhook(
+            @Valid @RequestBody CreateWebhookRequest request,
+            @CurrentUser User user) {
+        return created("Webhook endpoint created", webhookService.createEndpoint(request, user.getId()));
+    }
+
+    @GetMapping
+    public ResponseEntity<Response<List<WebhookEndpointResponse>>> listWebhooks(@CurrentUser User user) {
+        return success(webhookService.listEndpoints(user.getId()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWebhook(
+            @PathVariable String id,
+            @CurrentUser User user) {
+        webhookService.deleteEndpoint(id, user.getId());
+        return ResponseEntity.noContent().build();
+    }
+}
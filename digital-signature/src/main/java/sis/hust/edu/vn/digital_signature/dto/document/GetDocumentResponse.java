@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import sis.hust.edu.vn.digital_signature.entity.model.Document;
 import sis.hust.edu.vn.digital_signature.entity.model.Field;
 import sis.hust.edu.vn.digital_signature.dto.signer.SignerResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.SignerSummary;
 
 import java.util.List;
 
@@ -18,5 +19,6 @@ public class GetDocumentResponse {
     private Document document;
     private List<Field> fields;
     private List<SignerResponse> signers;
+    private SignerSummary signerSummary;
 }
 
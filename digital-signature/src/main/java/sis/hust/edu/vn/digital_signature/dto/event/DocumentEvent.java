@@ -0,0 +1,42 @@
+package sis.hust.edu.vn.digital_signature.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status change pushed to the document owner's event stream.
+ * Kept small: it travels as a Postgres NOTIFY payload (max 8000 bytes) between instances.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentEvent {
+    private DocumentEventType type;
+    private String documentId;
+    private String ownerId;
+    private String documentStatus;
+    private String signerId;
+    private String signerEmail;
+    private String signerName;
+    private LocalDateTime occurredAt;
+
+    public static DocumentEvent of(DocumentEventType type, Document document, Signer signer) {
+        return DocumentEvent.builder()
+                .type(type)
+                .documentId(document.getId())
+                .ownerId(document.getOwnerId())
+                .documentStatus(document.getStatus().name())
+                .signerId(signer != null ? signer.getId() : null)
+                .signerEmail(signer != null ? signer.getEmail() : null)
+                .signerName(signer != null ? signer.getName() : null)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
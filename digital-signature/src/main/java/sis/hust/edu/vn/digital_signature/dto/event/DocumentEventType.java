@@ -0,0 +1,8 @@
+package sis.hust.edu.vn.digital_signature.dto.event;
+
+public enum DocumentEventType {
+    DOCUMENT_SENT,
+    SIGNER_SIGNED,
+    SIGNER_DECLINED,
+    DOCUMENT_COMPLETED
+}
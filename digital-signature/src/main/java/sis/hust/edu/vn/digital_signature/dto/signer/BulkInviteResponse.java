@@ -0,0 +1,26 @@
+package sis.hust.edu.vn.digital_signature.dto.signer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+
+import java.util.List;
+
+/**
+ * Result of a CSV bulk invite. Nothing is invited when any row is invalid; {@code errors} then lists
+ * the rejected rows (capped, see {@code errorsTruncated}). Invited signers are listed via GET /signers.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInviteResponse {
+    private Document document;
+    private long totalRows;
+    private long invitedCount;
+    private long assignedFieldCount;
+    private List<BulkInviteRowError> errors;
+    private boolean errorsTruncated;
+}
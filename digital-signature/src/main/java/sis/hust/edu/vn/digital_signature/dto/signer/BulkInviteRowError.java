@@ -0,0 +1,16 @@
+package sis.hust.edu.vn.digital_signature.dto.signer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInviteRowError {
+    private long row; // 1-based data row, the header is not counted
+    private String email;
+    private String message;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
 
 import java.time.LocalDateTime;
 
@@ -22,7 +23,28 @@ public class SignerResponse {
     private LocalDateTime signedAt;
     private LocalDateTime declinedAt;
     private String declineReason;
+    private String digitalSignatureStatus;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    public static SignerResponse of(Signer signer, String signingUrl) {
+        return SignerResponse.builder()
+                .id(signer.getId())
+                .documentId(signer.getDocumentId())
+                .email(signer.getEmail())
+                .name(signer.getName())
+                .order(signer.getOrder())
+                .status(signer.getStatus().name())
+                .signingUrl(signingUrl)
+                .signedAt(signer.getSignedAt())
+                .declinedAt(signer.getDeclinedAt())
+                .declineReason(signer.getDeclineReason())
+                .digitalSignatureStatus(signer.getDigitalSignatureStatus() != null
+                        ? signer.getDigitalSignatureStatus().name()
+                        : null)
+                .createdAt(signer.getCreatedAt())
+                .updatedAt(signer.getUpdatedAt())
+                .build();
+    }
 }
 
@@ -0,0 +1,18 @@
+package sis.hust.edu.vn.digital_signature.dto.signer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignerSummary {
+    private long total;
+    private long pending;
+    private long signed;
+    private long declined;
+    private boolean truncated; // signer list holds only the first signers; page through /signers for the rest
+}
@@ -18,5 +18,6 @@ public class SigningSessionResponse {
     private SignerResponse signer;
     private List<Field> fields; // Only fields assigned to this signer
     private List<SignerResponse> allSigners; // All signers for display
+    private SignerSummary signerSummary;
 }
 
@@ -0,0 +1,44 @@
+package sis.hust.edu.vn.digital_signature.dto.template;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendJob;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSendJobResponse {
+    private String id;
+    private String templateId;
+    private String title;
+    private String status;
+    private int totalRecipients;
+    private int sentRecipients;
+    private int progressPercent;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    public static BulkSendJobResponse of(BulkSendJob job) {
+        int total = job.getTotalRecipients();
+        return BulkSendJobResponse.builder()
+                .id(job.getId())
+                .templateId(job.getTemplateId())
+                .title(job.getTitle())
+                .status(job.getStatus().name())
+                .totalRecipients(total)
+                .sentRecipients(job.getSentRecipients())
+                .progressPercent(total == 0 ? 100 : (int) (100L * job.getSentRecipients() / total))
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package sis.hust.edu.vn.digital_signature.dto.template;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSendRecipientRequest {
+    @NotBlank
+    @Email(message = "Email should be valid")
+    private String email;
+
+    @NotBlank
+    @Size(max = 255)
+    private String name;
+}
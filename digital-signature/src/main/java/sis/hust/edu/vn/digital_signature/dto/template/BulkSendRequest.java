@@ -0,0 +1,26 @@
+package sis.hust.edu.vn.digital_signature.dto.template;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSendRequest {
+    @NotBlank
+    @Size(max = 255)
+    private String title; // title of every created document
+
+    @NotEmpty
+    @Valid
+    private List<BulkSendRecipientRequest> recipients;
+}
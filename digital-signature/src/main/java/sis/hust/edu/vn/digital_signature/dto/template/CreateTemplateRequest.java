@@ -0,0 +1,19 @@
+package sis.hust.edu.vn.digital_signature.dto.template;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateTemplateRequest {
+    @NotBlank
+    private String documentId; // the template reuses this document's file and field layout
+
+    @NotBlank
+    private String name;
+}
@@ -0,0 +1,25 @@
+package sis.hust.edu.vn.digital_signature.dto.template;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.model.TemplateField;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateResponse {
+    private String id;
+    private String name;
+    private String fileUrl;
+    private Long fileSize;
+    private Integer pageCount;
+    private List<TemplateField> fields; // only on the detail endpoint
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
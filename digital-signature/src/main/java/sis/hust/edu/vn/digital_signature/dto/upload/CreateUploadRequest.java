@@ -0,0 +1,26 @@
+package sis.hust.edu.vn.digital_signature.dto.upload;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadRequest {
+    @NotBlank
+    private String fileName;
+
+    private String contentType;
+
+    @NotNull
+    @Positive
+    private Long totalSize;
+
+    private String title;
+}
@@ -0,0 +1,22 @@
+package sis.hust.edu.vn.digital_signature.dto.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String uploadId;
+    private String fileName;
+    private Long totalSize;
+    private Long receivedBytes; // offset the next chunk must start at
+    private Long minChunkSize; // every chunk but the last must be at least this big
+    private Long maxChunkSize;
+    private UploadStatus status;
+    private String documentId;
+}
@@ -0,0 +1,23 @@
+package sis.hust.edu.vn.digital_signature.dto.webhook;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEventType;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateWebhookRequest {
+    @NotBlank
+    @Size(max = 2000)
+    private String url;
+
+    private List<DocumentEventType> eventTypes; // empty = all events
+}
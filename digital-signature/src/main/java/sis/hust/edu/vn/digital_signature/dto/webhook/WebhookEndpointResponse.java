@@ -0,0 +1,22 @@
+package sis.hust.edu.vn.digital_signature.dto.webhook;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEndpointResponse {
+    private String id;
+    private String url;
+    private List<String> eventTypes;
+    private Boolean active;
+    private String secret; // only returned when the endpoint is created
+    private LocalDateTime createdAt;
+}
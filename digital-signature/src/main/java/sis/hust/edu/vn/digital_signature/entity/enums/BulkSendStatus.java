@@ -0,0 +1,8 @@
+package sis.hust.edu.vn.digital_signature.entity.enums;
+
+public enum BulkSendStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package sis.hust.edu.vn.digital_signature.entity.enums;
+
+public enum DigitalSignatureStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    SKIPPED, // signer has no account, so no key pair to sign with
+    FAILED
+}
@@ -1,9 +1,26 @@
 package sis.hust.edu.vn.digital_signature.entity.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum DocumentStatus {
     DRAFT,
     SIGNING,
     DONE,
-    DECLINED
-}
+    DECLINED;
 
+    /**
+     * Allowed transitions; DONE and DECLINED are final.
+     */
+    public Set<DocumentStatus> nextStatuses() {
+        return switch (this) {
+            case DRAFT -> EnumSet.of(SIGNING);
+            case SIGNING -> EnumSet.of(DONE, DECLINED);
+            case DONE, DECLINED -> EnumSet.noneOf(DocumentStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(DocumentStatus target) {
+        return nextStatuses().contains(target);
+    }
+}
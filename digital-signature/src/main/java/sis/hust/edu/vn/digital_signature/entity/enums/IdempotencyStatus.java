@@ -0,0 +1,6 @@
+package sis.hust.edu.vn.digital_signature.entity.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,9 @@
+package sis.hust.edu.vn.digital_signature.entity.enums;
+
+public enum MailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED, // gave up after the last attempt, or the provider rejected the address
+    EXPIRED // not sent in time, e.g. an OTP past its validity
+}
@@ -1,8 +1,24 @@
 package sis.hust.edu.vn.digital_signature.entity.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum SignerStatus {
     PENDING,
     SIGNED,
-    DECLINED
-}
+    DECLINED;
 
+    /**
+     * Allowed transitions; a signer answers once.
+     */
+    public Set<SignerStatus> nextStatuses() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(SIGNED, DECLINED);
+            case SIGNED, DECLINED -> EnumSet.noneOf(SignerStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(SignerStatus target) {
+        return nextStatuses().contains(target);
+    }
+}
@@ -0,0 +1,8 @@
+package sis.hust.edu.vn.digital_signature.entity.enums;
+
+public enum WebhookDeliveryStatus {
+    PENDING,
+    DELIVERING,
+    DELIVERED,
+    FAILED // gave up after the last attempt, or the endpoint was disabled
+}
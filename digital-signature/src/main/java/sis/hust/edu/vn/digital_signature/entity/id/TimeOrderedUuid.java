@@ -0,0 +1,17 @@
+package sis.hust.edu.vn.digital_signature.entity.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate the id as a time-ordered UUIDv7 string.
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimeOrderedUuid {
+}
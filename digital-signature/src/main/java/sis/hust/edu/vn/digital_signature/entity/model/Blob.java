@@ -0,0 +1,43 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored object, shared by every {@code files} row with the same content whatever its uploader.
+ * Never exposed: users reach content through their own file row's key, which maps to
+ * {@link #storageKey} through {@code files.file_path}.
+ */
+@Entity
+@Table(name = "blobs", indexes = {
+        @Index(name = "idx_blobs_storage_key", columnList = "storage_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Blob {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 hex of the stored bytes
+
+    @Column(name = "storage_key", nullable = false, length = 500)
+    private String storageKey; // random, unrelated to the content
+
+    @Column(name = "size")
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 1; // number of files rows pointing at this object
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,66 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.BulkSendStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background job sending one template to many recipients ({@link BulkSendRecipient}), processed in chunks.
+ */
+@Entity
+@Table(name = "bulk_send_jobs", indexes = {
+        @Index(name = "idx_bulk_send_jobs_status", columnList = "status, created_at"),
+        @Index(name = "idx_bulk_send_jobs_template", columnList = "template_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSendJob extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "template_id", nullable = false)
+    private String templateId;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "title", nullable = false)
+    private String title;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private BulkSendStatus status = BulkSendStatus.QUEUED;
+
+    @Column(name = "total_recipients", nullable = false)
+    private Integer totalRecipients;
+
+    @Column(name = "sent_recipients", nullable = false)
+    @Builder.Default
+    private Integer sentRecipients = 0;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0; // consecutive failed chunks
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // lease of the worker running the job, or retry delay after a failure
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,40 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+/**
+ * One recipient of a bulk send; {@code documentId} is set once their document has been created.
+ */
+@Entity
+@Table(name = "bulk_send_recipients",
+        uniqueConstraints = @UniqueConstraint(name = "uk_bulk_send_recipients_job_row",
+                columnNames = {"job_id", "row_number"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkSendRecipient extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "job_id", nullable = false)
+    private String jobId;
+
+    @Column(name = "row_number", nullable = false)
+    private Integer rowNumber;
+
+    @Column(name = "email", nullable = false)
+    private String email;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "document_id")
+    private String documentId;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.LocalDateTime;
 
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 public class Document extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "title", nullable = false)
@@ -52,5 +53,15 @@ public class Document extends BaseEntity {
 
     @Column(name = "decline_reason", columnDefinition = "TEXT")
     private String declineReason;
+
+    // Signers still to sign while SIGNING; decremented atomically by each completion.
+    // Null for documents sent before the counter existed, initialized on their first completion.
+    @Column(name = "pending_signers")
+    private Integer pendingSigners;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Long version = 0L;
 }
 
@@ -3,6 +3,7 @@ package sis.hust.edu.vn.digital_signature.entity.model;
 import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.LocalDateTime;
 
@@ -11,7 +12,9 @@ import java.time.LocalDateTime;
  * Contains the document hash at signing time and the cryptographic signature.
  */
 @Entity
-@Table(name = "document_signatures")
+@Table(name = "document_signatures",
+        uniqueConstraints = @UniqueConstraint(name = "uk_document_signatures_document_signer",
+                columnNames = {"document_id", "signer_id"}))
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +23,7 @@ import java.time.LocalDateTime;
 public class DocumentSignature extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "document_id", nullable = false)
@@ -0,0 +1,42 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+/**
+ * Reusable document: a stored blob plus a field layout ({@link TemplateField}).
+ * Holds one reference on the blob's {@code files} row; every document created from it takes its own.
+ */
+@Entity
+@Table(name = "document_templates", indexes = @Index(name = "idx_document_templates_owner", columnList = "owner_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DocumentTemplate extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "file_id", nullable = false)
+    private String fileId;
+
+    @Column(name = "file_url", nullable = false, length = 1000)
+    private String fileUrl;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+}
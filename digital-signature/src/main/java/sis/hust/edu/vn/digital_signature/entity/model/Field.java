@@ -4,9 +4,13 @@ import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 import sis.hust.edu.vn.digital_signature.entity.enums.FieldType;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 @Entity
-@Table(name = "fields")
+@Table(name = "fields", indexes = {
+        @Index(name = "idx_fields_document", columnList = "document_id"),
+        @Index(name = "idx_fields_signer", columnList = "signer_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,7 +19,7 @@ import sis.hust.edu.vn.digital_signature.entity.enums.FieldType;
 public class Field extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "document_id", nullable = false)
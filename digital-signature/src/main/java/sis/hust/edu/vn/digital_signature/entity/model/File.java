@@ -4,11 +4,18 @@ import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "files")
+@Table(name = "files", indexes = {
+        // Deduplication is per uploader: one user's upload never shares (or reveals) another user's row
+        @Index(name = "idx_files_uploader_content_hash", columnList = "uploaded_by, content_hash", unique = true),
+        // Every download maps the public key to the stored object
+        @Index(name = "idx_files_file_name", columnList = "file_name"),
+        @Index(name = "idx_files_file_path", columnList = "file_path")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +24,7 @@ import java.time.LocalDateTime;
 public class File extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "file_name", nullable = false, length = 500)
@@ -27,7 +34,7 @@ public class File extends BaseEntity {
     private String originalName;
 
     @Column(name = "file_path", nullable = false, length = 1000)
-    private String filePath;
+    private String filePath; // storage key of the object holding the bytes: a shared blob, or for older rows the file name
 
     @Column(name = "file_url", length = 1000)
     private String fileUrl;
@@ -47,6 +54,13 @@ public class File extends BaseEntity {
 
     @Column(name = "uploaded_by")
     private String uploadedBy;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 hex of the blob, null for files stored before deduplication; never the storage key
+
+    @Column(name = "ref_count", nullable = false, columnDefinition = "INTEGER NOT NULL DEFAULT 1")
+    @Builder.Default
+    private Integer refCount = 1; // number of owners (documents, templates, avatars) sharing this row
 }
 
 
@@ -0,0 +1,30 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resume position of one orphan collector phase, so a pass interrupted by a restart
+ * continues where it stopped instead of rescanning from the start.
+ */
+@Entity
+@Table(name = "gc_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GcCheckpoint {
+
+    @Id
+    @Column(name = "phase", length = 64)
+    private String phase;
+
+    @Column(name = "cursor_key", length = 1000)
+    private String cursorKey; // last id/key processed, null = start of the scan
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
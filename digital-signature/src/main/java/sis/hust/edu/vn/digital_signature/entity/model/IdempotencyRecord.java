@@ -0,0 +1,48 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.IdempotencyStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key}, replayed to retries until it expires.
+ * The id is a hash of caller, endpoint and key; the fingerprint is a hash of the request body.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_records_expires", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord extends BaseEntity {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // while IN_PROGRESS: lease of the executing instance, presumed dead after this
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,65 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.MailStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbound email waiting in the mail outbox.
+ * Written by the request (in its transaction when there is one) and sent asynchronously by the mail workers;
+ * the body is cleared once the message is sent or expired.
+ */
+@Entity
+@Table(name = "mail_outbox",
+        indexes = @Index(name = "idx_mail_outbox_status_next", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MailMessage extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "kind", nullable = false, length = 50)
+    private String kind; // otp, signer_invite; metrics tag
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private MailStatus status = MailStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // not sent after this; null = no deadline
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // lease of the worker sending the message
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
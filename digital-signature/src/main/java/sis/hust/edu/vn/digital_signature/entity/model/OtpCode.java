@@ -0,0 +1,34 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending one-time code of the JDBC OTP store, one per key (the email it was sent to).
+ * Only a keyed hash of the code is stored.
+ */
+@Entity
+@Table(name = "otp_codes", indexes = @Index(name = "idx_otp_codes_expires", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OtpCode extends BaseEntity {
+
+    @Id
+    @Column(name = "otp_key")
+    private String key;
+
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+
+    @Column(name = "attempts", nullable = false, columnDefinition = "integer default 0")
+    private int attempts; // wrong guesses so far
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
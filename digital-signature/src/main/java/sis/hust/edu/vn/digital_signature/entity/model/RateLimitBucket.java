@@ -0,0 +1,31 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shared state of one rate-limit bucket, read and written by the Bucket4j JDBC proxy under
+ * {@code SELECT ... FOR UPDATE}. Mapped only so the schema is managed with the rest; the proxy
+ * never sets {@code touched_at}, instances bump it in batches for the buckets they used.
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = @Index(name = "idx_rate_limit_buckets_touched", columnList = "touched_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "state")
+    private byte[] state;
+
+    @Column(name = "touched_at", columnDefinition = "timestamp default now()")
+    private LocalDateTime touchedAt;
+}
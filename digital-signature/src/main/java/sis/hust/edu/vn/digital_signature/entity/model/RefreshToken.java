@@ -2,11 +2,21 @@ package sis.hust.edu.vn.digital_signature.entity.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.Instant;
 
+/**
+ * The current refresh token of a user. Only the SHA-256 of the token is stored, so a leaked table
+ * cannot be replayed; the raw value exists only in the client.
+ */
 @Entity
-@Table(name = "refresh_token")
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_expiry", columnList = "expirt_date"),
+        // Both created by SchemaMaintenance on existing databases, which ddl-auto=update skips
+        @Index(name = "uk_refresh_token_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "uk_refresh_token_user", columnList = "user_id", unique = true)
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,11 +25,11 @@ import java.time.Instant;
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
-    @Column(name = "token")
-    private String token;
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash; // hex SHA-256 of the token handed to the client
 
     @Column(name = "expirt_date")
     private Instant expiryDate;
@@ -28,5 +38,3 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 }
-
-
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 import sis.hust.edu.vn.digital_signature.entity.enums.SignatureType;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 @Entity
 @Table(name = "signatures")
@@ -15,7 +16,7 @@ import sis.hust.edu.vn.digital_signature.entity.enums.SignatureType;
 public class Signature extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "user_id", nullable = false)
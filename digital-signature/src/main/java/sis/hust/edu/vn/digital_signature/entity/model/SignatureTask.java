@@ -0,0 +1,63 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row for a digital signature to create once a signer has completed signing.
+ * Written in the signing transaction and processed asynchronously by the signature workers.
+ */
+@Entity
+@Table(name = "signature_tasks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_signature_tasks_document_signer",
+                columnNames = {"document_id", "signer_id"}),
+        indexes = @Index(name = "idx_signature_tasks_status_next", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignatureTask extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "document_id", nullable = false)
+    private String documentId;
+
+    @Column(name = "signer_id", nullable = false)
+    private String signerId;
+
+    @Column(name = "signer_email", nullable = false)
+    private String signerEmail;
+
+    @Column(name = "file_url", nullable = false, length = 1000)
+    private String fileUrl;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private DigitalSignatureStatus status = DigitalSignatureStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // lease of the worker processing the task
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -3,12 +3,16 @@ package sis.hust.edu.vn.digital_signature.entity.model;
 import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
 import sis.hust.edu.vn.digital_signature.entity.enums.SignerStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "signers")
+@Table(name = "signers", indexes = {
+        @Index(name = "idx_signers_document_order", columnList = "document_id, order_number")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,7 +21,7 @@ import java.time.LocalDateTime;
 public class Signer extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "document_id", nullable = false)
@@ -30,7 +34,7 @@ public class Signer extends BaseEntity {
     private String name;
 
     @Column(name = "token", nullable = false, unique = true)
-    private String token; // UUID, unique, để truy cập signing session
+    private String token; // random base64url, unique, để truy cập signing session
 
     @Column(name = "order_number", nullable = false)
     private Integer order; // thứ tự ký, 1+
@@ -48,5 +52,14 @@ public class Signer extends BaseEntity {
 
     @Column(name = "decline_reason", columnDefinition = "TEXT")
     private String declineReason;
+
+    @Column(name = "digital_signature_status")
+    @Enumerated(EnumType.STRING)
+    private DigitalSignatureStatus digitalSignatureStatus; // null until the signer completes signing
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Long version = 0L;
 }
 
@@ -0,0 +1,53 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.FieldType;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+/**
+ * One field of a template layout, copied into a {@link Field} for each document sent from the template.
+ */
+@Entity
+@Table(name = "template_fields", indexes = @Index(name = "idx_template_fields_template", columnList = "template_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TemplateField extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "template_id", nullable = false)
+    private String templateId;
+
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FieldType type;
+
+    @Column(name = "page_number", nullable = false)
+    private Integer pageNumber;
+
+    @Column(name = "position_x", nullable = false)
+    private Double positionX;
+
+    @Column(name = "position_y", nullable = false)
+    private Double positionY;
+
+    @Column(name = "width", nullable = false)
+    private Double width;
+
+    @Column(name = "height", nullable = false)
+    private Double height;
+
+    @Column(name = "is_required", nullable = false)
+    @Builder.Default
+    private Boolean isRequired = true;
+
+    @Column(name = "placeholder", columnDefinition = "TEXT")
+    private String placeholder;
+}
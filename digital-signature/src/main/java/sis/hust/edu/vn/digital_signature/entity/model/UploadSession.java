@@ -0,0 +1,82 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+/**
+ * Server side state of a resumable chunked upload.
+ * Chunks must arrive in order; {@code receivedBytes} is the offset the next chunk has to start at. Everything
+ * needed to take the next chunk is kept here, so consecutive chunks may land on different instances.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_status_created", columnList = "status, created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "original_name", nullable = false)
+    private String originalName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "received_bytes", nullable = false)
+    @Builder.Default
+    private Long receivedBytes = 0L;
+
+    @Column(name = "part_count", nullable = false)
+    @Builder.Default
+    private Integer partCount = 0;
+
+    @Column(name = "part_tags", columnDefinition = "TEXT")
+    private String partTags; // comma separated, in part order
+
+    @Column(name = "storage_key", nullable = false, length = 500)
+    private String storageKey;
+
+    @Column(name = "backend_upload_id", length = 1000)
+    private String backendUploadId;
+
+    // Set once the parts are joined into the final object, so a retried finalize skips that step
+    @Column(name = "assembled", nullable = false, columnDefinition = "boolean NOT NULL DEFAULT false")
+    @Builder.Default
+    private Boolean assembled = false;
+
+    // SHA-256 state after receivedBytes, so whichever instance gets the next chunk can continue the hash;
+    // null for sessions started before it was kept here
+    @Column(name = "digest_state", length = 256)
+    private String digestState;
+
+    // SHA-256 of the whole content, recorded on assembly; null if the running digest was lost
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private UploadStatus status = UploadStatus.UPLOADING;
+
+    @Column(name = "document_id")
+    private String documentId;
+}
@@ -5,6 +5,7 @@ import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 import sis.hust.edu.vn.digital_signature.entity.enums.Gender;
 import sis.hust.edu.vn.digital_signature.entity.enums.Role;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 import java.time.LocalDate;
 
@@ -18,7 +19,7 @@ import java.time.LocalDate;
 public class User extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "username", unique = true, nullable = false)
@@ -3,6 +3,7 @@ package sis.hust.edu.vn.digital_signature.entity.model;
 import jakarta.persistence.*;
 import lombok.*;
 import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
 
 /**
  * Entity to store user's RSA key pair for digital signing.
@@ -19,7 +20,7 @@ import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
 public class UserKeyPair extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private String id;
 
     @Column(name = "user_id", nullable = false, unique = true)
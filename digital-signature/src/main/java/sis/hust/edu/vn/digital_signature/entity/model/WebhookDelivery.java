@@ -0,0 +1,62 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.enums.WebhookDeliveryStatus;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row for one event to deliver to one webhook endpoint.
+ * Written in the transaction that changed the status and sent, possibly batched with other due
+ * events for the same endpoint, by the webhook workers.
+ */
+@Entity
+@Table(name = "webhook_deliveries",
+        indexes = {
+                @Index(name = "idx_webhook_deliveries_status_next", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_webhook_deliveries_endpoint_status", columnList = "endpoint_id, status")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookDelivery extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "endpoint_id", nullable = false)
+    private String endpointId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload; // the event as JSON
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil; // lease of the worker delivering it
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+}
@@ -0,0 +1,43 @@
+package sis.hust.edu.vn.digital_signature.entity.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import sis.hust.edu.vn.digital_signature.entity.BaseEntity;
+import sis.hust.edu.vn.digital_signature.entity.id.TimeOrderedUuid;
+
+/**
+ * An integrator's URL that receives document and signer status events for one owner's documents.
+ * Deliveries are signed with {@code secret} (HMAC-SHA256) so the receiver can verify them.
+ */
+@Entity
+@Table(name = "webhook_endpoints",
+        indexes = @Index(name = "idx_webhook_endpoints_owner", columnList = "owner_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEndpoint extends BaseEntity {
+
+    @Id
+    @TimeOrderedUuid
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "url", nullable = false, length = 2000)
+    private String url;
+
+    @JsonIgnore
+    @Column(name = "secret", nullable = false)
+    private String secret;
+
+    @Column(name = "event_types", length = 500)
+    private String eventTypes; // comma-separated DocumentEventType names, null = all events
+
+    @Column(name = "active", nullable = false, columnDefinition = "boolean default true")
+    @Builder.Default
+    private Boolean active = true;
+}
@@ -0,0 +1,21 @@
+package sis.hust.edu.vn.digital_signature.exception.capacity;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Work was shed because a bounded resource is saturated: 429 when the wait queue is full,
+ * 503 when the request waited too long for a slot. Carries a Retry-After hint.
+ */
+@Getter
+public class CapacityExceededException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public CapacityExceededException(HttpStatus status, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
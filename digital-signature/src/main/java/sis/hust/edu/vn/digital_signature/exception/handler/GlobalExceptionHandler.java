@@ -3,6 +3,8 @@ package sis.hust.edu.vn.digital_signature.exception.handler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -14,7 +16,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import sis.hust.edu.vn.digital_signature.dto.common.response.Response;
 import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
 import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageUnavailableException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -64,6 +68,30 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Response<Object>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex) {
+        log.info("Concurrent modification rejected: {}", ex.getMessage());
+        return buildError(HttpStatus.CONFLICT, "This record was changed by another request. Please reload and try again.");
+    }
+
+    @ExceptionHandler(StorageUnavailableException.class)
+    public ResponseEntity<Response<Object>> handleStorageUnavailableException(
+            StorageUnavailableException ex) {
+        log.warn("Storage unavailable: {}", ex.getMessage());
+        return buildError(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<Response<Object>> handleCapacityExceededException(
+            CapacityExceededException ex) {
+        log.warn("Request shed ({}): {}", ex.getStatus().value(), ex.getMessage());
+        return ResponseEntity
+                .status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Response.error(ex.getStatus().value(), ex.getMessage()));
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<Response<Map<String, String>>> handleAuthenticationException(
             AuthenticationException ex) {
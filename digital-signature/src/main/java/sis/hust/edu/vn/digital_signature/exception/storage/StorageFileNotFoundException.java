@@ -0,0 +1,12 @@
+package sis.hust.edu.vn.digital_signature.exception.storage;
+
+public class StorageFileNotFoundException extends RuntimeException {
+
+    public StorageFileNotFoundException(String message) {
+        super(message);
+    }
+
+    public StorageFileNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package sis.hust.edu.vn.digital_signature.exception.storage;
+
+/**
+ * Storage backend is not answering in time, or calls to it are being shed
+ * (bulkhead full, circuit open). Mapped to 503 so only file endpoints degrade.
+ */
+public class StorageUnavailableException extends RuntimeException {
+
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+
+    public StorageUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
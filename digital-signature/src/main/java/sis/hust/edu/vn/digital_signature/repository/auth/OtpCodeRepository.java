@@ -0,0 +1,66 @@
+package sis.hust.edu.vn.digital_signature.repository.auth;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.model.OtpCode;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OtpCodeRepository extends JpaRepository<OtpCode, String> {
+
+    /**
+     * Issue a code for the key, replacing any previous one and resetting its attempt counter.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO otp_codes (otp_key, code_hash, attempts, expires_at, created_at, updated_at) "
+            + "VALUES (:key, :codeHash, 0, :expiresAt, :now, :now) "
+            + "ON CONFLICT (otp_key) DO UPDATE SET code_hash = EXCLUDED.code_hash, attempts = 0, "
+            + "expires_at = EXCLUDED.expires_at, updated_at = EXCLUDED.updated_at")
+    int upsert(@Param("key") String key,
+               @Param("codeHash") String codeHash,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("now") LocalDateTime now);
+
+    /**
+     * Consume the code if it is live and matches; 1 for exactly one of several concurrent verifications.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM otp_codes WHERE otp_key = :key AND code_hash = :codeHash "
+            + "AND expires_at > :now AND attempts < :maxAttempts")
+    int consume(@Param("key") String key,
+                @Param("codeHash") String codeHash,
+                @Param("now") LocalDateTime now,
+                @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Count a wrong guess against a live code; empty when there is none left to guess at.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE otp_codes SET attempts = attempts + 1, updated_at = :now "
+            + "WHERE otp_key = :key AND expires_at > :now AND attempts < :maxAttempts RETURNING *")
+    Optional<OtpCode> recordFailedAttempt(@Param("key") String key,
+                                          @Param("now") LocalDateTime now,
+                                          @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OtpCode o WHERE o.key = :key")
+    int deleteByKey(@Param("key") String key);
+
+    /**
+     * Delete expired codes and codes locked by too many attempts, at most {@code limit} per call.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM otp_codes WHERE otp_key IN ("
+            + "SELECT otp_key FROM otp_codes WHERE expires_at < :now OR attempts >= :maxAttempts LIMIT :limit)")
+    int deleteDeadBatch(@Param("now") LocalDateTime now,
+                        @Param("maxAttempts") int maxAttempts,
+                        @Param("limit") int limit);
+}
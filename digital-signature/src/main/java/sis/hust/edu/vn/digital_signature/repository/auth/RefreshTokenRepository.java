@@ -3,18 +3,48 @@ package sis.hust.edu.vn.digital_signature.repository.auth;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.entity.model.RefreshToken;
-import sis.hust.edu.vn.digital_signature.entity.model.User;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
-    Optional<RefreshToken> findByToken(String token);
 
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Replace the user's token in place; 0 when the user has none yet.
+     */
     @Modifying
     @Transactional
-    @Query("DELETE FROM RefreshToken r WHERE r.user = :user")
-    void deleteByUser(User user);
-}
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :tokenHash, r.expiryDate = :expiryDate WHERE r.user.id = :userId")
+    int replaceForUser(@Param("userId") String userId,
+                       @Param("tokenHash") String tokenHash,
+                       @Param("expiryDate") Instant expiryDate);
+
+    /**
+     * Swap the hash only if it is still the presented one: of two concurrent refreshes with the same
+     * token, exactly one wins.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :newHash WHERE r.id = :id AND r.tokenHash = :oldHash")
+    int rotate(@Param("id") String id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Delete the oldest expired tokens, at most {@code limit}. Each call walks the expiry index from its
+     * low end, which the previous batch just emptied, so batches never rescan deleted ranges.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM refresh_token WHERE id IN ("
+            + "SELECT id FROM refresh_token WHERE expirt_date < :now ORDER BY expirt_date LIMIT :limit)")
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -1,5 +1,9 @@
 package sis.hust.edu.vn.digital_signature.repository.crypto;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sis.hust.edu.vn.digital_signature.entity.model.DocumentSignature;
 import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
@@ -12,4 +16,15 @@ public interface DocumentSignatureRepository extends BaseRepository<DocumentSign
     List<DocumentSignature> findByDocumentId(String documentId);
     Optional<DocumentSignature> findByDocumentIdAndSignerId(String documentId, String signerId);
     boolean existsByDocumentIdAndSignerId(String documentId, String signerId);
+
+    /**
+     * Keyset page of DocumentSignature ids whose document no longer exists.
+     */
+    @Query("SELECT ds.id FROM DocumentSignature ds WHERE ds.id > :after "
+            + "AND NOT EXISTS (SELECT 1 FROM Document d WHERE d.id = ds.documentId) ORDER BY ds.id")
+    List<String> findOrphanIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM DocumentSignature ds WHERE ds.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") String documentId);
 }
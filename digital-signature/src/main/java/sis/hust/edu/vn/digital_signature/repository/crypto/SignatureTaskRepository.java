@@ -0,0 +1,69 @@
+package sis.hust.edu.vn.digital_signature.repository.crypto;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.SignatureTask;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SignatureTaskRepository extends BaseRepository<SignatureTask, String> {
+
+    /**
+     * Claim up to {@code limit} due tasks for this worker: pending tasks whose retry time has come and
+     * processing tasks whose lease ran out (worker died). SKIP LOCKED lets several instances poll at once
+     * without handing out the same task twice.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE signature_tasks SET status = 'PROCESSING', "
+            + "attempts = attempts + 1, locked_until = :lockedUntil, updated_at = :now "
+            + "WHERE id IN (SELECT id FROM signature_tasks "
+            + "WHERE (status = 'PENDING' AND next_attempt_at <= :now) "
+            + "OR (status = 'PROCESSING' AND locked_until < :now) "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *")
+    List<SignatureTask> claimDue(@Param("now") LocalDateTime now,
+                                 @Param("lockedUntil") LocalDateTime lockedUntil,
+                                 @Param("limit") int limit);
+
+    /**
+     * Record the outcome of a claimed task. Only applies while the caller still holds the lease it was
+     * given by {@link #claimDue}; 0 means the lease expired and another worker has taken the task over.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SignatureTask t SET t.status = :status, t.completedAt = :now, t.lockedUntil = null, "
+            + "t.lastError = :error, t.updatedAt = :now "
+            + "WHERE t.id = :id AND t.status = 'PROCESSING' AND t.lockedUntil = :lease")
+    int markFinished(@Param("id") String id,
+                     @Param("lease") LocalDateTime lease,
+                     @Param("status") DigitalSignatureStatus status,
+                     @Param("error") String error,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Put a claimed task back for a later attempt, under the same lease check as {@link #markFinished}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SignatureTask t SET t.status = 'PENDING', t.nextAttemptAt = :nextAttemptAt, "
+            + "t.lockedUntil = null, t.lastError = :error, t.updatedAt = :now "
+            + "WHERE t.id = :id AND t.status = 'PROCESSING' AND t.lockedUntil = :lease")
+    int scheduleRetry(@Param("id") String id,
+                      @Param("lease") LocalDateTime lease,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error,
+                      @Param("now") LocalDateTime now);
+
+    long countByStatus(DigitalSignatureStatus status);
+
+    @Modifying
+    @Query("DELETE FROM SignatureTask t WHERE t.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") String documentId);
+}
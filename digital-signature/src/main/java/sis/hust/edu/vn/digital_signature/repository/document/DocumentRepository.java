@@ -2,6 +2,7 @@ package sis.hust.edu.vn.digital_signature.repository.document;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,11 +12,70 @@ import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface DocumentRepository extends BaseRepository<Document, String>, JpaSpecificationExecutor<Document> {
 
     
     // Custom query removed in favor of Specifications
 
-}
+    /**
+     * Document detail read model in one round trip: one row per field as {@code [Document, Field, Boolean]},
+     * where the flag tells whether the user is the owner or one of the signers.
+     */
+    @Query("SELECT d, f, CASE WHEN d.ownerId = :userId OR EXISTS ("
+            + "SELECT 1 FROM Signer s WHERE s.documentId = d.id AND LOWER(s.email) = LOWER(:email)"
+            + ") THEN true ELSE false END "
+            + "FROM Document d LEFT JOIN Field f ON f.documentId = d.id WHERE d.id = :documentId")
+    List<Object[]> findDetailRows(@Param("documentId") String documentId,
+                                  @Param("userId") String userId,
+                                  @Param("email") String email);
+
+    /**
+     * Count one signer as done. Decrements {@code pending_signers} only while the document is SIGNING and
+     * moves it to DONE in the same statement when the last signer completes, so concurrent completions
+     * cannot both miss the final transition. Returns the remaining count, or nothing if the document is
+     * not SIGNING or its counter was never initialized.
+     */
+    @Query(nativeQuery = true, value = "UPDATE documents SET pending_signers = pending_signers - 1, "
+            + "status = CASE WHEN pending_signers = 1 THEN 'DONE' ELSE status END, "
+            + "completed_at = CASE WHEN pending_signers = 1 THEN :now ELSE completed_at END, "
+            + "version = version + 1, updated_at = :now "
+            + "WHERE id = :documentId AND status = 'SIGNING' AND pending_signers > 0 "
+            + "RETURNING pending_signers")
+    List<Integer> decrementPendingSigners(@Param("documentId") String documentId,
+                                          @Param("now") LocalDateTime now);
 
+    /**
+     * Backfill the counter of a document sent before it existed from the signers still PENDING
+     * (the caller's own signer row must already be SIGNED). Only one concurrent caller wins.
+     */
+    @Query(nativeQuery = true, value = "UPDATE documents SET pending_signers = "
+            + "(SELECT COUNT(*) FROM signers s WHERE s.document_id = documents.id AND s.status = 'PENDING'), "
+            + "version = version + 1 "
+            + "WHERE id = :documentId AND status = 'SIGNING' AND pending_signers IS NULL "
+            + "RETURNING pending_signers")
+    List<Integer> initializePendingSigners(@Param("documentId") String documentId);
+
+    /**
+     * SIGNING -> DONE for a document whose counter just reached zero through initialization.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.status = 'DONE', d.completedAt = :now, d.version = d.version + 1, d.updatedAt = :now "
+            + "WHERE d.id = :documentId AND d.status = 'SIGNING' AND d.pendingSigners = 0")
+    int completeIfNoPendingSigners(@Param("documentId") String documentId, @Param("now") LocalDateTime now);
+
+    /**
+     * SIGNING -> DECLINED; matches nothing if a concurrent completion or decline got there first.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.status = 'DECLINED', d.declinedAt = :now, d.declinedBy = :signerId, "
+            + "d.declineReason = :reason, d.version = d.version + 1, d.updatedAt = :now "
+            + "WHERE d.id = :documentId AND d.status = 'SIGNING'")
+    int declineIfSigning(@Param("documentId") String documentId,
+                         @Param("signerId") String signerId,
+                         @Param("reason") String reason,
+                         @Param("now") LocalDateTime now);
+}
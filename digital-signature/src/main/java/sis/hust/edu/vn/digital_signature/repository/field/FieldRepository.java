@@ -1,9 +1,14 @@
 package sis.hust.edu.vn.digital_signature.repository.field;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sis.hust.edu.vn.digital_signature.entity.model.Field;
 import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,5 +16,23 @@ public interface FieldRepository extends BaseRepository<Field, String> {
     List<Field> findByDocumentId(String documentId);
     List<Field> findBySignerId(String signerId);
     List<Field> findByDocumentIdAndSignerIdIsNull(String documentId);
+
+    /**
+     * Keyset page of Field ids whose document no longer exists.
+     */
+    @Query("SELECT f.id FROM Field f WHERE f.id > :after "
+            + "AND NOT EXISTS (SELECT 1 FROM Document d WHERE d.id = f.documentId) ORDER BY f.id")
+    List<String> findOrphanIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Field f SET f.signerId = :signerId, f.updatedAt = :now "
+            + "WHERE f.documentId = :documentId AND f.signerId IS NULL")
+    int assignUnassigned(@Param("documentId") String documentId,
+                         @Param("signerId") String signerId,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Field f WHERE f.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") String documentId);
 }
 
@@ -0,0 +1,72 @@
+package sis.hust.edu.vn.digital_signature.repository.file;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.model.Blob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    /**
+     * Take a reference on the stored object holding this content, if there is a live one.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE blobs SET ref_count = ref_count + 1, updated_at = :now "
+            + "WHERE content_hash = :contentHash AND ref_count > 0 RETURNING *")
+    Optional<Blob> acquire(@Param("contentHash") String contentHash, @Param("now") LocalDateTime now);
+
+    /**
+     * Record an object just written to storage, or take a reference on the one a concurrent upload of
+     * the same content recorded first (reviving it if it was released but not collected yet). The
+     * caller compares the returned storage key with its own to tell which object it got.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO blobs (content_hash, storage_key, size, ref_count, "
+            + "created_at, updated_at) VALUES (:contentHash, :storageKey, :size, 1, :now, :now) "
+            + "ON CONFLICT (content_hash) DO UPDATE SET ref_count = blobs.ref_count + 1, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "RETURNING *")
+    Blob insertOrAcquire(@Param("contentHash") String contentHash,
+                         @Param("storageKey") String storageKey,
+                         @Param("size") Long size,
+                         @Param("now") LocalDateTime now);
+
+    boolean existsByContentHashAndStorageKey(String contentHash, String storageKey);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Blob b SET b.refCount = b.refCount - 1, b.updatedAt = :now "
+            + "WHERE b.contentHash = :contentHash AND b.storageKey = :storageKey AND b.refCount > 0")
+    int decrementRefCount(@Param("contentHash") String contentHash,
+                          @Param("storageKey") String storageKey,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Blob b WHERE b.contentHash = :contentHash AND b.storageKey = :storageKey "
+            + "AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash, @Param("storageKey") String storageKey);
+
+    /**
+     * Keyset page of objects released to zero references whose row was not removed on release.
+     */
+    @Query("SELECT b FROM Blob b WHERE b.contentHash > :after AND b.refCount <= 0 "
+            + "AND (b.updatedAt IS NULL OR b.updatedAt < :cutoff) "
+            + "ORDER BY b.contentHash")
+    List<Blob> findUnreferencedAfter(@Param("after") String after,
+                                     @Param("cutoff") LocalDateTime cutoff,
+                                     Pageable pageable);
+
+    @Query("SELECT b.storageKey FROM Blob b WHERE b.storageKey IN :storageKeys")
+    List<String> findExistingStorageKeys(@Param("storageKeys") Collection<String> storageKeys);
+}
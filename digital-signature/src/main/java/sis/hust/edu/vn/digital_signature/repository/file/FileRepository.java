@@ -1,10 +1,85 @@
 package sis.hust.edu.vn.digital_signature.repository.file;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.entity.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface FileRepository extends JpaRepository<File, String> {
-}
+    Optional<File> findByUploadedByAndContentHash(String uploadedBy, String contentHash);
+    Optional<File> findFirstByFileName(String fileName);
+
+    /**
+     * Insert a new file row, or take a reference on the row already holding the same content for the same
+     * uploader. A single statement, so losing the race to a concurrent upload does not abort the caller's
+     * transaction; the caller compares the returned file name with its own to tell which row it got.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO files (id, file_name, original_name, file_path, file_url, "
+            + "file_size, mime_type, file_type, uploaded_at, uploaded_by, content_hash, ref_count, created_at, updated_at) "
+            + "VALUES (:#{#file.id}, :#{#file.fileName}, :#{#file.originalName}, :#{#file.filePath}, :#{#file.fileUrl}, "
+            + ":#{#file.fileSize}, :#{#file.mimeType}, :#{#file.fileType?.name()}, :#{#file.uploadedAt}, "
+            + ":#{#file.uploadedBy}, :#{#file.contentHash}, 1, :#{#file.uploadedAt}, :#{#file.uploadedAt}) "
+            + "ON CONFLICT (uploaded_by, content_hash) DO UPDATE SET ref_count = files.ref_count + 1, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "RETURNING *")
+    File insertOrAcquire(@Param("file") File file);
+
+    /**
+     * Take one more reference on a blob. Also revives a row released to zero that has not been
+     * collected yet, which makes the collector's conditional delete a no-op.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE File f SET f.refCount = f.refCount + 1 WHERE f.id = :id")
+    int incrementRefCount(@Param("id") String id);
+
+    /**
+     * Take {@code count} references at once, e.g. for the documents of a bulk-send chunk.
+     * Joins the caller's transaction without clearing it.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.refCount = f.refCount + :count WHERE f.id = :id AND f.refCount > 0")
+    int addReferences(@Param("id") String id, @Param("count") int count);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE File f SET f.refCount = f.refCount - 1 WHERE f.id = :id AND f.refCount > 0")
+    int decrementRefCount(@Param("id") String id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM File f WHERE f.id = :id AND f.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") String id);
+
+    /**
+     * Keyset page of files released to zero references whose row was not removed on release (the
+     * releasing call failed half way). The reference count is the only liveness signal: documents keep
+     * their file as a URL, in formats that cannot be matched back to a row reliably, so a file that
+     * still holds a reference is never collected here.
+     */
+    @Query("SELECT f FROM File f WHERE f.id > :after AND f.refCount <= 0 "
+            + "AND (f.uploadedAt IS NULL OR f.uploadedAt < :cutoff) "
+            + "ORDER BY f.id")
+    List<File> findUnreferencedAfter(@Param("after") String after,
+                                     @Param("cutoff") LocalDateTime cutoff,
+                                     Pageable pageable);
+
+    /**
+     * Storage keys among {@code storageKeys} that a file row still points at, its own object or a
+     * shared blob.
+     */
+    @Query("SELECT f.filePath FROM File f WHERE f.filePath IN :storageKeys")
+    List<String> findExistingFilePaths(@Param("storageKeys") Collection<String> storageKeys);
+}
@@ -0,0 +1,9 @@
+package sis.hust.edu.vn.digital_signature.repository.gc;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import sis.hust.edu.vn.digital_signature.entity.model.GcCheckpoint;
+
+@Repository
+public interface GcCheckpointRepository extends JpaRepository<GcCheckpoint, String> {
+}
@@ -0,0 +1,75 @@
+package sis.hust.edu.vn.digital_signature.repository.idempotency;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.model.IdempotencyRecord;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends BaseRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claim a key; 0 if a record already exists (the caller then decides from its state).
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO idempotency_records "
+            + "(id, fingerprint, status, locked_until, expires_at, created_at, updated_at) "
+            + "VALUES (:id, :fingerprint, 'IN_PROGRESS', :lockedUntil, :expiresAt, :now, :now) "
+            + "ON CONFLICT (id) DO NOTHING")
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("fingerprint") String fingerprint,
+                       @Param("lockedUntil") LocalDateTime lockedUntil,
+                       @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Re-claim a record that expired, or whose executing instance died before finishing.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'IN_PROGRESS', r.fingerprint = :fingerprint, "
+            + "r.responseStatus = null, r.contentType = null, r.responseBody = null, "
+            + "r.lockedUntil = :lockedUntil, r.expiresAt = :expiresAt, r.updatedAt = :now "
+            + "WHERE r.id = :id AND (r.expiresAt < :now OR (r.status = 'IN_PROGRESS' AND r.lockedUntil < :now))")
+    int takeOver(@Param("id") String id,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("lockedUntil") LocalDateTime lockedUntil,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Store the response of a claim; 0 if the claim was taken over since (its lease no longer matches).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, "
+            + "r.contentType = :contentType, r.responseBody = :responseBody, r.lockedUntil = null, "
+            + "r.expiresAt = :expiresAt, r.updatedAt = :now "
+            + "WHERE r.id = :id AND r.status = 'IN_PROGRESS' AND r.lockedUntil = :lease")
+    int complete(@Param("id") String id,
+                 @Param("lease") LocalDateTime lease,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Drop a claim; 0 if it was taken over since, in which case the new owner's record stays.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = 'IN_PROGRESS' AND r.lockedUntil = :lease")
+    int release(@Param("id") String id, @Param("lease") LocalDateTime lease);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,96 @@
+package sis.hust.edu.vn.digital_signature.repository.mail;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.MailStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.MailMessage;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailMessageRepository extends BaseRepository<MailMessage, String> {
+
+    /**
+     * Claim up to {@code limit} due messages: pending ones whose retry time has come and sending ones whose
+     * lease ran out (worker died). Messages past their deadline are left for {@link #expireOverdue}.
+     * SKIP LOCKED lets several instances poll at once without sending a message twice.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE mail_outbox SET status = 'SENDING', "
+            + "attempts = attempts + 1, locked_until = :lockedUntil, updated_at = :now "
+            + "WHERE id IN (SELECT id FROM mail_outbox "
+            + "WHERE ((status = 'PENDING' AND next_attempt_at <= :now) "
+            + "OR (status = 'SENDING' AND locked_until < :now)) "
+            + "AND (expires_at IS NULL OR expires_at > :now) "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *")
+    List<MailMessage> claimDue(@Param("now") LocalDateTime now,
+                               @Param("lockedUntil") LocalDateTime lockedUntil,
+                               @Param("limit") int limit);
+
+    /**
+     * Record sent messages. Like {@link #markFailed} and {@link #scheduleRetry}, only rows still held under
+     * the caller's lease (the {@code locked_until} that {@link #claimDue} set) are updated; the others were
+     * reclaimed by another worker after the lease expired.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailMessage m SET m.status = 'SENT', m.sentAt = :now, m.lockedUntil = null, "
+            + "m.body = null, m.lastError = null, m.updatedAt = :now "
+            + "WHERE m.id IN :ids AND m.status = 'SENDING' AND m.lockedUntil = :lease")
+    int markSent(@Param("ids") Collection<String> ids,
+                 @Param("lease") LocalDateTime lease,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Give up on a message; its body (which may hold an OTP code) is dropped.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailMessage m SET m.status = 'FAILED', m.lockedUntil = null, m.body = null, "
+            + "m.lastError = :error, m.updatedAt = :now "
+            + "WHERE m.id = :id AND m.status = 'SENDING' AND m.lockedUntil = :lease")
+    int markFailed(@Param("id") String id,
+                   @Param("lease") LocalDateTime lease,
+                   @Param("error") String error,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailMessage m SET m.status = 'PENDING', m.nextAttemptAt = :nextAttemptAt, "
+            + "m.lockedUntil = null, m.lastError = :error, m.updatedAt = :now "
+            + "WHERE m.id = :id AND m.status = 'SENDING' AND m.lockedUntil = :lease")
+    int scheduleRetry(@Param("id") String id,
+                      @Param("lease") LocalDateTime lease,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Give up on unsent messages past their deadline; their bodies (OTP codes) are dropped.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailMessage m SET m.status = 'EXPIRED', m.lockedUntil = null, m.body = null, "
+            + "m.updatedAt = :now WHERE m.status IN ('PENDING', 'SENDING') AND m.expiresAt <= :now "
+            + "AND (m.status = 'PENDING' OR m.lockedUntil < :now)")
+    int expireOverdue(@Param("now") LocalDateTime now);
+
+    /**
+     * Delete finished messages last touched before {@code before}, at most {@code limit} per call.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM mail_outbox WHERE id IN ("
+            + "SELECT id FROM mail_outbox WHERE status IN ('SENT', 'FAILED', 'EXPIRED') "
+            + "AND updated_at < :before LIMIT :limit)")
+    int deleteFinishedBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    long countByStatus(MailStatus status);
+}
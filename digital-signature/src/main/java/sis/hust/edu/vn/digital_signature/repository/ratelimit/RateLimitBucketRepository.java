@@ -0,0 +1,28 @@
+package sis.hust.edu.vn.digital_signature.repository.ratelimit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.model.RateLimitBucket;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RateLimitBucket b SET b.touchedAt = :now WHERE b.id IN :ids")
+    int touch(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Delete buckets nobody used since {@code cutoff}, at most {@code limit} per call.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM rate_limit_buckets WHERE id IN ("
+            + "SELECT id FROM rate_limit_buckets WHERE touched_at < :cutoff ORDER BY touched_at LIMIT :limit)")
+    int deleteIdleBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
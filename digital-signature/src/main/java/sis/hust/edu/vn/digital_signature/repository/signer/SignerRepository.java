@@ -1,8 +1,13 @@
 package sis.hust.edu.vn.digital_signature.repository.signer;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
 import sis.hust.edu.vn.digital_signature.entity.enums.SignerStatus;
 import sis.hust.edu.vn.digital_signature.entity.model.Signer;
 import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
@@ -15,11 +20,49 @@ public interface SignerRepository extends BaseRepository<Signer, String> {
     List<Signer> findByDocumentId(String documentId);
     Optional<Signer> findByToken(String token);
     long countByDocumentIdAndStatus(String documentId, SignerStatus status);
+    boolean existsByDocumentIdAndEmailIgnoreCase(String documentId, String email);
+
+    /**
+     * Signing session read model in one round trip: one row per field assigned to the signer
+     * as {@code [Signer, Document, Field]}, or a single row with a null Field when none is assigned.
+     */
+    @Query("SELECT s, d, f FROM Signer s JOIN Document d ON d.id = s.documentId "
+            + "LEFT JOIN Field f ON f.signerId = s.id WHERE s.token = :token")
+    List<Object[]> findSigningSessionRows(@Param("token") String token);
+
+    @Query("SELECT s FROM Signer s WHERE s.documentId = :documentId ORDER BY s.order, s.id")
+    List<Signer> findOrderedByDocumentId(@Param("documentId") String documentId, Pageable pageable);
+
+    @Query(value = "SELECT s FROM Signer s WHERE s.documentId = :documentId ORDER BY s.order, s.id",
+            countQuery = "SELECT COUNT(s) FROM Signer s WHERE s.documentId = :documentId")
+    Page<Signer> findPageByDocumentId(@Param("documentId") String documentId, Pageable pageable);
+
+    /**
+     * Signer counts per status as {@code [SignerStatus, Long]}.
+     */
+    @Query("SELECT s.status, COUNT(s) FROM Signer s WHERE s.documentId = :documentId GROUP BY s.status")
+    List<Object[]> countByStatus(@Param("documentId") String documentId);
     
     /**
      * Find all document IDs where user is a signer by email
      */
     @Query("SELECT DISTINCT s.documentId FROM Signer s WHERE s.email = :email")
     List<String> findDocumentIdsBySignerEmail(@Param("email") String email);
+
+    /**
+     * Keyset page of Signer ids whose document no longer exists.
+     */
+    @Query("SELECT s.id FROM Signer s WHERE s.id > :after "
+            + "AND NOT EXISTS (SELECT 1 FROM Document d WHERE d.id = s.documentId) ORDER BY s.id")
+    List<String> findOrphanIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Signer s SET s.digitalSignatureStatus = :status WHERE s.id = :id")
+    int updateDigitalSignatureStatus(@Param("id") String id, @Param("status") DigitalSignatureStatus status);
+
+    @Modifying
+    @Query("DELETE FROM Signer s WHERE s.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") String documentId);
 }
 
@@ -0,0 +1,68 @@
+package sis.hust.edu.vn.digital_signature.repository.template;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.BulkSendStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendJob;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BulkSendJobRepository extends BaseRepository<BulkSendJob, String> {
+
+    /**
+     * Ids of unfinished jobs that no worker holds (or whose retry delay is over), oldest first.
+     */
+    @Query("SELECT j.id FROM BulkSendJob j WHERE j.status IN ('QUEUED', 'RUNNING') "
+            + "AND (j.lockedUntil IS NULL OR j.lockedUntil < :now) ORDER BY j.createdAt")
+    List<String> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Take the lease on a job; 0 if another worker holds it or it has finished.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BulkSendJob j SET j.status = 'RUNNING', j.lockedUntil = :lockedUntil, "
+            + "j.startedAt = COALESCE(j.startedAt, :now), j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status IN ('QUEUED', 'RUNNING') "
+            + "AND (j.lockedUntil IS NULL OR j.lockedUntil < :now)")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Count a written chunk and extend the lease, in the chunk's transaction.
+     */
+    @Modifying
+    @Query("UPDATE BulkSendJob j SET j.sentRecipients = j.sentRecipients + :sent, j.attempts = 0, "
+            + "j.lockedUntil = :lockedUntil, j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") String id,
+                       @Param("sent") int sent,
+                       @Param("lockedUntil") LocalDateTime lockedUntil,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Record a failed chunk; the lease becomes the retry delay.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BulkSendJob j SET j.attempts = j.attempts + 1, j.lastError = :error, "
+            + "j.lockedUntil = :retryAt, j.updatedAt = :now WHERE j.id = :id")
+    int recordFailure(@Param("id") String id,
+                      @Param("error") String error,
+                      @Param("retryAt") LocalDateTime retryAt,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BulkSendJob j SET j.status = :status, j.completedAt = :now, j.lockedUntil = null, "
+            + "j.updatedAt = :now WHERE j.id = :id")
+    int finish(@Param("id") String id, @Param("status") BulkSendStatus status, @Param("now") LocalDateTime now);
+
+    boolean existsByTemplateIdAndStatusIn(String templateId, Collection<BulkSendStatus> statuses);
+}
@@ -0,0 +1,20 @@
+package sis.hust.edu.vn.digital_signature.repository.template;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendRecipient;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.util.List;
+
+@Repository
+public interface BulkSendRecipientRepository extends BaseRepository<BulkSendRecipient, String> {
+
+    /**
+     * Next recipients of a job still waiting for their document, in submission order.
+     */
+    @Query("SELECT r FROM BulkSendRecipient r WHERE r.jobId = :jobId AND r.documentId IS NULL ORDER BY r.rowNumber")
+    List<BulkSendRecipient> findPending(@Param("jobId") String jobId, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package sis.hust.edu.vn.digital_signature.repository.template;
+
+import org.springframework.stereotype.Repository;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentTemplate;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.util.List;
+
+@Repository
+public interface DocumentTemplateRepository extends BaseRepository<DocumentTemplate, String> {
+    List<DocumentTemplate> findByOwnerIdOrderByCreatedAtDesc(String ownerId);
+}
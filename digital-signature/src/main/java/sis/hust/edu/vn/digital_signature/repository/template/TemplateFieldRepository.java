@@ -0,0 +1,19 @@
+package sis.hust.edu.vn.digital_signature.repository.template;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sis.hust.edu.vn.digital_signature.entity.model.TemplateField;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.util.List;
+
+@Repository
+public interface TemplateFieldRepository extends BaseRepository<TemplateField, String> {
+    List<TemplateField> findByTemplateId(String templateId);
+
+    @Modifying
+    @Query("DELETE FROM TemplateField f WHERE f.templateId = :templateId")
+    int deleteByTemplateId(@Param("templateId") String templateId);
+}
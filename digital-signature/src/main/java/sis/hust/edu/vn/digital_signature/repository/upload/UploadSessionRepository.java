@@ -0,0 +1,64 @@
+package sis.hust.edu.vn.digital_signature.repository.upload;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.UploadSession;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends BaseRepository<UploadSession, String> {
+
+    @Query("SELECT u FROM UploadSession u WHERE u.status = :status AND u.createdAt < :cutoff ORDER BY u.createdAt")
+    List<UploadSession> findStale(@Param("status") UploadStatus status,
+                                  @Param("cutoff") LocalDateTime cutoff,
+                                  Pageable pageable);
+
+    /**
+     * Record a stored chunk; 0 if the session moved past {@code offset} meanwhile (a concurrent retry of the
+     * same chunk won) or is no longer uploading.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession u SET u.receivedBytes = :receivedBytes, u.partCount = :partCount, "
+            + "u.partTags = :partTags, u.digestState = :digestState, u.updatedAt = :now "
+            + "WHERE u.id = :id AND u.status = 'UPLOADING' AND u.receivedBytes = :offset")
+    int recordChunk(@Param("id") String id,
+                    @Param("offset") long offset,
+                    @Param("receivedBytes") long receivedBytes,
+                    @Param("partCount") int partCount,
+                    @Param("partTags") String partTags,
+                    @Param("digestState") String digestState,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession u SET u.assembled = true, u.contentHash = :contentHash, u.updatedAt = :now "
+            + "WHERE u.id = :id AND u.status = 'UPLOADING' AND u.assembled = false")
+    int markAssembled(@Param("id") String id,
+                      @Param("contentHash") String contentHash,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Joins the finalizing transaction; 0 if a concurrent finalize already completed the session.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession u SET u.status = 'COMPLETED', u.documentId = :documentId, u.updatedAt = :now "
+            + "WHERE u.id = :id AND u.status = 'UPLOADING'")
+    int markCompleted(@Param("id") String id,
+                      @Param("documentId") String documentId,
+                      @Param("now") LocalDateTime now);
+
+    @Query("SELECT u.storageKey FROM UploadSession u WHERE u.status = :status AND u.storageKey IN :keys")
+    List<String> findStorageKeysByStatus(@Param("status") UploadStatus status,
+                                         @Param("keys") Collection<String> keys);
+}
@@ -1,10 +1,15 @@
 package sis.hust.edu.vn.digital_signature.repository.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
@@ -13,5 +18,24 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.avatar WHERE u.id = :id")
     Optional<User> findByIdWithAvatar(@Param("id") String id);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.avatar WHERE u.username = :username")
+    Optional<User> findByUsernameWithAvatar(@Param("username") String username);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.avatar WHERE u.id IN :ids")
+    List<User> findAllWithAvatarByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") String id,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
+
+    /**
+     * (id, updatedAt) of users deactivated since {@code since}, for the access-token revocation set.
+     */
+    @Query("SELECT u.id, u.updatedAt FROM User u WHERE u.isActive = false AND u.updatedAt > :since")
+    List<Object[]> findDeactivatedSince(@Param("since") LocalDateTime since);
 }
 
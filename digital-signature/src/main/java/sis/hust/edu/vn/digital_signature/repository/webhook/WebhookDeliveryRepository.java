@@ -0,0 +1,88 @@
+package sis.hust.edu.vn.digital_signature.repository.webhook;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.WebhookDeliveryStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookDelivery;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends BaseRepository<WebhookDelivery, String> {
+
+    /**
+     * Endpoints that have deliveries due, so workers can claim per endpoint and respect its concurrency limit.
+     */
+    @Query(nativeQuery = true, value = "SELECT DISTINCT endpoint_id FROM webhook_deliveries "
+            + "WHERE (status = 'PENDING' AND next_attempt_at <= :now) "
+            + "OR (status = 'DELIVERING' AND locked_until < :now) "
+            + "LIMIT :limit")
+    List<String> findEndpointsWithDueDeliveries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Claim up to {@code limit} due deliveries of one endpoint: pending ones whose retry time has come and
+     * in-flight ones whose lease ran out. SKIP LOCKED keeps several instances from sending the same event.
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE webhook_deliveries SET status = 'DELIVERING', "
+            + "attempts = attempts + 1, locked_until = :lockedUntil, updated_at = :now "
+            + "WHERE id IN (SELECT id FROM webhook_deliveries WHERE endpoint_id = :endpointId "
+            + "AND ((status = 'PENDING' AND next_attempt_at <= :now) "
+            + "OR (status = 'DELIVERING' AND locked_until < :now)) "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *")
+    List<WebhookDelivery> claimDue(@Param("endpointId") String endpointId,
+                                   @Param("now") LocalDateTime now,
+                                   @Param("lockedUntil") LocalDateTime lockedUntil,
+                                   @Param("limit") int limit);
+
+    /**
+     * Record the outcome of claimed deliveries. Only rows still held under the caller's lease (the
+     * {@code locked_until} that {@link #claimDue} set) are updated; the ones missing from the count were
+     * reclaimed by another worker after the lease expired.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookDelivery d SET d.status = :status, d.deliveredAt = :deliveredAt, d.lockedUntil = null, "
+            + "d.lastError = :error, d.updatedAt = :now "
+            + "WHERE d.id IN :ids AND d.status = 'DELIVERING' AND d.lockedUntil = :lease")
+    int markFinished(@Param("ids") Collection<String> ids,
+                     @Param("lease") LocalDateTime lease,
+                     @Param("status") WebhookDeliveryStatus status,
+                     @Param("deliveredAt") LocalDateTime deliveredAt,
+                     @Param("error") String error,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Put claimed deliveries back for a later attempt, under the same lease check as {@link #markFinished}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookDelivery d SET d.status = 'PENDING', d.nextAttemptAt = :nextAttemptAt, "
+            + "d.lockedUntil = null, d.lastError = :error, d.updatedAt = :now "
+            + "WHERE d.id IN :ids AND d.status = 'DELIVERING' AND d.lockedUntil = :lease")
+    int scheduleRetry(@Param("ids") Collection<String> ids,
+                      @Param("lease") LocalDateTime lease,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error,
+                      @Param("now") LocalDateTime now);
+
+    long countByStatus(WebhookDeliveryStatus status);
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM webhook_deliveries WHERE id IN ("
+            + "SELECT id FROM webhook_deliveries WHERE status IN ('DELIVERED', 'FAILED') "
+            + "AND updated_at < :cutoff LIMIT :limit)")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM WebhookDelivery d WHERE d.endpointId = :endpointId")
+    int deleteByEndpointId(@Param("endpointId") String endpointId);
+}
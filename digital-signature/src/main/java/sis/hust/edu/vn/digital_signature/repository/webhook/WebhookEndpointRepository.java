@@ -0,0 +1,17 @@
+package sis.hust.edu.vn.digital_signature.repository.webhook;
+
+import org.springframework.stereotype.Repository;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookEndpoint;
+import sis.hust.edu.vn.digital_signature.repository.BaseRepository;
+
+import java.util.List;
+
+@Repository
+public interface WebhookEndpointRepository extends BaseRepository<WebhookEndpoint, String> {
+
+    List<WebhookEndpoint> findByOwnerIdOrderByCreatedAtDesc(String ownerId);
+
+    List<WebhookEndpoint> findByOwnerIdInAndActiveTrue(Iterable<String> ownerIds);
+
+    long countByOwnerId(String ownerId);
+}
@@ -6,62 +6,48 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
-import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
-
+import sis.hust.edu.vn.digital_signature.security.service.UserCache;
+import sis.hust.edu.vn.digital_signature.security.jwt.JwtPrincipal;
+
+/**
+ * Current user, resolved from the security context on every call.
+ * No per-thread copy is kept: the JWT principal already carries the user, and a thread-local cache
+ * would have to be cleared after each request (and duplicated per virtual thread).
+ */
 @Service
 @RequiredArgsConstructor
 public class UserContext {
 
-    private static final ThreadLocal<User> CURRENT_USER = new ThreadLocal<>();
-
-    private final UserRepository userRepository;
-
-    public void setCurrentUser(User user) {
-        if (user != null) {
-            CURRENT_USER.set(user);
-        }
-    }
+    private final UserCache userCache;
 
     public User getCurrentUser() {
-        User cachedUser = CURRENT_USER.get();
-        if (cachedUser != null) {
-            return cachedUser;
-        }
-        return resolveFromSecurityContext();
-    }
-
-    public String getCurrentUsername() {
-        User cachedUser = CURRENT_USER.get();
-        if (cachedUser != null) {
-            return cachedUser.getUsername();
-        }
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return null;
         }
         Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.toUser();
+        }
         if (principal instanceof UserDetails) {
-            return ((UserDetails) principal).getUsername();
+            String username = ((UserDetails) principal).getUsername();
+            return userCache.findByUsername(username).orElse(null);
         }
         return null;
     }
 
-    public void clear() {
-        CURRENT_USER.remove();
-    }
-
-    private User resolveFromSecurityContext() {
+    public String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return null;
         }
         Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.getUsername();
+        }
         if (principal instanceof UserDetails) {
-            String username = ((UserDetails) principal).getUsername();
-            return userRepository.findByUsername(username).orElse(null);
+            return ((UserDetails) principal).getUsername();
         }
         return null;
     }
 }
-
-
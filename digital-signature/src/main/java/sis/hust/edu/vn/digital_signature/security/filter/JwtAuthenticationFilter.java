@@ -8,26 +8,27 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
-import sis.hust.edu.vn.digital_signature.security.context.UserContext;
+import sis.hust.edu.vn.digital_signature.security.jwt.JwtPrincipal;
 import sis.hust.edu.vn.digital_signature.security.jwt.JwtService;
-import sis.hust.edu.vn.digital_signature.security.service.CustomUserDetailsService;
+import sis.hust.edu.vn.digital_signature.security.jwt.TokenRevocationService;
 
 import java.io.IOException;
 
+/**
+ * Authenticates Bearer access tokens. The token is verified once and the security context is built
+ * from its claims; the only other check is the in-memory revocation set, so no database round trip
+ * is made per request.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final CustomUserDetailsService userDetailsService;
-    private final UserRepository userRepository;
-    private final UserContext userContext;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -37,50 +38,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
-
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            log.info("No Bearer token found in request: {}", request.getRequestURI());
+            log.debug("No Bearer token found in request: {}", request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
-        try {
-            jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
-            log.info("Extracted username from token: {}", userEmail);
-
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtService.isTokenValid(jwt)) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-                    log.info("Loaded user details for: {}, Authorities: {}", userEmail, userDetails.getAuthorities());
-
-                    userRepository.findByUsername(userEmail).ifPresent(user -> {
-                        userContext.setCurrentUser(user);
-                        log.info("Set UserContext for user: {}", user.getUsername());
-                    });
-
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    log.info("Authentication set in SecurityContext for: {}", userEmail);
-                } else {
-                    log.warn("Token is invalid for user: {}", userEmail);
-                }
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal = jwtService.parse(authHeader.substring(7)).orElse(null);
+            if (principal == null) {
+                log.debug("Invalid or expired token on {}", request.getRequestURI());
+            } else if (!principal.isActive()
+                    || tokenRevocationService.isRevoked(principal.getUserId(), principal.getIssuedAt())) {
+                log.debug("Rejected token of deactivated user {}", principal.getUserId());
             } else {
-                 log.info("Username is null or Context already auth: username={}, context={}", userEmail, SecurityContextHolder.getContext().getAuthentication());
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        principal,
+                        null,
+                        principal.getAuthorities()
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
-        } catch (Exception e) {
-            log.error("Cannot set user authentication: {}", e.getMessage(), e);
         }
 
         filterChain.doFilter(request, response);
     }
 }
-
-
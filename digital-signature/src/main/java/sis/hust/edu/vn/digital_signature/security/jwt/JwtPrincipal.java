@@ -0,0 +1,46 @@
+package sis.hust.edu.vn.digital_signature.security.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import sis.hust.edu.vn.digital_signature.entity.enums.Role;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The authenticated caller, built from verified access-token claims without touching the database.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal {
+
+    private final String userId;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final Role role;
+    private final boolean active;
+    private final Instant issuedAt;
+
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    /**
+     * Detached view of the user for {@code @CurrentUser} parameters: identity fields only, no password
+     * or profile data. Services that need more must load the entity by id.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(userId)
+                .username(username)
+                .email(email)
+                .fullName(fullName)
+                .role(role)
+                .isActive(active)
+                .build();
+    }
+}
@@ -1,50 +1,87 @@
 package sis.hust.edu.vn.digital_signature.security.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import sis.hust.edu.vn.digital_signature.config.security.JwtProperties;
+import sis.hust.edu.vn.digital_signature.entity.enums.Role;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Issues and verifies access tokens. The key and parser are built once; a token is verified with a
+ * single parse and carries everything the request path needs (id, email, name, role, active).
+ */
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_EMAIL = "email";
+    private static final String CLAIM_NAME = "name";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_ACTIVE = "active";
+
     private final JwtProperties jwtProperties;
 
-    public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration()))
-                .signWith(getSignKey())
-                .compact();
+    private Key signKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signKey).build();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public String generateToken(User user) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_NAME, user.getFullName())
+                .claim(CLAIM_ROLE, user.getRole() != null ? user.getRole().name() : Role.USER.name())
+                .claim(CLAIM_ACTIVE, Boolean.TRUE.equals(user.getIsActive()))
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtProperties.getExpiration()))
+                .signWith(signKey)
+                .compact();
     }
 
-    public boolean isTokenValid(String token) {
+    /**
+     * Verify the signature and expiry and read the caller from the claims.
+     * Empty for invalid or expired tokens, and for tokens issued before the claims existed.
+     */
+    public Optional<JwtPrincipal> parse(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            String userId = claims.get(CLAIM_USER_ID, String.class);
+            String role = claims.get(CLAIM_ROLE, String.class);
+            if (userId == null || role == null || claims.getIssuedAt() == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new JwtPrincipal(
+                    userId,
+                    claims.getSubject(),
+                    claims.get(CLAIM_EMAIL, String.class),
+                    claims.get(CLAIM_NAME, String.class),
+                    Role.valueOf(role),
+                    Boolean.TRUE.equals(claims.get(CLAIM_ACTIVE, Boolean.class)),
+                    claims.getIssuedAt().toInstant()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
 
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+    public long getExpirationMillis() {
+        return jwtProperties.getExpiration();
     }
 }
-
-
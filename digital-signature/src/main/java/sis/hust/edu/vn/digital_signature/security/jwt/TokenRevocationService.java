@@ -0,0 +1,81 @@
+package sis.hust.edu.vn.digital_signature.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Rejects access tokens of users deactivated after the token was issued.
+ *
+ * Access tokens are verified without a database lookup, so this keeps a small in-memory set of
+ * recently deactivated users. Deactivations on this instance take effect immediately; the others
+ * pick them up from the users table every {@code security.revocation.sync-interval-ms}. Entries
+ * only need to outlive the tokens they can affect, so they expire with the access-token lifetime.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final UserRepository userRepository;
+    private final JwtService jwtService;
+
+    @Value("${security.revocation.sync-interval-ms:30000}")
+    private long syncIntervalMs;
+
+    private Cache<String, Instant> revokedAt;
+    private volatile LocalDateTime syncedUntil;
+
+    @PostConstruct
+    void init() {
+        Duration tokenLifetime = Duration.ofMillis(jwtService.getExpirationMillis());
+        revokedAt = Caffeine.newBuilder()
+                .expireAfterWrite(tokenLifetime)
+                .maximumSize(100_000)
+                .build();
+        syncedUntil = LocalDateTime.now().minus(tokenLifetime);
+    }
+
+    public void revokeUser(String userId) {
+        revokedAt.put(userId, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Whether a token issued at {@code issuedAt} (second precision) predates the user's deactivation.
+     */
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        Instant revoked = revokedAt.getIfPresent(userId);
+        return revoked != null && !issuedAt.isAfter(revoked);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.sync-interval-ms:30000}")
+    public void syncDeactivatedUsers() {
+        LocalDateTime until = LocalDateTime.now();
+        List<Object[]> deactivated = userRepository.findDeactivatedSince(syncedUntil);
+        for (Object[] row : deactivated) {
+            if (row[1] == null) {
+                continue;
+            }
+            Instant at = ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+            revokedAt.asMap().merge((String) row[0], at, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+        }
+        // Overlap one interval so rows committed while this ran are not skipped
+        syncedUntil = until.minus(Duration.ofMillis(syncIntervalMs));
+        if (!deactivated.isEmpty()) {
+            log.debug("Loaded {} deactivated users into the token revocation set", deactivated.size());
+        }
+    }
+}
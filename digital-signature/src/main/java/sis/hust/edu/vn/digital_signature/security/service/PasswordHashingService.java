@@ -0,0 +1,155 @@
+package sis.hust.edu.vn.digital_signature.security.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs BCrypt on a dedicated, bounded pool instead of request threads.
+ *
+ * At most {@code threads} hashes run at once (one per core by default), so a login spike or a
+ * credential-stuffing burst never oversubscribes the CPU; set it lower to keep cores free for signing
+ * traffic. Callers wait in a short bounded queue: a full queue is rejected at once with 429, and a
+ * caller that waited longer than {@code max-wait-ms} gets 503 and its queued hash is cancelled.
+ *
+ * Metrics: {@code password.hashing} (timer by operation/outcome, queue wait included),
+ * {@code password.hashing.queue}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingService {
+
+    public enum Operation {
+        LOGIN, REGISTER, CHANGE_PASSWORD, RESET_PASSWORD, REHASH
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    // 0 = one per available core
+    @Value("${password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password-hashing.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // CPU-bound: platform threads even when I/O workers run on virtual threads
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), WorkerThreads.platformFactory("password-hash-"));
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        log.info("Password hashing pool: {} threads, queue {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword, Operation operation) {
+        return run(operation, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword, Operation operation) {
+        return run(operation, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether the stored hash is weaker than the configured cost and should be replaced on the next login.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash in the background if the pool has room; empty when it is busy, since a rehash can always wait
+     * for a later login.
+     */
+    public CompletableFuture<String> encodeIfIdle(String rawPassword) {
+        if (executor.getQueue().remainingCapacity() < queueCapacity / 2) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                String encoded = passwordEncoder.encode(rawPassword);
+                record(Operation.REHASH, "success", start);
+                return encoded;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private <T> T run(Operation operation, Callable<T> task) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            record(operation, "rejected", start);
+            throw new CapacityExceededException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many sign-in requests right now. Please try again shortly.", 1);
+        }
+
+        try {
+            T result = future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            record(operation, "success", start);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            record(operation, "timeout", start);
+            throw new CapacityExceededException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The server is busy. Please try again shortly.", 2);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CapacityExceededException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Interrupted while waiting for password hashing", 1);
+        } catch (ExecutionException e) {
+            record(operation, "error", start);
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private void record(Operation operation, String outcome, long start) {
+        Timer.builder("password.hashing")
+                .tag("operation", operation.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,169 @@
+package sis.hust.edu.vn.digital_signature.security.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Short-lived cache of users (with their avatar) for read paths: principal lookups, the profile
+ * endpoint and owner names in document lists.
+ *
+ * Callers always get a detached copy (avatar included), never the cached instance, so nothing they
+ * change leaks into the cache or gets merged back. Code that updates a user must load the entity from
+ * the repository and call {@link #invalidate} afterwards; other instances converge within
+ * {@code user-cache.ttl-seconds}.
+ *
+ * Metrics: {@code cache.gets} / {@code cache.evictions} etc. with {@code cache=users}, and
+ * {@code users.cache.hit.ratio}.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${user-cache.max-size:10000}")
+    private long maxSize;
+
+    private LoadingCache<String, Optional<User>> usersById;
+    // username -> id; usernames never change, so entries only go away with their user
+    private final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        usersById = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<User> load(String id) {
+                        return userRepository.findByIdWithAvatar(id);
+                    }
+
+                    @Override
+                    public Map<String, Optional<User>> loadAll(Set<? extends String> ids) {
+                        Map<String, Optional<User>> loaded = userRepository.findAllWithAvatarByIdIn(List.copyOf(ids)).stream()
+                                .collect(Collectors.toMap(User::getId, Optional::of));
+                        ids.forEach(id -> loaded.putIfAbsent(id, Optional.empty()));
+                        return loaded;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users");
+        Gauge.builder("users.cache.hit.ratio", usersById, cache -> cache.stats().hitRate())
+                .description("Share of user lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<User> findById(String id) {
+        return usersById.get(id).map(UserCache::copyOf);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        String id = idsByUsername.get(username);
+        if (id == null) {
+            Optional<User> user = userRepository.findByUsernameWithAvatar(username);
+            user.ifPresent(found -> {
+                idsByUsername.put(username, found.getId());
+                usersById.put(found.getId(), Optional.of(found));
+            });
+            return user.map(UserCache::copyOf);
+        }
+        return findById(id);
+    }
+
+    /**
+     * Users for these ids in one query for the ones not cached; missing ids are left out.
+     */
+    public Map<String, User> findAllById(Collection<String> ids) {
+        return usersById.getAll(ids).values().stream()
+                .flatMap(Optional::stream)
+                .map(UserCache::copyOf)
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    /**
+     * Drop the cached user. Inside a transaction the entry is dropped again once it commits: a read
+     * in between would otherwise cache the row as it was before the update.
+     */
+    public void invalidate(String userId) {
+        usersById.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    usersById.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .phone(user.getPhone())
+                .address(user.getAddress())
+                .dateOfBirth(user.getDateOfBirth())
+                .gender(user.getGender())
+                .avatar(copyOf(user.getAvatar()))
+                .isActive(user.getIsActive())
+                .role(user.getRole())
+                .build();
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    private static File copyOf(File file) {
+        if (file == null) {
+            return null;
+        }
+        File copy = File.builder()
+                .id(file.getId())
+                .fileName(file.getFileName())
+                .originalName(file.getOriginalName())
+                .filePath(file.getFilePath())
+                .fileUrl(file.getFileUrl())
+                .fileSize(file.getFileSize())
+                .mimeType(file.getMimeType())
+                .fileType(file.getFileType())
+                .uploadedAt(file.getUploadedAt())
+                .uploadedBy(file.getUploadedBy())
+                .contentHash(file.getContentHash())
+                .refCount(file.getRefCount())
+                .build();
+        copy.setCreatedAt(file.getCreatedAt());
+        copy.setUpdatedAt(file.getUpdatedAt());
+        return copy;
+    }
+}
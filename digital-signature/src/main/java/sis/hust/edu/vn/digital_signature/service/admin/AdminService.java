@@ -15,6 +15,8 @@ import sis.hust.edu.vn.digital_signature.mapper.admin.AdminUserMapper;
 import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
 import sis.hust.edu.vn.digital_signature.repository.signature.SignatureRepository;
 import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+import sis.hust.edu.vn.digital_signature.security.jwt.TokenRevocationService;
+import sis.hust.edu.vn.digital_signature.security.service.UserCache;
 
 
 @Service
@@ -25,6 +27,8 @@ public class AdminService {
     private final DocumentRepository documentRepository;
     private final SignatureRepository signatureRepository;
     private final AdminUserMapper adminUserMapper;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCache userCache;
 
     public AdminMetricsResponse getMetrics() {
         long totalUsers = userRepository.count();
@@ -60,6 +64,8 @@ public class AdminService {
                 .build();
     }
 
+    // Read-only transaction: the mapper touches the lazy avatar
+    @Transactional(readOnly = true)
     public Page<AdminUserResponse> listUsers(Pageable pageable, String search, String role, Boolean isActive) {
         // TODO: Implement proper filtering using Specifications
         // For now, return all users with pagination
@@ -67,6 +73,8 @@ public class AdminService {
         return usersPage.map(adminUserMapper::toDto);
     }
 
+    // Read-only transaction: the mapper touches the lazy avatar
+    @Transactional(readOnly = true)
     public AdminUserResponse getUser(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
@@ -79,6 +87,11 @@ public class AdminService {
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
         user.setIsActive(isActive);
         userRepository.save(user);
+        userCache.invalidate(userId);
+        if (!Boolean.TRUE.equals(isActive)) {
+            // Access tokens are checked without a database lookup; cut this user's off right away
+            tokenRevocationService.revokeUser(userId);
+        }
     }
 
     @Transactional
@@ -97,6 +110,7 @@ public class AdminService {
         }
         
         User savedUser = userRepository.save(user);
+        userCache.invalidate(userId);
         return adminUserMapper.toDto(savedUser);
     }
 }
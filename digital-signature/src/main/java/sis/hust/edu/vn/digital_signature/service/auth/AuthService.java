@@ -2,7 +2,6 @@ package sis.hust.edu.vn.digital_signature.service.auth;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import sis.hust.edu.vn.digital_signature.constants.error.ErrorMessages;
 import sis.hust.edu.vn.digital_signature.dto.auth.request.LoginRequest;
@@ -17,6 +16,9 @@ import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundExceptio
 import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
 import sis.hust.edu.vn.digital_signature.security.jwt.JwtService;
 import sis.hust.edu.vn.digital_signature.security.context.UserContext;
+import sis.hust.edu.vn.digital_signature.security.service.PasswordHashingService;
+import sis.hust.edu.vn.digital_signature.security.service.PasswordHashingService.Operation;
+import sis.hust.edu.vn.digital_signature.security.service.UserCache;
 import sis.hust.edu.vn.digital_signature.service.file.FileService;
 import sis.hust.edu.vn.digital_signature.service.crypto.KeyPairService;
 import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
@@ -32,10 +34,11 @@ public class AuthService {
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final OtpService otpService;
     private final FileService fileService;
     private final UserContext userContext;
+    private final UserCache userCache;
     private final KeyPairService keyPairService;
     private final EmailService emailService;
 
@@ -51,7 +54,7 @@ public class AuthService {
         User user = userRepository.save(
                 User.builder()
                         .username(req.getUsername())
-                        .password(passwordEncoder.encode(req.getPassword()))
+                        .password(passwordHashingService.encode(req.getPassword(), Operation.REGISTER))
                         .email(req.getEmail())
                         .fullName(req.getFullName())
                         .phone(req.getPhone())
@@ -62,47 +65,70 @@ public class AuthService {
                         .role(Role.USER)
                         .build());
 
-        String token = jwtService.generateToken(user.getUsername());
-        RefreshToken refresh = refreshTokenService.createRefreshToken(user);
-        userContext.setCurrentUser(user);
+        String token = jwtService.generateToken(user);
+        String refresh = refreshTokenService.createRefreshToken(user);
         
         // Generate RSA key pair for digital signing
         keyPairService.generateAndSaveKeyPair(user.getId());
 
-        return new AuthResponse(token, refresh.getToken());
+        return new AuthResponse(token, refresh);
     }
 
     public AuthResponse login(LoginRequest req) {
         User user = userRepository.findByEmail(req.getEmail())
                 .orElseThrow(() -> new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND));
 
-        if (!passwordEncoder.matches(req.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(req.getPassword(), user.getPassword(), Operation.LOGIN)) {
             throw new BusinessException(ErrorMessages.WRONG_PASSWORD);
         }
 
-        String token = jwtService.generateToken(user.getUsername());
-        RefreshToken refresh = refreshTokenService.createRefreshToken(user);
-        userContext.setCurrentUser(user);
+        if (!Boolean.TRUE.equals(user.getIsActive())) {
+            throw new BusinessException(ErrorMessages.ACCOUNT_DISABLED);
+        }
+
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            rehashInBackground(user.getId(), user.getPassword(), req.getPassword());
+        }
 
-        return new AuthResponse(token, refresh.getToken());
+        String token = jwtService.generateToken(user);
+        String refresh = refreshTokenService.createRefreshToken(user);
+
+        return new AuthResponse(token, refresh);
+    }
+
+    /**
+     * Move a hash made with an older, cheaper cost to the configured one, so the cost can be raised
+     * without a reset. Skipped when the hashing pool is busy; the next login tries again.
+     */
+    private void rehashInBackground(String userId, String currentHash, String rawPassword) {
+        passwordHashingService.encodeIfIdle(rawPassword).thenAccept(newHash -> {
+            // Conditional on the old hash: a password changed in the meantime is not overwritten
+            if (newHash != null && userRepository.updatePasswordIfUnchanged(userId, currentHash, newHash) > 0) {
+                userCache.invalidate(userId);
+                log.debug("Rehashed password of user {} with the current cost", userId);
+            }
+        }).exceptionally(e -> {
+            log.warn("Password rehash for user {} failed: {}", userId, e.getMessage());
+            return null;
+        });
     }
 
     public AuthResponse refreshToken(String refreshToken) {
-        RefreshToken token = refreshTokenService.findByToken(refreshToken);
+        RefreshToken token = refreshTokenService.findValid(refreshToken);
 
-        if (refreshTokenService.isExpired(token)) {
-            throw new BusinessException(ErrorMessages.REFRESH_TOKEN_EXPIRED);
+        if (!Boolean.TRUE.equals(token.getUser().getIsActive())) {
+            throw new BusinessException(ErrorMessages.ACCOUNT_DISABLED);
         }
 
-        String newAccessToken = jwtService.generateToken(
-                token.getUser().getUsername());
+        // Rotated on every use: the presented token stops working once this returns
+        String newRefreshToken = refreshTokenService.rotate(token);
+        String newAccessToken = jwtService.generateToken(token.getUser());
 
-        return new AuthResponse(newAccessToken, refreshToken);
+        return new AuthResponse(newAccessToken, newRefreshToken);
     }
 
     public void logout(String refreshToken) {
-        RefreshToken token = refreshTokenService.findByToken(refreshToken);
-        refreshTokenService.deleteToken(token);
+        refreshTokenService.revoke(refreshToken);
     }
 
     public User getCurrentUserProfile(User user) {
@@ -114,20 +140,24 @@ public class AuthService {
             if (username == null) {
                 throw new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND);
             }
-            user = userRepository.findByUsername(username)
+            user = userCache.findByUsername(username)
                     .orElseThrow(() -> new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND));
         }
-        return userRepository.findByIdWithAvatar(user.getId())
+        return userCache.findById(user.getId())
                 .orElseThrow(() -> new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND));
     }
 
     public void changePassword(User user, String currentPassword, String newPassword) {
-        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+        // The request principal is built from token claims and carries no password hash
+        user = userRepository.findById(user.getId())
+                .orElseThrow(() -> new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND));
+        if (!passwordHashingService.matches(currentPassword, user.getPassword(), Operation.CHANGE_PASSWORD)) {
             throw new BusinessException(ErrorMessages.WRONG_PASSWORD);
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword, Operation.CHANGE_PASSWORD));
         userRepository.save(user);
+        userCache.invalidate(user.getId());
     }
 
     public String sendOtp(String email, String typeStr) {
@@ -166,8 +196,9 @@ public class AuthService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException(ErrorMessages.USER_NOT_FOUND));
 
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword, Operation.RESET_PASSWORD));
         userRepository.save(user);
+        userCache.invalidate(user.getId());
     }
 
     public AuthResponse verifyOtpAndRegister(VerifyOtpRequest request) {
@@ -186,7 +217,7 @@ public class AuthService {
         User user = userRepository.save(
                 User.builder()
                         .username(request.getUsername())
-                        .password(passwordEncoder.encode(request.getPassword()))
+                        .password(passwordHashingService.encode(request.getPassword(), Operation.REGISTER))
                         .email(request.getEmail())
                         .fullName(request.getFullName())
                         .phone(request.getPhone())
@@ -198,10 +229,10 @@ public class AuthService {
                         .build()
         );
 
-        String token = jwtService.generateToken(user.getUsername());
-        RefreshToken refresh = refreshTokenService.createRefreshToken(user);
+        String token = jwtService.generateToken(user);
+        String refresh = refreshTokenService.createRefreshToken(user);
 
-        return new AuthResponse(token, refresh.getToken());
+        return new AuthResponse(token, refresh);
     }
 
     public AuthResponse verifyOtpAndRegister(
@@ -231,7 +262,7 @@ public class AuthService {
 
         User.UserBuilder userBuilder = User.builder()
                 .username(username)
-                .password(passwordEncoder.encode(password))
+                .password(passwordHashingService.encode(password, Operation.REGISTER))
                 .email(email)
                 .fullName(fullName)
                 .phone(phone)
@@ -256,14 +287,23 @@ public class AuthService {
             }
         }
 
-        User user = userRepository.save(userBuilder.build());
+        User user;
+        try {
+            user = userRepository.save(userBuilder.build());
+        } catch (RuntimeException e) {
+            // The avatar's reference was taken for this user; give it back so the blob does not leak
+            if (avatarFile != null) {
+                fileService.deleteFile(avatarFile.getId());
+            }
+            throw e;
+        }
         
         // Generate RSA key pair for digital signing
         keyPairService.generateAndSaveKeyPair(user.getId());
 
-        String token = jwtService.generateToken(user.getUsername());
-        RefreshToken refresh = refreshTokenService.createRefreshToken(user);
+        String token = jwtService.generateToken(user);
+        String refresh = refreshTokenService.createRefreshToken(user);
 
-        return new AuthResponse(token, refresh.getToken());
+        return new AuthResponse(token, refresh);
     }
 }
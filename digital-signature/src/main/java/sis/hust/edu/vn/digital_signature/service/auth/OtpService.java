@@ -1,26 +1,48 @@
 package sis.hust.edu.vn.digital_signature.service.auth;
 
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-
+import sis.hust.edu.vn.digital_signature.service.auth.otp.OtpStore;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Issues and checks six-digit email codes. Codes come from {@link SecureTokens} and reach the
+ * {@link OtpStore} only as an HMAC keyed with a server secret, so a leaked store cannot be
+ * brute-forced offline over the small code space.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class OtpService {
 
-    private static final long OTP_EXPIRY_TIME = 5 * 60 * 1000;
+    private final OtpStore otpStore;
 
-    private final Map<String, OtpData> otpStore = new ConcurrentHashMap<>();
-    private final Random random = new Random();
+    @Value("${otp.ttl-seconds:300}")
+    private long ttlSeconds;
 
-    public String generateOtp(String email) {
-        String otp = String.format("%06d", random.nextInt(1000000));
-        long expiryTime = System.currentTimeMillis() + OTP_EXPIRY_TIME;
+    @Value("${otp.hash-secret:${jwt.secret}}")
+    private String hashSecret;
+
+    private SecretKeySpec hashKey;
+
+    @PostConstruct
+    void init() {
+        hashKey = new SecretKeySpec(hashSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
 
-        otpStore.put(email, new OtpData(otp, expiryTime));
+    public String generateOtp(String email) {
+        String otp = String.format("%06d", SecureTokens.nextInt(1000000));
+        otpStore.put(email, hash(email, otp), Duration.ofSeconds(ttlSeconds));
 
         log.info("OTP generated for email: {}", email);
 
@@ -28,51 +50,31 @@ public class OtpService {
     }
 
     public boolean verifyOtp(String email, String otp) {
-        OtpData otpData = otpStore.get(email);
-
-        if (otpData == null) {
-            log.warn("No OTP found for email: {}", email);
+        if (otp == null) {
             return false;
         }
 
-        if (System.currentTimeMillis() > otpData.getExpiryTime()) {
-            log.warn("OTP expired for email: {}", email);
-            otpStore.remove(email);
-            return false;
+        OtpStore.VerifyResult result = otpStore.verify(email, hash(email, otp));
+        switch (result) {
+            case MATCHED -> log.info("OTP verified successfully for email: {}", email);
+            case MISMATCH -> log.warn("Invalid OTP for email: {}", email);
+            case TOO_MANY_ATTEMPTS -> log.warn("Too many invalid OTP attempts for email: {}, code discarded", email);
+            case NOT_FOUND -> log.warn("No valid OTP found for email: {}", email);
         }
-
-        boolean isValid = otpData.getOtp().equals(otp);
-
-        if (isValid) {
-            otpStore.remove(email);
-            log.info("OTP verified successfully for email: {}", email);
-        } else {
-            log.warn("Invalid OTP for email: {}", email);
-        }
-
-        return isValid;
+        return result == OtpStore.VerifyResult.MATCHED;
     }
 
     public void removeOtp(String email) {
         otpStore.remove(email);
     }
 
-    private static class OtpData {
-        private final String otp;
-        private final long expiryTime;
-
-        public OtpData(String otp, long expiryTime) {
-            this.otp = otp;
-            this.expiryTime = expiryTime;
-        }
-
-        public String getOtp() {
-            return otp;
-        }
-
-        public long getExpiryTime() {
-            return expiryTime;
+    private String hash(String email, String otp) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hashKey);
+            return HexFormat.of().formatHex(mac.doFinal((email + ':' + otp).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
         }
     }
 }
-
@@ -1,48 +1,122 @@
 package sis.hust.edu.vn.digital_signature.service.auth;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.constants.error.ErrorMessages;
 import sis.hust.edu.vn.digital_signature.entity.model.RefreshToken;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
 import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
 import sis.hust.edu.vn.digital_signature.repository.auth.RefreshTokenRepository;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.HexFormat;
 
+/**
+ * Refresh tokens: one per user, stored as a SHA-256 hash in a uniquely indexed column and rotated on
+ * every refresh. A token that was already rotated away no longer matches anything.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
 
+
     private final RefreshTokenRepository refreshTokenRepository;
 
-    @Transactional
-    public RefreshToken createRefreshToken(User user) {
-        refreshTokenRepository.deleteByUser(user);
+    @Value("${jwt.refresh-expiration:86400000}")
+    private long refreshExpirationMs;
+
+    @Value("${jwt.refresh-purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    /**
+     * Start a new session for this user, replacing any previous refresh token.
+     * @return the raw token for the client; only its hash is stored
+     */
+    public String createRefreshToken(User user) {
+        String token = newToken();
+        String tokenHash = hash(token);
+        Instant expiryDate = Instant.now().plusMillis(refreshExpirationMs);
 
-        return refreshTokenRepository.save(
-                RefreshToken.builder()
-                        .token(UUID.randomUUID().toString())
-                        .expiryDate(Instant.now().plusMillis(1000 * 60 * 60 * 24))
+        // Usually a single UPDATE; the INSERT only happens on a user's first login
+        if (refreshTokenRepository.replaceForUser(user.getId(), tokenHash, expiryDate) == 0) {
+            try {
+                refreshTokenRepository.save(RefreshToken.builder()
+                        .tokenHash(tokenHash)
+                        .expiryDate(expiryDate)
                         .user(user)
-                        .build()
-        );
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent first login inserted the row meanwhile
+                refreshTokenRepository.replaceForUser(user.getId(), tokenHash, expiryDate);
+            }
+        }
+        return token;
     }
 
-    public boolean isExpired(RefreshToken token) {
-        return token.getExpiryDate().isBefore(Instant.now());
+    /**
+     * Look up a presented token; throws if it is unknown (never issued, rotated or revoked) or expired.
+     */
+    public RefreshToken findValid(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new BusinessException(ErrorMessages.INVALID_REFRESH_TOKEN));
+        if (refreshToken.getExpiryDate().isBefore(Instant.now())) {
+            throw new BusinessException(ErrorMessages.REFRESH_TOKEN_EXPIRED);
+        }
+        return refreshToken;
     }
 
-    public RefreshToken findByToken(String token) {
-        return refreshTokenRepository.findByToken(token)
-                .orElseThrow(() -> new BusinessException(ErrorMessages.INVALID_REFRESH_TOKEN));
+    /**
+     * Replace a valid token with a fresh one; the session keeps its original expiry.
+     * @return the new raw token
+     */
+    public String rotate(RefreshToken refreshToken) {
+        String token = newToken();
+        if (refreshTokenRepository.rotate(refreshToken.getId(), refreshToken.getTokenHash(), hash(token)) == 0) {
+            // Someone refreshed with the same token first
+            throw new BusinessException(ErrorMessages.INVALID_REFRESH_TOKEN);
+        }
+        return token;
     }
 
-    @Transactional
-    public void deleteToken(RefreshToken token) {
-        refreshTokenRepository.delete(token);
+    public void revoke(String token) {
+        if (refreshTokenRepository.deleteByTokenHash(hash(token)) == 0) {
+            throw new BusinessException(ErrorMessages.INVALID_REFRESH_TOKEN);
+        }
     }
-}
 
+    @Scheduled(cron = "${jwt.refresh-purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+
+    private String newToken() {
+        return SecureTokens.newToken();
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package sis.hust.edu.vn.digital_signature.service.auth.otp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: O(1) scheduling and expiry of deadlines without a priority queue.
+ *
+ * Level 0 has {@code slots} buckets of one tick each; every higher level covers {@code slots} times
+ * the span of the one below. A deadline goes into the lowest level whose span reaches it and is
+ * cascaded down as the wheel turns, so advancing one tick only touches the buckets that are due.
+ * Deadlines beyond the top level are parked in its farthest bucket and re-placed when it cascades.
+ *
+ * Not thread-safe on its own; callers serialize access.
+ */
+class HierarchicalTimingWheel<T> {
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final int slots;
+    private final long startMillis;
+    private final long[] spans; // ticks covered by one bucket of each level
+    private final ArrayDeque<Timeout<T>>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(long tickMillis, int slots, int levels, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = slots;
+        this.startMillis = nowMillis;
+        this.spans = new long[levels];
+        this.buckets = new ArrayDeque[levels][slots];
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            spans[level] = span;
+            span *= slots;
+            for (int slot = 0; slot < slots; slot++) {
+                buckets[level][slot] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        // Round up so an item never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        place(new Timeout<>(item, Math.max(deadlineTick, currentTick + 1)));
+        size++;
+    }
+
+    /**
+     * Turn the wheel up to {@code nowMillis}.
+     * @return the items whose deadline has passed
+     */
+    List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = spans.length - 1; level > 0; level--) {
+                if (currentTick % spans[level] == 0) {
+                    ArrayDeque<Timeout<T>> bucket = buckets[level][(int) ((currentTick / spans[level]) % slots)];
+                    Timeout<T> timeout;
+                    while ((timeout = bucket.poll()) != null) {
+                        place(timeout);
+                    }
+                }
+            }
+            ArrayDeque<Timeout<T>> due = buckets[0][(int) (currentTick % slots)];
+            Timeout<T> timeout;
+            while ((timeout = due.poll()) != null) {
+                expired.add(timeout.item());
+                size--;
+            }
+        }
+        return expired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delay = timeout.deadlineTick() - currentTick;
+        for (int level = 0; level < spans.length; level++) {
+            if (delay < spans[level] * slots) {
+                buckets[level][(int) ((timeout.deadlineTick() / spans[level]) % slots)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the wheel's horizon: park in the farthest top-level bucket, re-placed when it cascades
+        int top = spans.length - 1;
+        long parkTick = currentTick + spans[top] * (slots - 1);
+        buckets[top][(int) ((parkTick / spans[top]) % slots)].add(timeout);
+    }
+}
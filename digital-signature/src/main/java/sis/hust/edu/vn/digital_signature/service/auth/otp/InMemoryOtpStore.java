@@ -0,0 +1,132 @@
+package sis.hust.edu.vn.digital_signature.service.auth.otp;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-instance OTP store.
+ *
+ * Expiry is driven by a hierarchical timing wheel turned once per tick, so expired codes are dropped
+ * whether or not anyone comes back to verify them, at O(1) cost per code. Memory is bounded: once
+ * {@code maxEntries} codes (or twice as many pending expiries, from codes re-issued for the same key)
+ * are held, new codes are refused with a 429 instead of growing the heap.
+ *
+ * Metrics: {@code otp.store.entries}.
+ */
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 64;
+    private static final int WHEEL_LEVELS = 3; // 64^3 one-second ticks, about three days
+
+    private static final class Entry {
+        private final byte[] codeHash;
+        private final long expiresAt;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Entry(byte[] codeHash, long expiresAt) {
+            this.codeHash = codeHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Expiry(String key, Entry entry) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<Expiry> wheel;
+    private final ScheduledExecutorService ticker;
+    private final int maxEntries;
+    private final int maxAttempts;
+
+    public InMemoryOtpStore(int maxEntries, int maxAttempts, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.maxAttempts = maxAttempts;
+        this.wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, WHEEL_LEVELS, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::expireSafely, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("otp.store.entries", entries, Map::size)
+                .description("One-time codes held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void put(String key, String codeHash, Duration ttl) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        Entry entry = new Entry(codeHash.getBytes(StandardCharsets.US_ASCII), expiresAt);
+        synchronized (wheel) {
+            if ((entries.size() >= maxEntries && !entries.containsKey(key)) || wheel.size() >= 2L * maxEntries) {
+                log.warn("OTP store full ({} codes), refusing a new code", entries.size());
+                throw new CapacityExceededException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many verification codes pending, please retry later", ttl.toSeconds());
+            }
+            entries.put(key, entry);
+            wheel.schedule(new Expiry(key, entry), expiresAt);
+        }
+    }
+
+    @Override
+    public VerifyResult verify(String key, String codeHash) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return VerifyResult.NOT_FOUND;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt || entry.attempts.get() >= maxAttempts) {
+            // Past its deadline but not yet swept, or locked out by a concurrent wrong guess
+            entries.remove(key, entry);
+            return VerifyResult.NOT_FOUND;
+        }
+        if (MessageDigest.isEqual(entry.codeHash, codeHash.getBytes(StandardCharsets.US_ASCII))) {
+            // Only one of several concurrent verifications removes it
+            return entries.remove(key, entry) ? VerifyResult.MATCHED : VerifyResult.NOT_FOUND;
+        }
+        int attempts = entry.attempts.incrementAndGet();
+        if (attempts >= maxAttempts) {
+            entries.remove(key, entry);
+            return attempts == maxAttempts ? VerifyResult.TOO_MANY_ATTEMPTS : VerifyResult.NOT_FOUND;
+        }
+        return VerifyResult.MISMATCH;
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void expireSafely() {
+        try {
+            List<Expiry> expired;
+            synchronized (wheel) {
+                expired = wheel.advance(System.currentTimeMillis());
+            }
+            // A code re-issued for the same key is a different entry and stays
+            expired.forEach(expiry -> entries.remove(expiry.key(), expiry.entry()));
+        } catch (Exception e) {
+            log.warn("OTP expiry tick failed: {}", e.getMessage());
+        }
+    }
+}
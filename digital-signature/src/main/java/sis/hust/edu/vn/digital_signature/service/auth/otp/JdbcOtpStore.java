@@ -0,0 +1,75 @@
+package sis.hust.edu.vn.digital_signature.service.auth.otp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import sis.hust.edu.vn.digital_signature.entity.model.OtpCode;
+import sis.hust.edu.vn.digital_signature.repository.auth.OtpCodeRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP store shared by all instances through the {@code otp_codes} table, so a code issued on one
+ * node can be verified on any other. Matching and counting wrong guesses are single conditional
+ * statements, which keeps both single-use and the attempt limit exact under concurrency.
+ */
+@Slf4j
+public class JdbcOtpStore implements OtpStore {
+
+    private final OtpCodeRepository otpCodeRepository;
+    private final int maxAttempts;
+    private final int purgeBatchSize;
+
+    public JdbcOtpStore(OtpCodeRepository otpCodeRepository, int maxAttempts, int purgeBatchSize) {
+        this.otpCodeRepository = otpCodeRepository;
+        this.maxAttempts = maxAttempts;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    public void put(String key, String codeHash, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        otpCodeRepository.upsert(key, codeHash, now.plus(ttl), now);
+    }
+
+    @Override
+    public VerifyResult verify(String key, String codeHash) {
+        LocalDateTime now = LocalDateTime.now();
+        if (otpCodeRepository.consume(key, codeHash, now, maxAttempts) == 1) {
+            return VerifyResult.MATCHED;
+        }
+
+        Optional<OtpCode> counted = otpCodeRepository.recordFailedAttempt(key, now, maxAttempts);
+        if (counted.isEmpty()) {
+            return VerifyResult.NOT_FOUND;
+        }
+        if (counted.get().getAttempts() >= maxAttempts) {
+            otpCodeRepository.deleteByKey(key);
+            return VerifyResult.TOO_MANY_ATTEMPTS;
+        }
+        return VerifyResult.MISMATCH;
+    }
+
+    @Override
+    public void remove(String key) {
+        otpCodeRepository.deleteByKey(key);
+    }
+
+    /**
+     * Codes are checked for expiry on every read; this only reclaims rows nobody came back for.
+     */
+    @Scheduled(fixedDelayString = "${otp.jdbc.purge-interval-ms:300000}", initialDelayString = "${otp.jdbc.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = otpCodeRepository.deleteDeadBatch(now, maxAttempts, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} expired OTP codes", total);
+        }
+    }
+}
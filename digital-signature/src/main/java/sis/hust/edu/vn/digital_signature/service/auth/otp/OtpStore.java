@@ -0,0 +1,27 @@
+package sis.hust.edu.vn.digital_signature.service.auth.otp;
+
+import java.time.Duration;
+
+/**
+ * Storage for one-time codes. Stores only ever see a keyed hash of the code, never the code itself.
+ * A code is single-use: of several concurrent correct verifications exactly one matches, and it is
+ * discarded after {@code otp.max-attempts} wrong guesses.
+ */
+public interface OtpStore {
+
+    enum VerifyResult {
+        MATCHED,
+        MISMATCH,
+        TOO_MANY_ATTEMPTS,
+        NOT_FOUND // never issued, expired or already used
+    }
+
+    /**
+     * Store a code for this key, replacing any previous one.
+     */
+    void put(String key, String codeHash, Duration ttl);
+
+    VerifyResult verify(String key, String codeHash);
+
+    void remove(String key);
+}
@@ -3,6 +3,7 @@ package sis.hust.edu.vn.digital_signature.service.crypto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
@@ -80,7 +81,7 @@ public class CryptoService {
             
             // Generate random IV
             byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
+            SecureTokens.nextBytes(iv);
             
             // Create cipher
             SecretKeySpec keySpec = getAesKeySpec();
@@ -2,15 +2,14 @@ package sis.hust.edu.vn.digital_signature.service.crypto;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.entity.model.DocumentSignature;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
 import sis.hust.edu.vn.digital_signature.entity.model.UserKeyPair;
 import sis.hust.edu.vn.digital_signature.repository.crypto.DocumentSignatureRepository;
 import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
-import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
 
 import java.security.PrivateKey;
 import java.time.LocalDateTime;
@@ -27,11 +26,13 @@ public class DigitalSignatureService {
     private final KeyPairService keyPairService;
     private final DocumentSignatureRepository documentSignatureRepository;
     private final UserRepository userRepository;
-    private final StorageService storageService;
+    private final FileService fileService;
 
     /**
      * Create a digital signature for a document during the signing process.
      * Only registered users can create digital signatures.
+     * Runs without a surrounding transaction so no connection is held during the download and RSA signing;
+     * called from the signature outbox workers.
      * 
      * @param documentId The document being signed
      * @param signerId The signer record ID
@@ -39,7 +40,6 @@ public class DigitalSignatureService {
      * @param fileUrl The document file URL
      * @return The created DocumentSignature, or null if user is not registered
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public DocumentSignature createDigitalSignature(String documentId, String signerId, 
             String signerEmail, String fileUrl) {
         
@@ -82,7 +82,16 @@ public class DigitalSignatureService {
                 .isValid(true)
                 .build();
 
-        DocumentSignature saved = documentSignatureRepository.save(docSignature);
+        DocumentSignature saved;
+        try {
+            saved = documentSignatureRepository.save(docSignature);
+        } catch (DataIntegrityViolationException e) {
+            // Another worker signed for this signer first (document_id, signer_id is unique): keep theirs
+            log.warn("Digital signature for document {} and signer {} was created concurrently",
+                    documentId, signerId);
+            return documentSignatureRepository.findByDocumentIdAndSignerId(documentId, signerId)
+                    .orElseThrow(() -> e);
+        }
         
         log.info("Created digital signature for document {} by user {} (signer {})", 
                 documentId, user.getEmail(), signerId);
@@ -100,7 +109,7 @@ public class DigitalSignatureService {
             // Extract fileName from URL, ignoring query parameters (common in R2 presigned URLs)
             String pathPart = fileUrl.contains("?") ? fileUrl.split("\\?")[0] : fileUrl;
             String fileName = pathPart.substring(pathPart.lastIndexOf("/") + 1);
-            return storageService.download(fileName);
+            return fileService.getFileBytes(fileName);
         } catch (Exception e) {
             log.error("Error reading document file: {}", e.getMessage());
             throw new RuntimeException("Error reading document file", e);
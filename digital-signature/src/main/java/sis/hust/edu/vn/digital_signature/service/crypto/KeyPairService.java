@@ -2,12 +2,13 @@ package sis.hust.edu.vn.digital_signature.service.crypto;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import sis.hust.edu.vn.digital_signature.entity.model.UserKeyPair;
 import sis.hust.edu.vn.digital_signature.repository.crypto.UserKeyPairRepository;
 
 import java.security.KeyPair;
+import java.util.Optional;
 
 /**
  * Service for managing user key pairs.
@@ -23,15 +24,16 @@ public class KeyPairService {
 
     /**
      * Generate and save a new RSA key pair for a user.
+     * Key generation runs outside any transaction; only the existence check and the insert touch the database.
      * @param userId The user ID to generate key pair for
      * @return The created UserKeyPair entity
      */
-    @Transactional
     public UserKeyPair generateAndSaveKeyPair(String userId) {
         // Check if user already has a key pair
-        if (userKeyPairRepository.existsByUserId(userId)) {
+        Optional<UserKeyPair> existing = userKeyPairRepository.findByUserId(userId);
+        if (existing.isPresent()) {
             log.warn("User {} already has a key pair, skipping generation", userId);
-            return userKeyPairRepository.findByUserId(userId).orElse(null);
+            return existing.get();
         }
 
         // Generate new RSA key pair
@@ -49,10 +51,15 @@ public class KeyPairService {
                 .algorithm(cryptoService.getKeyAlgorithm())
                 .build();
 
-        UserKeyPair saved = userKeyPairRepository.save(userKeyPair);
-        log.info("Generated and saved RSA key pair for user: {}", userId);
-
-        return saved;
+        try {
+            UserKeyPair saved = userKeyPairRepository.save(userKeyPair);
+            log.info("Generated and saved RSA key pair for user: {}", userId);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent call generated one first (user_id is unique): use theirs
+            log.info("Key pair for user {} was created concurrently, using the stored one", userId);
+            return userKeyPairRepository.findByUserId(userId).orElseThrow(() -> e);
+        }
     }
 
     /**
@@ -60,7 +67,6 @@ public class KeyPairService {
      * @param userId The user ID
      * @return The user's key pair
      */
-    @Transactional
     public UserKeyPair getOrCreateKeyPair(String userId) {
         return userKeyPairRepository.findByUserId(userId)
                 .orElseGet(() -> generateAndSaveKeyPair(userId));
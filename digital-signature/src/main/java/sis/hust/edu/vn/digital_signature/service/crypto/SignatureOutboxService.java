@@ -0,0 +1,218 @@
+package sis.hust.edu.vn.digital_signature.service.crypto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentSignature;
+import sis.hust.edu.vn.digital_signature.entity.model.SignatureTask;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageFileNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.crypto.SignatureTaskRepository;
+import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable, asynchronous creation of digital signatures.
+ *
+ * {@link #enqueue} writes a {@code signature_tasks} row in the caller's transaction, so a signing
+ * that commits always has its signature intent recorded. Workers claim due rows with
+ * {@code FOR UPDATE SKIP LOCKED} under a lease, create the signature outside any transaction and
+ * retry failures with exponential backoff. Progress is mirrored on the signer row
+ * ({@code digital_signature_status}) for the UI.
+ *
+ * Metrics: {@code signature.outbox.tasks} (counter by outcome), {@code signature.outbox.pending}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SignatureOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final SignatureTaskRepository signatureTaskRepository;
+    private final SignerRepository signerRepository;
+    private final DigitalSignatureService digitalSignatureService;
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+
+    @Value("${signature.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signature.outbox.workers:2}")
+    private int workers;
+
+    @Value("${signature.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${signature.outbox.base-backoff-ms:2000}")
+    private long baseBackoffMs;
+
+    @Value("${signature.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    // A worker that has not finished within the lease is presumed dead and its task is handed out again
+    @Value("${signature.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                workerThreads.factory("signature-worker-"));
+        Gauge.builder("signature.outbox.pending", signatureTaskRepository,
+                        repository -> repository.countByStatus(DigitalSignatureStatus.PENDING))
+                .description("Digital signatures waiting to be created")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Record that a digital signature must be created for this signer.
+     * Must run inside the signing transaction; workers are nudged once it commits.
+     */
+    public void enqueue(String documentId, String signerId, String signerEmail, String fileUrl) {
+        signatureTaskRepository.save(SignatureTask.builder()
+                .documentId(documentId)
+                .signerId(signerId)
+                .signerEmail(signerEmail)
+                .fileUrl(fileUrl)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(SignatureOutboxService.this::pollSafely);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${signature.outbox.poll-interval-ms:2000}",
+            initialDelayString = "${signature.outbox.initial-delay-ms:10000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SignatureTask> claimed = signatureTaskRepository.claimDue(now, now.plusSeconds(leaseSeconds), capacity);
+        for (SignatureTask task : claimed) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    process(task);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Signature outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void process(SignatureTask task) {
+        try {
+            DocumentSignature signature = digitalSignatureService.createDigitalSignature(
+                    task.getDocumentId(), task.getSignerId(), task.getSignerEmail(), task.getFileUrl());
+            finish(task, signature != null ? DigitalSignatureStatus.COMPLETED : DigitalSignatureStatus.SKIPPED, null);
+        } catch (Exception e) {
+            String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (isPermanent(e) || task.getAttempts() >= maxAttempts) {
+                log.error("Digital signature for signer {} on document {} failed after {} attempts",
+                        task.getSignerId(), task.getDocumentId(), task.getAttempts(), e);
+                finish(task, DigitalSignatureStatus.FAILED, error);
+                return;
+            }
+
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(task.getAttempts())));
+            log.warn("Digital signature for signer {} failed (attempt {}), retrying at {}: {}",
+                    task.getSignerId(), task.getAttempts(), nextAttemptAt, error);
+            // The signer row stays PENDING until the task finishes
+            if (signatureTaskRepository.scheduleRetry(task.getId(), task.getLockedUntil(), nextAttemptAt, error,
+                    LocalDateTime.now()) == 0) {
+                leaseLost(task);
+                return;
+            }
+            outcomeCounter("retry").increment();
+        }
+    }
+
+    private void finish(SignatureTask task, DigitalSignatureStatus status, String error) {
+        if (signatureTaskRepository.markFinished(task.getId(), task.getLockedUntil(), status, error,
+                LocalDateTime.now()) == 0) {
+            leaseLost(task);
+            return;
+        }
+        signerRepository.updateDigitalSignatureStatus(task.getSignerId(), status);
+        outcomeCounter(status.name().toLowerCase()).increment();
+    }
+
+    private void leaseLost(SignatureTask task) {
+        // Took longer than the lease: the task was reclaimed and the new holder's outcome wins
+        log.warn("Lost the lease on signature task {} (document {}), dropping this attempt's outcome",
+                task.getId(), task.getDocumentId());
+        outcomeCounter("lease_lost").increment();
+    }
+
+    private long backoffMillis(int attempt) {
+        // Exponential and capped, jittered over the upper half so retries of one outage spread out
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private boolean isPermanent(Throwable e) {
+        // The document's file is gone: retrying cannot help
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StorageFileNotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("signature.outbox.tasks")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
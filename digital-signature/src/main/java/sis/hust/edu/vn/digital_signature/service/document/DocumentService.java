@@ -2,11 +2,11 @@ package sis.hust.edu.vn.digital_signature.service.document;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Predicate;
@@ -23,15 +23,17 @@ import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
 import sis.hust.edu.vn.digital_signature.entity.model.Document;
 import sis.hust.edu.vn.digital_signature.entity.model.Field;
 import sis.hust.edu.vn.digital_signature.entity.model.File;
-import sis.hust.edu.vn.digital_signature.entity.model.Signer;
 import sis.hust.edu.vn.digital_signature.entity.model.User;
 import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
 import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.crypto.DocumentSignatureRepository;
+import sis.hust.edu.vn.digital_signature.repository.crypto.SignatureTaskRepository;
 import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
 import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
 import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
-import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+import sis.hust.edu.vn.digital_signature.security.service.UserCache;
 import sis.hust.edu.vn.digital_signature.service.file.FileService;
+import sis.hust.edu.vn.digital_signature.service.signer.SignerQueryService;
 import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
 
 import java.io.IOException;
@@ -47,11 +49,11 @@ public class DocumentService {
     private final DocumentRepository documentRepository;
     private final FieldRepository fieldRepository;
     private final SignerRepository signerRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final StorageService storageService;
-
-    @Value("${frontend.url:http://localhost:5556}")
-    private String frontendUrl;
+    private final DocumentSignatureRepository documentSignatureRepository;
+    private final SignatureTaskRepository signatureTaskRepository;
+    private final SignerQueryService signerQueryService;
 
     public Document uploadDocument(MultipartFile multipartFile, String title, String ownerId) throws IOException {
         // Save file using FileService
@@ -61,10 +63,24 @@ public class DocumentService {
             throw new BusinessException("Failed to save file");
         }
 
+        try {
+            return createDocument(savedFile, title, multipartFile.getOriginalFilename(), ownerId);
+        } catch (RuntimeException e) {
+            // No document took the reference; give it back so the blob does not leak
+            fileService.deleteFile(savedFile.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Create a draft document on top of an already stored file.
+     */
+    public Document createDocument(File savedFile, String title, String originalFileName, String ownerId) {
         // Use file name as title if title is not provided
+        // (taken from the upload itself: a deduplicated File row keeps the first uploader's name)
         String documentTitle = title != null && !title.trim().isEmpty() 
             ? title 
-            : savedFile.getOriginalName();
+            : originalFileName;
 
         // Create Document entity
         Document document = Document.builder()
@@ -127,7 +143,7 @@ public class DocumentService {
             .map(Document::getOwnerId)
             .collect(Collectors.toSet());
         
-        Map<String, String> ownerIdToName = userRepository.findAllById(ownerIds).stream()
+        Map<String, String> ownerIdToName = userCache.findAllById(ownerIds).values().stream()
             .collect(Collectors.toMap(User::getId, User::getFullName));
         
         // Step 5: Convert to DocumentListItem with owner info
@@ -167,12 +183,8 @@ public class DocumentService {
         boolean isOwner = document.getOwnerId().equals(userId);
         
         // Check if user is a signer (by email)
-        boolean isSigner = false;
-        if (!isOwner && userEmail != null) {
-            List<Signer> signers = signerRepository.findByDocumentId(documentId);
-            isSigner = signers.stream()
-                .anyMatch(signer -> signer.getEmail().equalsIgnoreCase(userEmail));
-        }
+        boolean isSigner = !isOwner && userEmail != null
+                && signerRepository.existsByDocumentIdAndEmailIgnoreCase(documentId, userEmail);
         
         if (!isOwner && !isSigner) {
             throw new BusinessException("Access denied. You are not the owner or a signer of this document.");
@@ -185,42 +197,42 @@ public class DocumentService {
     }
 
     public GetDocumentResponse getDocumentWithFieldsAndSigners(String documentId, String userId, String userEmail) {
-        Document document = getDocumentById(documentId, userId, userEmail);
-        
-        // Get fields
-        List<Field> fields = fieldRepository.findByDocumentId(documentId);
-        
-        // Get signers
-        List<Signer> signers = signerRepository.findByDocumentId(documentId);
-        
-        // Convert signers to SignerResponse
-        List<SignerResponse> signerResponses = signers.stream()
-                .map(signer -> {
-                    String signingUrl = frontendUrl + "/signing/" + signer.getToken();
-                    return SignerResponse.builder()
-                            .id(signer.getId())
-                            .documentId(signer.getDocumentId())
-                            .email(signer.getEmail())
-                            .name(signer.getName())
-                            .order(signer.getOrder())
-                            .status(signer.getStatus().name())
-                            .signingUrl(signingUrl)
-                            .signedAt(signer.getSignedAt())
-                            .declinedAt(signer.getDeclinedAt())
-                            .declineReason(signer.getDeclineReason())
-                            .createdAt(signer.getCreatedAt())
-                            .updatedAt(signer.getUpdatedAt())
-                            .build();
-                })
+        // Document, its fields and the access check in one round trip
+        List<Object[]> rows = documentRepository.findDetailRows(documentId, userId, userEmail);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("Document not found");
+        }
+        if (!Boolean.TRUE.equals(rows.get(0)[2])) {
+            throw new BusinessException("Access denied. You are not the owner or a signer of this document.");
+        }
+
+        Document document = (Document) rows.get(0)[0];
+        document.setFileUrl(refreshFileUrl(document.getFileUrl()));
+
+        List<Field> fields = rows.stream()
+                .map(row -> (Field) row[1])
+                .filter(java.util.Objects::nonNull)
                 .collect(Collectors.toList());
-        
+
+        // Signers for display, capped for large documents (second round trip)
+        SignerQueryService.DisplaySigners displaySigners = signerQueryService.loadDisplaySigners(documentId);
+
         return GetDocumentResponse.builder()
                 .document(document)
                 .fields(fields)
-                .signers(signerResponses)
+                .signers(displaySigners.getSigners())
+                .signerSummary(displaySigners.getSummary())
                 .build();
     }
 
+    /**
+     * Page through all signers of a document the user can access.
+     */
+    public Page<SignerResponse> listSigners(String documentId, String userId, String userEmail, Pageable pageable) {
+        getDocumentById(documentId, userId, userEmail);
+        return signerQueryService.pageSigners(documentId, pageable);
+    }
+
     /**
      * Get document by ID - OWNER ONLY access
      * Used for update/delete operations that require owner permission
@@ -251,6 +263,7 @@ public class DocumentService {
         return documentRepository.save(document);
     }
 
+    @Transactional
     public void deleteDocument(String documentId, String ownerId) {
         Document document = getDocumentByIdOwnerOnly(documentId, ownerId);
         
@@ -260,7 +273,15 @@ public class DocumentService {
             throw new BusinessException("Cannot delete document with status: " + document.getStatus());
         }
         
+        // Remove dependent rows with the document; the orphan collector catches anything left by older versions
+        fieldRepository.deleteByDocumentId(documentId);
+        signerRepository.deleteByDocumentId(documentId);
+        documentSignatureRepository.deleteByDocumentId(documentId);
+        signatureTaskRepository.deleteByDocumentId(documentId);
         documentRepository.delete(document);
+
+        // Release this document's reference on the shared blob
+        fileService.deleteFileByName(extractFileName(document.getFileUrl()));
     }
 
     /**
@@ -278,21 +299,22 @@ public class DocumentService {
             return storedFileUrl;
         }
         
-        // Extract fileName from URL
-        String fileName;
-        
+        // Generate fresh URL using StorageService
+        return storageService.getFileUrl(extractFileName(storedFileUrl));
+    }
+
+    /**
+     * Extract the storage key from a stored file URL.
+     */
+    public String extractFileName(String storedFileUrl) {
         // Check if it's an R2 presigned URL (contains query params)
         if (storedFileUrl.contains("?")) {
             // R2 URL: https://xxx.r2.cloudflarestorage.com/uuid.pdf?X-Amz-xxx=...
             String pathPart = storedFileUrl.split("\\?")[0];
-            fileName = pathPart.substring(pathPart.lastIndexOf("/") + 1);
-        } else {
-            // Regular URL: http://localhost:5555/api/files/uuid.pdf
-            fileName = storedFileUrl.substring(storedFileUrl.lastIndexOf("/") + 1);
+            return pathPart.substring(pathPart.lastIndexOf("/") + 1);
         }
-        
-        // Generate fresh URL using StorageService
-        return storageService.getFileUrl(fileName);
+        // Regular URL: http://localhost:5555/api/files/uuid.pdf
+        return storedFileUrl.substring(storedFileUrl.lastIndexOf("/") + 1);
     }
 }
 
@@ -7,6 +7,7 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import sis.hust.edu.vn.digital_signature.entity.model.Document;
 import sis.hust.edu.vn.digital_signature.entity.model.Field;
@@ -16,8 +17,12 @@ import sis.hust.edu.vn.digital_signature.service.pdf.PdfQrService;
 
 import jakarta.persistence.EntityNotFoundException;
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.net.URL;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 
@@ -33,6 +38,14 @@ public class PdfExportService {
     private final FieldRepository fieldRepository;
     private final PdfQrService pdfQrService;
 
+    @Value("${pdf-export.fetch-timeout-ms:30000}")
+    private long fetchTimeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
     /**
      * Generate PDF with signatures embedded at their positions
      */
@@ -81,10 +94,16 @@ public class PdfExportService {
     }
 
     private byte[] loadPdfFromUrl(String fileUrl) throws Exception {
-        URL url = new URL(fileUrl);
-        try (InputStream is = url.openStream()) {
-            return is.readAllBytes();
+        // Bounded fetch: URL.openStream() has no timeouts and would pin the worker on a stalled server
+        HttpRequest request = HttpRequest.newBuilder(URI.create(fileUrl))
+                .timeout(Duration.ofMillis(fetchTimeoutMs))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Fetching " + fileUrl + " returned HTTP " + response.statusCode());
         }
+        return response.body();
     }
 
     private void embedSignature(PDDocument pdfDocument, Field field) throws Exception {
@@ -3,19 +3,26 @@ package sis.hust.edu.vn.digital_signature.service.email;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.entity.model.MailMessage;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds outgoing emails and queues them in the mail outbox; nothing here talks to SMTP.
+ */
 @Service
 @Slf4j
 public class EmailService {
 
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
+    private static final String KIND_OTP = "otp";
+    private static final String KIND_SIGNER_INVITE = "signer_invite";
 
-    @Value("${spring.mail.username:}")
-    private String fromEmail;
+    @Autowired
+    private MailOutboxService mailOutboxService;
 
     @Value("${app.name:Digital Signature}")
     private String appName;
@@ -26,17 +33,28 @@ public class EmailService {
     @Value("${app.email.test-mode:false}")
     private boolean testMode;
 
+    @Value("${frontend.url:http://localhost:5556}")
+    private String frontendUrl;
+
+    // An OTP email that cannot go out while the code is valid is dropped
+    @Value("${otp.ttl-seconds:300}")
+    private long otpTtlSeconds;
+
+    // How long an unsent OTP email (code in plain text) may wait in the outbox; the user can ask for a new one
+    @Value("${mail.outbox.otp-send-window-seconds:60}")
+    private long otpSendWindowSeconds;
+
     @jakarta.annotation.PostConstruct
     public void init() {
         log.info("================ EMAIL CONFIG DEBUG ================");
         log.info("Test Mode: {}", testMode);
         log.info("Email Enabled: {}", emailEnabled);
-        log.info("From Email (Username): {}", fromEmail);
+        log.info("Mail Sender Available: {}", mailOutboxService.isAvailable());
         log.info("====================================================");
     }
 
     public void sendOtpEmail(String toEmail, String otp) {
-        log.info("Attempting to send OTP email to: {}", toEmail);
+        log.info("Queueing OTP email to: {}", toEmail);
 
         if (testMode) {
             log.info("========================================");
@@ -47,24 +65,64 @@ public class EmailService {
             return;
         }
 
-        if (fromEmail == null || fromEmail.isEmpty()) {
-            log.error("Email sending disabled: 'fromEmail' is not configured.");
+        if (!canSend()) {
+            return;
+        }
+
+        mailOutboxService.enqueue(List.of(MailMessage.builder()
+                .kind(KIND_OTP)
+                .recipient(toEmail)
+                .subject("Mã OTP đăng ký - " + appName)
+                .body(buildOtpEmailContent(otp))
+                .expiresAt(LocalDateTime.now().plusSeconds(Math.min(otpTtlSeconds, otpSendWindowSeconds)))
+                .build()));
+    }
+
+    /**
+     * Queue one invitation per signer with their signing link; all signers share the document title.
+     * Call inside the transaction that creates the signers, so invites go out only if it commits.
+     */
+    public void sendSignerInvites(String documentTitle, List<Signer> signers) {
+        if (signers.isEmpty()) {
             return;
         }
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mã OTP đăng ký - " + appName);
-            message.setText(buildOtpEmailContent(otp));
-
-            mailSender.send(message);
-            log.info("OTP email sent successfully to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", toEmail, e);
-            log.warn("Falling back to test mode - OTP: {}", otp);
+        if (testMode) {
+            signers.forEach(signer -> log.info("TEST MODE - invite for document {} to {} (NOT SENT): {}",
+                    signer.getDocumentId(), signer.getEmail(), signingUrl(signer)));
+            return;
+        }
+
+        if (!canSend()) {
+            return;
         }
+
+        List<MailMessage> messages = new ArrayList<>(signers.size());
+        for (Signer signer : signers) {
+            messages.add(MailMessage.builder()
+                    .kind(KIND_SIGNER_INVITE)
+                    .recipient(signer.getEmail())
+                    .subject("Yêu cầu ký tài liệu: " + documentTitle + " - " + appName)
+                    .body(buildInviteEmailContent(signer, documentTitle))
+                    .build());
+        }
+        mailOutboxService.enqueue(messages);
+    }
+
+    private boolean canSend() {
+        if (!emailEnabled) {
+            log.debug("Email sending disabled by app.email.enabled");
+            return false;
+        }
+        if (!mailOutboxService.isAvailable()) {
+            log.error("Email sending disabled: mail sender or 'fromEmail' is not configured.");
+            return false;
+        }
+        return true;
+    }
+
+    private String signingUrl(Signer signer) {
+        return frontendUrl + "/signing/" + signer.getToken();
     }
 
     private String buildOtpEmailContent(String otp) {
@@ -78,4 +136,16 @@ public class EmailService {
                         "Đội ngũ %s",
                 appName, otp, appName);
     }
+
+    private String buildInviteEmailContent(Signer signer, String documentTitle) {
+        return String.format(
+                "Xin chào %s,\n\n" +
+                        "Bạn được mời ký tài liệu \"%s\" trên %s.\n\n" +
+                        "Mở liên kết sau để xem và ký tài liệu:\n%s\n\n" +
+                        "Liên kết này dành riêng cho bạn, vui lòng không chia sẻ.\n\n" +
+                        "Trân trọng,\n" +
+                        "Đội ngũ %s",
+                signer.getName() != null ? signer.getName() : signer.getEmail(),
+                documentTitle, appName, signingUrl(signer), appName);
+    }
 }
@@ -0,0 +1,351 @@
+package sis.hust.edu.vn.digital_signature.service.email;
+
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.entity.enums.MailStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.MailMessage;
+import sis.hust.edu.vn.digital_signature.repository.mail.MailMessageRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable, asynchronous email delivery.
+ *
+ * {@link #enqueue} writes {@code mail_outbox} rows (in the caller's transaction when there is one), so
+ * requests never wait on SMTP. Workers claim due rows in batches with {@code FOR UPDATE SKIP LOCKED}
+ * under a lease and send each batch over a single SMTP connection; failed messages are retried with
+ * exponential backoff, rejected addresses fail at once. A token bucket caps the rate toward the provider
+ * across all workers of this instance.
+ *
+ * Bodies may hold OTP codes, so they are dropped as soon as a message is sent, fails or passes its
+ * deadline; overdue messages are expired every {@code expire-interval-ms}.
+ *
+ * Metrics: {@code mail.outbox.messages} (counter by kind/outcome), {@code mail.outbox.pending}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final MailMessageRepository mailMessageRepository;
+    private final ObjectProvider<JavaMailSender> mailSenderProvider;
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+
+    @Value("${mail.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.outbox.workers:2}")
+    private int workers;
+
+    // Messages sent over one SMTP connection
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.base-backoff-ms:5000}")
+    private long baseBackoffMs;
+
+    @Value("${mail.outbox.max-backoff-ms:900000}")
+    private long maxBackoffMs;
+
+    @Value("${mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${mail.outbox.rate-per-minute:60}")
+    private long ratePerMinute;
+
+    @Value("${mail.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${mail.outbox.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${spring.mail.username:}")
+    private String fromEmail;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+    private Bucket rateCap;
+    private JavaMailSender mailSender;
+
+    @PostConstruct
+    void start() {
+        mailSender = mailSenderProvider.getIfAvailable();
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                workerThreads.factory("mail-worker-"));
+        rateCap = Bucket.builder()
+                .addLimit(limit -> limit
+                        .capacity(ratePerMinute)
+                        .refillGreedy(ratePerMinute, Duration.ofMinutes(1))
+                )
+                .build();
+        Gauge.builder("mail.outbox.pending", mailMessageRepository,
+                        repository -> repository.countByStatus(MailStatus.PENDING))
+                .description("Emails waiting to be sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public boolean isAvailable() {
+        return mailSender != null && fromEmail != null && !fromEmail.isEmpty();
+    }
+
+    /**
+     * Queue messages for sending. Inside a transaction they are written with it and workers are nudged
+     * once it commits; outside one they are nudged right away.
+     */
+    public void enqueue(List<MailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        messages.forEach(message -> message.setNextAttemptAt(now));
+        mailMessageRepository.saveAll(messages);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(MailOutboxService.this::pollSafely);
+                }
+            });
+        } else {
+            executor.execute(this::pollSafely);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:5000}",
+            initialDelayString = "${mail.outbox.initial-delay-ms:10000}")
+    public void poll() {
+        if (!enabled || !isAvailable()) {
+            return;
+        }
+        while (inFlight.get() < workers) {
+            // Claim no more than the rate cap allows right now; unused permits go back
+            long permits = rateCap.tryConsumeAsMuchAsPossible(batchSize);
+            if (permits == 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<MailMessage> claimed;
+            try {
+                claimed = mailMessageRepository.claimDue(now, now.plusSeconds(leaseSeconds), (int) permits);
+            } catch (RuntimeException e) {
+                rateCap.addTokens(permits);
+                throw e;
+            }
+            if (claimed.size() < permits) {
+                rateCap.addTokens(permits - claimed.size());
+            }
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    send(claimed);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                // A full batch suggests a backlog: keep draining instead of waiting for the next poll
+                if (claimed.size() == batchSize) {
+                    pollSafely();
+                }
+            });
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Mail outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<MailMessage> batch) {
+        List<SimpleMailMessage> mails = new ArrayList<>(batch.size());
+        for (MailMessage message : batch) {
+            SimpleMailMessage mail = new SimpleMailMessage();
+            mail.setFrom(fromEmail);
+            mail.setTo(message.getRecipient());
+            mail.setSubject(message.getSubject());
+            mail.setText(message.getBody());
+            mails.add(mail);
+        }
+
+        try {
+            // JavaMailSenderImpl sends the whole array over one connection
+            mailSender.send(mails.toArray(new SimpleMailMessage[0]));
+            markSent(batch);
+        } catch (MailSendException e) {
+            // Per-message failures, keyed by the message passed in; the others went out.
+            // No failures at all means only closing the connection failed, after every message was sent
+            Map<Object, Exception> failures = e.getFailedMessages();
+            List<MailMessage> sent = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Exception failure = failures.get(mails.get(i));
+                if (failure == null) {
+                    sent.add(batch.get(i));
+                } else {
+                    handleFailure(batch.get(i), failure);
+                }
+            }
+            markSent(sent);
+        } catch (MailException e) {
+            // Authentication or another failure before any message was handed over
+            batch.forEach(message -> handleFailure(message, e));
+        }
+    }
+
+    private void markSent(List<MailMessage> sent) {
+        if (sent.isEmpty()) {
+            return;
+        }
+        // One claim statement leased the whole batch with the same locked_until
+        int updated = mailMessageRepository.markSent(sent.stream().map(MailMessage::getId).toList(),
+                sent.get(0).getLockedUntil(), LocalDateTime.now());
+        sent.forEach(message -> outcomeCounter(message.getKind(), "sent").increment());
+        if (updated < sent.size()) {
+            log.warn("Lost the lease on {} sent emails; they may go out again", sent.size() - updated);
+            outcomeCounter("any", "lease_lost").increment(sent.size() - updated);
+        }
+    }
+
+    private void handleFailure(MailMessage message, Exception e) {
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        if (isPermanent(e) || message.getAttempts() >= maxAttempts) {
+            log.error("Email {} to {} failed after {} attempts: {}",
+                    message.getKind(), message.getRecipient(), message.getAttempts(), error);
+            if (mailMessageRepository.markFailed(message.getId(), message.getLockedUntil(), error,
+                    LocalDateTime.now()) == 0) {
+                leaseLost(message);
+                return;
+            }
+            outcomeCounter(message.getKind(), "failed").increment();
+            return;
+        }
+
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(message.getAttempts())));
+        log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}",
+                message.getKind(), message.getRecipient(), message.getAttempts(), nextAttemptAt, error);
+        if (mailMessageRepository.scheduleRetry(message.getId(), message.getLockedUntil(), nextAttemptAt, error,
+                LocalDateTime.now()) == 0) {
+            leaseLost(message);
+            return;
+        }
+        outcomeCounter(message.getKind(), "retry").increment();
+    }
+
+    private void leaseLost(MailMessage message) {
+        // Took longer than the lease: the message was reclaimed and the new holder's outcome wins
+        log.warn("Lost the lease on email {} to {}, dropping this attempt's outcome",
+                message.getKind(), message.getRecipient());
+        outcomeCounter(message.getKind(), "lease_lost").increment();
+    }
+
+    /**
+     * Expire messages that missed their deadline, dropping their bodies. Runs often: an OTP that could not
+     * be sent should not sit in the table in plain text.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.expire-interval-ms:30000}",
+            initialDelayString = "${mail.outbox.expire-interval-ms:30000}")
+    public void expireOverdue() {
+        int expired = mailMessageRepository.expireOverdue(LocalDateTime.now());
+        if (expired > 0) {
+            log.warn("Expired {} emails that could not be sent in time", expired);
+            outcomeCounter("any", "expired").increment(expired);
+        }
+    }
+
+    /**
+     * Delete finished messages past the retention period.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:600000}",
+            initialDelayString = "${mail.outbox.purge-interval-ms:600000}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = mailMessageRepository.deleteFinishedBatch(before, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} finished emails", total);
+        }
+    }
+
+    private long backoffMillis(int attempt) {
+        // Exponential and capped, jittered over the upper half so retries of one outage spread out
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private boolean isPermanent(Throwable e) {
+        // Malformed or rejected recipient: retrying cannot help
+        if (e instanceof MailParseException) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AddressException) {
+                return true;
+            }
+            if (cause instanceof SendFailedException sendFailed
+                    && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private Counter outcomeCounter(String kind, String outcome) {
+        return Counter.builder("mail.outbox.messages")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
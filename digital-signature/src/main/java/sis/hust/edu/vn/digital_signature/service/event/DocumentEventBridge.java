@@ -0,0 +1,128 @@
+package sis.hust.edu.vn.digital_signature.service.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Cross-instance leg of the document event stream: LISTENs on the Postgres channel that
+ * {@link DocumentEventPublisher} notifies, and hands every event to the local hub, so an owner
+ * connected to any instance behind the load balancer sees changes made on the others.
+ *
+ * LISTEN needs a session-level connection, which a transaction-mode pooler cannot provide, so the
+ * listener opens its own connection to {@code document-events.bridge.url} (a direct or
+ * session-pooled URL) instead of borrowing from the Hikari pool. It reconnects with backoff and
+ * asks clients to resync afterwards, since notifications sent while it was away are lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentEventBridge {
+
+    private final DocumentEventHub documentEventHub;
+    private final ObjectMapper objectMapper;
+
+    @Value("${document-events.bridge.enabled:false}")
+    private boolean enabled;
+
+    @Value("${document-events.bridge.url:${spring.datasource.url}}")
+    private String url;
+
+    @Value("${document-events.bridge.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${document-events.bridge.password:${spring.datasource.password:}}")
+    private String password;
+
+    // Also the interval of the liveness probe on an idle connection
+    @Value("${document-events.bridge.poll-ms:10000}")
+    private int pollMs;
+
+    @Value("${document-events.bridge.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "document-events-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + DocumentEventPublisher.CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for document events on channel {}", DocumentEventPublisher.CHANNEL);
+                backoffMs = 1000;
+                if (reconnecting) {
+                    documentEventHub.broadcastResync();
+                }
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null || notifications.length == 0) {
+                        // Nothing arrived: make sure the socket is still alive rather than silently waiting forever
+                        statement.execute("SELECT 1");
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Document event listener lost its connection, retrying in {}ms: {}", backoffMs, e.getMessage());
+            }
+
+            reconnecting = true;
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(maxBackoffMs, backoffMs * 2);
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            documentEventHub.dispatch(objectMapper.readValue(payload, DocumentEvent.class));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed document event: {}", e.getMessage());
+        }
+    }
+}
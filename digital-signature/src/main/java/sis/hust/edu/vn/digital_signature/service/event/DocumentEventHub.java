@@ -0,0 +1,188 @@
+package sis.hust.edu.vn.digital_signature.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of {@link DocumentEvent}s to the owners' open SSE streams.
+ *
+ * Streams are held as {@link SseEmitter}s, so an idle subscriber costs no request thread. Sends run
+ * on a small dispatcher pool with a bounded queue: a slow client only delays its own stream, and a
+ * failed send drops the emitter. A comment line is written every {@code heartbeat-ms} so proxies
+ * keep idle streams open and dead clients are noticed.
+ *
+ * Metrics: {@code document.events.subscribers}, {@code document.events.sent} (counter by outcome).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentEventHub {
+
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+
+    @Value("${document-events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${document-events.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    @Value("${document-events.max-streams:2000}")
+    private int maxStreams;
+
+    @Value("${document-events.dispatcher-threads:2}")
+    private int dispatcherThreads;
+
+    @Value("${document-events.dispatcher-queue-size:10000}")
+    private int dispatcherQueueSize;
+
+    private final ConcurrentHashMap<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private ThreadPoolExecutor dispatcher;
+
+    @PostConstruct
+    void start() {
+        dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(dispatcherQueueSize),
+                workerThreads.factory("document-events-"));
+        Gauge.builder("document.events.subscribers", openStreams, AtomicInteger::get)
+                .description("Open document event streams on this instance")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+
+    /**
+     * Open an event stream for this user. Caps are checked before anything is registered.
+     */
+    public SseEmitter subscribe(String userId) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            throw new BusinessException("Event streams are at capacity, please retry later");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        try {
+            // Checked and added under the map's per-key lock, racing an unregister of the last stream
+            subscribers.compute(userId, (id, emitters) -> {
+                Set<SseEmitter> current = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+                if (current.size() >= maxStreamsPerUser) {
+                    throw new BusinessException("Too many open event streams for this account");
+                }
+                current.add(emitter);
+                return current;
+            });
+        } catch (BusinessException e) {
+            openStreams.decrementAndGet();
+            throw e;
+        }
+
+        Runnable remove = () -> unregister(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Sent right away so the client knows the stream is live and can refresh what it shows
+        send(userId, emitter, SseEmitter.event().name("connected").data("ok"));
+        return emitter;
+    }
+
+    /**
+     * Deliver an event to every stream its owner has open on this instance.
+     */
+    public void dispatch(DocumentEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(event.getOwnerId());
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                send(event.getOwnerId(), emitter, SseEmitter.event()
+                        .name(event.getType().name())
+                        .id(event.getDocumentId())
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+        });
+    }
+
+    /**
+     * Tell every local stream that events may have been missed (e.g. while the cross-instance bridge
+     * was reconnecting), so clients reload instead of trusting a stale view.
+     */
+    public void broadcastResync() {
+        execute(() -> subscribers.forEach((userId, emitters) -> emitters.forEach(
+                emitter -> send(userId, emitter, SseEmitter.event().name("resync").data("reload")))));
+    }
+
+    @Scheduled(fixedDelayString = "${document-events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (openStreams.get() == 0) {
+            return;
+        }
+        execute(() -> subscribers.forEach((userId, emitters) -> emitters.forEach(
+                emitter -> send(userId, emitter, SseEmitter.event().comment("keepalive")))));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Document event dispatcher is saturated, dropping delivery");
+            sentCounter("dropped").increment();
+        }
+    }
+
+    private void send(String userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            sentCounter("sent").increment();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container callbacks may never fire for a half-open socket
+            unregister(userId, emitter);
+            emitter.completeWithError(e);
+            sentCounter("failed").increment();
+        }
+    }
+
+    private void unregister(String userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                openStreams.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private Counter sentCounter(String outcome) {
+        return Counter.builder("document.events.sent")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package sis.hust.edu.vn.digital_signature.service.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+import sis.hust.edu.vn.digital_signature.service.webhook.WebhookService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Publishes document and signer status changes to the owners' event streams and webhooks.
+ *
+ * Events are only delivered once the caller's transaction commits, so a rolled-back signing is
+ * never announced. With the bridge enabled the event is a {@code pg_notify} in that transaction:
+ * Postgres delivers it at commit to every instance listening on {@link #CHANNEL}, including this
+ * one. Otherwise it goes straight to the local hub after commit. Webhook deliveries are stored in
+ * the same transaction (see {@link WebhookService#enqueue}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentEventPublisher {
+
+    static final String CHANNEL = "document_events";
+
+    // NOTIFY payloads are capped at 8000 bytes by Postgres
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final DocumentEventHub documentEventHub;
+    private final WebhookService webhookService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${document-events.bridge.enabled:false}")
+    private boolean bridgeEnabled;
+
+    public void publish(DocumentEvent event) {
+        publishAll(List.of(event));
+    }
+
+    /**
+     * Publish several events from one transaction; webhook subscriptions are looked up once for all of them.
+     */
+    public void publishAll(List<DocumentEvent> events) {
+        webhookService.enqueue(events);
+        for (DocumentEvent event : events) {
+            if (bridgeEnabled && notifyInstances(event)) {
+                continue;
+            }
+            runAfterCommit(() -> documentEventHub.dispatch(event));
+        }
+    }
+
+    private boolean notifyInstances(DocumentEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize document event for {}: {}", event.getDocumentId(), e.getMessage());
+            return false;
+        }
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            // Checked up front: a failing pg_notify would abort the signing transaction
+            log.warn("Document event for {} is too large for NOTIFY, delivering locally only", event.getDocumentId());
+            return false;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, CHANNEL, payload);
+        return true;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
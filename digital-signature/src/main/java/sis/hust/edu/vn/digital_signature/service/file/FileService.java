@@ -3,22 +3,46 @@ package sis.hust.edu.vn.digital_signature.service.file;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import sis.hust.edu.vn.digital_signature.entity.model.Blob;
 import sis.hust.edu.vn.digital_signature.entity.model.File;
 import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.file.BlobRepository;
 import sis.hust.edu.vn.digital_signature.repository.file.FileRepository;
 import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+import sis.hust.edu.vn.digital_signature.util.id.TimeOrderedIds;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Deduplicated file storage, in two layers.
+ * A {@code files} row is what a user sees: its key appears in URLs and it is shared only by identical
+ * uploads of the same user, so one user's upload never returns (or reveals) another user's key, name
+ * or metadata; {@code ref_count} tracks its owners. Underneath, every row with the same SHA-256 points
+ * through {@code file_path} at one {@code blobs} object, whoever uploaded it, so a contract uploaded by
+ * many users is stored once. Keys at both layers are random and unrelated to the content:
+ * {@code /api/files} serves any file key, so a key must not be derivable from a document.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileService {
 
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+
     private final FileRepository fileRepository;
+    private final BlobRepository blobRepository;
     private final StorageService storageService;
 
     public File saveFile(MultipartFile multipartFile, FileType fileType, String uploadedBy) throws IOException {
@@ -28,15 +52,35 @@ public class FileService {
 
         String originalFileName = multipartFile.getOriginalFilename();
         String fileExtension = getFileExtension(originalFileName);
-        String fileName = UUID.randomUUID().toString() + fileExtension;
+        String contentHash = hashContent(multipartFile);
+
+        // Same bytes already stored by this user: take a reference instead of uploading again
+        Optional<File> existing = acquireExisting(uploadedBy, contentHash);
+        if (existing.isPresent()) {
+            log.info("Deduplicated upload {} onto file {}", originalFileName, existing.get().getFileName());
+            return existing.get();
+        }
+
+        // Same bytes already stored by anyone: point at that object instead of uploading again
+        String storageKey = blobRepository.acquire(contentHash, LocalDateTime.now())
+                .map(Blob::getStorageKey)
+                .orElse(null);
+        if (storageKey == null) {
+            storageKey = newStorageKey(fileExtension);
+
+            // Upload to storage (local or R2)
+            storageService.upload(
+                    multipartFile.getInputStream(),
+                    storageKey,
+                    multipartFile.getContentType(),
+                    multipartFile.getSize()
+            );
+            storageKey = registerBlob(contentHash, storageKey, multipartFile.getSize());
+        } else {
+            log.info("Upload {} shares stored object {}", originalFileName, storageKey);
+        }
 
-        // Upload to storage (local or R2)
-        storageService.upload(
-                multipartFile.getInputStream(),
-                fileName,
-                multipartFile.getContentType(),
-                multipartFile.getSize()
-        );
+        String fileName = newStorageKey(fileExtension);
 
         // Get the file URL (for local: API endpoint, for R2: pre-signed URL will be generated on demand)
         String fileUrl = storageService.getFileUrl(fileName);
@@ -44,16 +88,104 @@ public class FileService {
         File file = File.builder()
                 .fileName(fileName)
                 .originalName(originalFileName)
-                .filePath(fileName) // Store just the key/fileName for both local and R2
+                .filePath(storageKey)
                 .fileUrl(fileUrl)
                 .fileSize(multipartFile.getSize())
                 .mimeType(multipartFile.getContentType())
                 .fileType(fileType)
                 .uploadedAt(LocalDateTime.now())
                 .uploadedBy(uploadedBy)
+                .contentHash(contentHash)
+                .refCount(1)
                 .build();
 
-        return fileRepository.save(file);
+        return register(file);
+    }
+
+    /**
+     * Register an object that was already written to storage (e.g. by a chunked upload).
+     * If the same content is stored already, the new object is dropped and the existing one shared.
+     *
+     * @param contentHash SHA-256 of the object, or null when unknown (the file is then not deduplicated)
+     */
+    public File registerStoredFile(String storageKey, String originalName, String contentType, long size,
+                                   String contentHash, FileType fileType, String uploadedBy) {
+        String fileName = storageKey;
+        if (contentHash != null) {
+            Optional<File> existing = acquireExisting(uploadedBy, contentHash);
+            if (existing.isPresent()) {
+                log.info("Deduplicated upload {} onto file {}", originalName, existing.get().getFileName());
+                deleteBlobAfterCommit(storageKey);
+                return existing.get();
+            }
+
+            Optional<Blob> shared = blobRepository.acquire(contentHash, LocalDateTime.now());
+            if (shared.isPresent()) {
+                log.info("Upload {} shares stored object {}", originalName, shared.get().getStorageKey());
+                deleteBlobAfterCommit(storageKey);
+                storageKey = shared.get().getStorageKey();
+            } else {
+                storageKey = registerBlob(contentHash, storageKey, size);
+            }
+            fileName = newStorageKey(getFileExtension(originalName));
+        }
+
+        File file = File.builder()
+                .fileName(fileName)
+                .originalName(originalName)
+                .filePath(storageKey)
+                .fileUrl(storageService.getFileUrl(fileName))
+                .fileSize(size)
+                .mimeType(contentType)
+                .fileType(fileType)
+                .uploadedAt(LocalDateTime.now())
+                .uploadedBy(uploadedBy)
+                .contentHash(contentHash)
+                .refCount(1)
+                .build();
+
+        return register(file);
+    }
+
+    /**
+     * Fresh, unguessable storage key. Every stored blob gets its own key, so deleting a released blob can
+     * never hit one that a later upload of the same content wrote.
+     */
+    public String newStorageKey(String extension) {
+        return UUID.randomUUID() + extension;
+    }
+
+    /**
+     * Record an object just written to storage. If the same content was recorded concurrently, that
+     * object wins: it gains a reference and the one just written is dropped.
+     *
+     * @return storage key of the object to point at
+     */
+    private String registerBlob(String contentHash, String storageKey, long size) {
+        Blob blob = blobRepository.insertOrAcquire(contentHash, storageKey, size, LocalDateTime.now());
+        if (!blob.getStorageKey().equals(storageKey)) {
+            log.debug("Lost insert race for blob {}, sharing existing object", contentHash);
+            deleteBlobAfterCommit(storageKey);
+        }
+        return blob.getStorageKey();
+    }
+
+    /**
+     * Insert the row for a file whose object is stored and referenced. If the same user stored the same
+     * content concurrently, their row wins: it gains a reference and the reference this row took on its
+     * object is given back.
+     */
+    private File register(File file) {
+        if (file.getContentHash() == null) {
+            return fileRepository.save(file);
+        }
+        file.setId(TimeOrderedIds.newId());
+        File registered = fileRepository.insertOrAcquire(file);
+        if (!registered.getFileName().equals(file.getFileName())) {
+            log.debug("Lost insert race for file {}, sharing existing row", file.getContentHash());
+            releaseStorage(file);
+        }
+        return registered;
     }
 
     /**
@@ -61,7 +193,17 @@ public class FileService {
      * Used internally for operations like digital signature.
      */
     public byte[] getFileBytes(String fileName) {
-        return storageService.download(fileName);
+        return storageService.download(resolveStorageKey(fileName));
+    }
+
+    /**
+     * Storage key of the object holding a file's bytes. Keys without a row (stored before files were
+     * recorded) are their own storage key.
+     */
+    public String resolveStorageKey(String fileName) {
+        return fileRepository.findFirstByFileName(fileName)
+                .map(File::getFilePath)
+                .orElse(fileName);
     }
 
     /**
@@ -80,16 +222,126 @@ public class FileService {
         return fileName.substring(fileName.lastIndexOf("."));
     }
 
+    /**
+     * Take one more reference on the file stored under the given storage key, e.g. for a template
+     * sharing a document's blob.
+     */
+    public File acquireByName(String fileName) {
+        File file = fileRepository.findFirstByFileName(fileName)
+                .orElseThrow(() -> new EntityNotFoundException("File not found"));
+        if (fileRepository.incrementRefCount(file.getId()) != 1) {
+            throw new EntityNotFoundException("File not found");
+        }
+        return file;
+    }
+
+    /**
+     * Take {@code count} references on a file in the caller's transaction.
+     * @return false if the file is gone or was already released
+     */
+    public boolean addReferences(String fileId, int count) {
+        return fileRepository.addReferences(fileId, count) == 1;
+    }
+
+    /**
+     * Drop one reference to a file. The blob and its row are removed once nothing refers to them.
+     */
     public void deleteFile(String fileId) {
-        fileRepository.findById(fileId).ifPresent(file -> {
+        fileRepository.findById(fileId).ifPresent(this::releaseFile);
+    }
+
+    /**
+     * Drop one reference to the file stored under the given storage key.
+     */
+    public void deleteFileByName(String fileName) {
+        fileRepository.findFirstByFileName(fileName).ifPresentOrElse(
+                this::releaseFile,
+                () -> log.warn("No file record for storage key: {}", fileName));
+    }
+
+    private void releaseFile(File file) {
+        try {
+            if (fileRepository.decrementRefCount(file.getId()) == 0) {
+                log.warn("File {} was already released", file.getId());
+                return;
+            }
+            // Row goes first: an upload racing with us either revives it (and this delete matches nothing)
+            // or misses it and takes its own reference on the object, which the release below then keeps
+            if (fileRepository.deleteIfUnreferenced(file.getId()) == 1) {
+                releaseStorage(file);
+                log.info("File released: {}", file.getId());
+            } else {
+                log.debug("File {} still referenced, keeping blob", file.getId());
+            }
+        } catch (Exception e) {
+            log.error("Error deleting file: {}", file.getId(), e);
+        }
+    }
+
+    /**
+     * Give back the reference a removed file row held on its stored object, deleting the object once no
+     * row points at it. Objects with no {@code blobs} row (stored before sharing, or without a content
+     * hash) belong to that file alone and are deleted right away.
+     */
+    public void releaseStorage(File file) {
+        String storageKey = file.getFilePath();
+        if (file.getContentHash() != null
+                && blobRepository.existsByContentHashAndStorageKey(file.getContentHash(), storageKey)) {
+            blobRepository.decrementRefCount(file.getContentHash(), storageKey, LocalDateTime.now());
+            // Conditional like the file row: an upload may have taken the object back in between
+            if (blobRepository.deleteIfUnreferenced(file.getContentHash(), storageKey) == 1) {
+                deleteBlobAfterCommit(storageKey);
+            }
+            return;
+        }
+        deleteBlobAfterCommit(storageKey);
+    }
+
+    /**
+     * Remove a blob once the caller's transaction has committed, so it neither waits on storage nor
+     * rolls back after the blob is already gone. Without a transaction it runs right away.
+     */
+    private void deleteBlobAfterCommit(String fileName) {
+        Runnable delete = () -> {
             try {
-                // Delete from storage
-                storageService.delete(file.getFileName());
-                fileRepository.delete(file);
-                log.info("File deleted: {}", fileId);
+                storageService.delete(fileName);
             } catch (Exception e) {
-                log.error("Error deleting file: {}", fileId, e);
+                // The orphan collector removes blobs left behind
+                log.error("Error deleting blob: {}", fileName, e);
             }
-        });
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+
+    private Optional<File> acquireExisting(String uploadedBy, String contentHash) {
+        return fileRepository.findByUploadedByAndContentHash(uploadedBy, contentHash)
+                .filter(file -> fileRepository.incrementRefCount(file.getId()) == 1)
+                .map(file -> {
+                    file.setRefCount(file.getRefCount() + 1);
+                    return file;
+                });
+    }
+
+    private String hashContent(MultipartFile multipartFile) throws IOException {
+        try (InputStream in = multipartFile.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
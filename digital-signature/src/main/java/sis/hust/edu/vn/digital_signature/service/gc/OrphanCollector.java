@@ -0,0 +1,272 @@
+package sis.hust.edu.vn.digital_signature.service.gc;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Blob;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.GcCheckpoint;
+import sis.hust.edu.vn.digital_signature.repository.crypto.DocumentSignatureRepository;
+import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
+import sis.hust.edu.vn.digital_signature.repository.file.BlobRepository;
+import sis.hust.edu.vn.digital_signature.repository.file.FileRepository;
+import sis.hust.edu.vn.digital_signature.repository.gc.GcCheckpointRepository;
+import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
+import sis.hust.edu.vn.digital_signature.repository.upload.UploadSessionRepository;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+import sis.hust.edu.vn.digital_signature.service.storage.StoredObject;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Background collector for rows and blobs that nothing refers to any more.
+ *
+ * Each phase walks its table (or the storage bucket) with keyset pagination, deletes one
+ * batch at a time with a pause in between, and stores its cursor in {@code gc_checkpoints}.
+ * A run processes at most {@code max-batches-per-run} batches per phase; the next run resumes
+ * from the saved cursor, and a phase that reaches the end starts over on the following run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanCollector {
+
+    static final String PHASE_FIELDS = "fields";
+    static final String PHASE_SIGNERS = "signers";
+    static final String PHASE_DOCUMENT_SIGNATURES = "document_signatures";
+    static final String PHASE_FILES = "files";
+    static final String PHASE_BLOBS = "blobs";
+    static final String PHASE_STORAGE = "storage";
+
+    private final FieldRepository fieldRepository;
+    private final SignerRepository signerRepository;
+    private final DocumentSignatureRepository documentSignatureRepository;
+    private final FileRepository fileRepository;
+    private final BlobRepository blobRepository;
+    private final FileService fileService;
+    private final GcCheckpointRepository checkpointRepository;
+    private final StorageService storageService;
+    private final UploadSessionRepository uploadSessionRepository;
+
+    @Value("${gc.orphans.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gc.orphans.storage-sweep-enabled:true}")
+    private boolean storageSweepEnabled;
+
+    @Value("${gc.orphans.batch-size:500}")
+    private int batchSize;
+
+    @Value("${gc.orphans.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${gc.orphans.pause-ms:200}")
+    private long pauseMillis;
+
+    // Uploads younger than this may still be waiting for their document/user row
+    @Value("${gc.orphans.grace-minutes:60}")
+    private long graceMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile OrphanGcReport lastReport;
+
+    @Scheduled(fixedDelayString = "${gc.orphans.interval-ms:3600000}",
+            initialDelayString = "${gc.orphans.initial-delay-ms:300000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Run one throttled pass over every phase. Returns the previous report if a pass is already running.
+     */
+    public OrphanGcReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Orphan collection already running, skipping");
+            return lastReport;
+        }
+
+        OrphanGcReport report = new OrphanGcReport(Instant.now());
+        try {
+            collectRows(PHASE_FIELDS, fieldRepository::findOrphanIdsAfter,
+                    fieldRepository::deleteAllByIdInBatch, report);
+            collectRows(PHASE_SIGNERS, signerRepository::findOrphanIdsAfter,
+                    signerRepository::deleteAllByIdInBatch, report);
+            collectRows(PHASE_DOCUMENT_SIGNATURES, documentSignatureRepository::findOrphanIdsAfter,
+                    documentSignatureRepository::deleteAllByIdInBatch, report);
+            collectFiles(report);
+            collectBlobs(report);
+            if (storageSweepEnabled) {
+                collectStorage(report);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.fail("Interrupted");
+        } catch (Exception e) {
+            log.error("Orphan collection failed", e);
+            report.fail(e.getMessage());
+        } finally {
+            report.finish(Instant.now());
+            lastReport = report;
+            running.set(false);
+        }
+
+        log.info("Orphan collection finished: deleted={}, completed={}", report.getDeleted(), report.getCompleted());
+        return report;
+    }
+
+    public OrphanGcReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void collectRows(String phase,
+                             BiFunction<String, Pageable, List<String>> findOrphanIds,
+                             Consumer<List<String>> deleteByIds,
+                             OrphanGcReport report) throws InterruptedException {
+        String cursor = loadCursor(phase);
+        boolean reachedEnd = false;
+
+        for (int batch = 0; batch < maxBatchesPerRun && !reachedEnd; batch++) {
+            List<String> ids = findOrphanIds.apply(cursor == null ? "" : cursor, PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                deleteByIds.accept(ids);
+                report.recordDeleted(phase, ids.size());
+                cursor = ids.get(ids.size() - 1);
+            }
+            reachedEnd = ids.size() < batchSize;
+            pause();
+        }
+
+        saveCursor(phase, reachedEnd ? null : cursor);
+        report.recordPhaseEnd(phase, reachedEnd);
+    }
+
+    private void collectFiles(OrphanGcReport report) throws InterruptedException {
+        String cursor = loadCursor(PHASE_FILES);
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        boolean reachedEnd = false;
+
+        for (int batch = 0; batch < maxBatchesPerRun && !reachedEnd; batch++) {
+            List<File> files = fileRepository.findUnreferencedAfter(cursor == null ? "" : cursor, cutoff,
+                    PageRequest.of(0, batchSize));
+            long deleted = 0;
+            for (File file : files) {
+                // Conditional: a deduplicated upload may have revived the row since the scan read it
+                if (fileRepository.deleteIfUnreferenced(file.getId()) == 1) {
+                    fileService.releaseStorage(file);
+                    deleted++;
+                }
+            }
+            if (!files.isEmpty()) {
+                report.recordDeleted(PHASE_FILES, deleted);
+                cursor = files.get(files.size() - 1).getId();
+            }
+            reachedEnd = files.size() < batchSize;
+            pause();
+        }
+
+        saveCursor(PHASE_FILES, reachedEnd ? null : cursor);
+        report.recordPhaseEnd(PHASE_FILES, reachedEnd);
+    }
+
+    private void collectBlobs(OrphanGcReport report) throws InterruptedException {
+        String cursor = loadCursor(PHASE_BLOBS);
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        boolean reachedEnd = false;
+
+        for (int batch = 0; batch < maxBatchesPerRun && !reachedEnd; batch++) {
+            List<Blob> blobs = blobRepository.findUnreferencedAfter(cursor == null ? "" : cursor, cutoff,
+                    PageRequest.of(0, batchSize));
+            long deleted = 0;
+            for (Blob blob : blobs) {
+                // Conditional: an upload of the same content may have revived the object since the scan
+                if (blobRepository.deleteIfUnreferenced(blob.getContentHash(), blob.getStorageKey()) == 1) {
+                    storageService.delete(blob.getStorageKey());
+                    deleted++;
+                }
+            }
+            if (!blobs.isEmpty()) {
+                report.recordDeleted(PHASE_BLOBS, deleted);
+                cursor = blobs.get(blobs.size() - 1).getContentHash();
+            }
+            reachedEnd = blobs.size() < batchSize;
+            pause();
+        }
+
+        saveCursor(PHASE_BLOBS, reachedEnd ? null : cursor);
+        report.recordPhaseEnd(PHASE_BLOBS, reachedEnd);
+    }
+
+    private void collectStorage(OrphanGcReport report) throws InterruptedException {
+        String cursor = loadCursor(PHASE_STORAGE);
+        Instant cutoff = Instant.now().minus(graceMinutes, ChronoUnit.MINUTES);
+        boolean reachedEnd = false;
+
+        for (int batch = 0; batch < maxBatchesPerRun && !reachedEnd; batch++) {
+            List<StoredObject> objects = storageService.list(cursor, batchSize);
+            if (!objects.isEmpty()) {
+                List<String> keys = objects.stream().map(StoredObject::getKey).collect(Collectors.toList());
+                Set<String> known = new HashSet<>(fileRepository.findExistingFilePaths(keys));
+                known.addAll(blobRepository.findExistingStorageKeys(keys));
+                // Half-written chunked uploads have no files row until they are finalized
+                known.addAll(uploadSessionRepository.findStorageKeysByStatus(UploadStatus.UPLOADING, keys));
+                long deleted = 0;
+                for (StoredObject object : objects) {
+                    // Recent blobs may belong to an upload whose row is not committed yet
+                    if (!known.contains(object.getKey()) && object.getLastModified().isBefore(cutoff)) {
+                        storageService.delete(object.getKey());
+                        deleted++;
+                    }
+                }
+                report.recordDeleted(PHASE_STORAGE, deleted);
+                cursor = keys.get(keys.size() - 1);
+            }
+            reachedEnd = objects.size() < batchSize;
+            pause();
+        }
+
+        saveCursor(PHASE_STORAGE, reachedEnd ? null : cursor);
+        report.recordPhaseEnd(PHASE_STORAGE, reachedEnd);
+    }
+
+    private String loadCursor(String phase) {
+        return checkpointRepository.findById(phase)
+                .map(GcCheckpoint::getCursorKey)
+                .orElse(null);
+    }
+
+    private void saveCursor(String phase, String cursor) {
+        checkpointRepository.save(GcCheckpoint.builder()
+                .phase(phase)
+                .cursorKey(cursor)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private void pause() throws InterruptedException {
+        if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+    }
+}
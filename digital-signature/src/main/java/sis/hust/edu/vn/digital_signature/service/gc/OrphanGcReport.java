@@ -0,0 +1,46 @@
+package sis.hust.edu.vn.digital_signature.service.gc;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one orphan collector run, exposed through the {@code orphangc} actuator endpoint.
+ */
+@Getter
+public class OrphanGcReport {
+
+    private final Instant startedAt;
+
+    private Instant finishedAt;
+
+    private final Map<String, Long> deleted = new LinkedHashMap<>();
+
+    /** Phases whose scan reached the end of the table/bucket during this run. */
+    private final Map<String, Boolean> completed = new LinkedHashMap<>();
+
+    private String error;
+
+    public OrphanGcReport(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    void recordDeleted(String phase, long count) {
+        deleted.merge(phase, count, Long::sum);
+    }
+
+    void recordPhaseEnd(String phase, boolean reachedEnd) {
+        deleted.putIfAbsent(phase, 0L);
+        completed.put(phase, reachedEnd);
+    }
+
+    void fail(String error) {
+        this.error = error;
+    }
+
+    void finish(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,140 @@
+package sis.hust.edu.vn.digital_signature.service.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.entity.enums.IdempotencyStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.IdempotencyRecord;
+import sis.hust.edu.vn.digital_signature.repository.idempotency.IdempotencyRecordRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Storage side of the {@code Idempotency-Key} layer: claims keys, stores finished responses for
+ * {@code idempotency.ttl-hours} and hands them back to retries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository repository;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // How long a claimed key may stay in progress before another instance may take it over
+    @Value("${idempotency.lock-seconds:120}")
+    private long lockSeconds;
+
+    public enum ClaimResult {
+        /** The caller owns the key and must execute the request, then complete or release it. */
+        CLAIMED,
+        /** A stored response for the same request exists. */
+        REPLAY,
+        /** The key was used for a different request. */
+        MISMATCH,
+        /** Another instance is executing the request right now. */
+        IN_PROGRESS
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Claim {
+        private final ClaimResult result;
+        private final StoredResponse response;
+        /** When CLAIMED: the lease to complete or release the key with. */
+        private final LocalDateTime lease;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StoredResponse {
+        private final String fingerprint;
+        private final int status;
+        private final String contentType;
+        private final String body;
+    }
+
+    public Claim claim(String id, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        // Matched for equality later: at the precision the database stores it with
+        LocalDateTime lease = now.plusSeconds(lockSeconds).truncatedTo(ChronoUnit.MICROS);
+        if (repository.insertIfAbsent(id, fingerprint, lease, now.plusHours(ttlHours), now) == 1) {
+            return new Claim(ClaimResult.CLAIMED, null, lease);
+        }
+
+        Optional<IdempotencyRecord> found = repository.findById(id);
+        if (found.isEmpty()) {
+            // Purged between the insert and the read
+            return claim(id, fingerprint);
+        }
+        IdempotencyRecord record = found.get();
+
+        boolean expired = record.getExpiresAt().isBefore(now);
+        boolean abandoned = record.getStatus() == IdempotencyStatus.IN_PROGRESS
+                && record.getLockedUntil() != null && record.getLockedUntil().isBefore(now);
+        if (expired || abandoned) {
+            // Later than the abandoned lease, so its holder's complete and release no longer match
+            if (repository.takeOver(id, fingerprint, lease, now.plusHours(ttlHours), now) == 1) {
+                return new Claim(ClaimResult.CLAIMED, null, lease);
+            }
+            return new Claim(ClaimResult.IN_PROGRESS, null, null);
+        }
+
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return new Claim(ClaimResult.MISMATCH, null, null);
+        }
+        if (record.getStatus() == IdempotencyStatus.IN_PROGRESS) {
+            return new Claim(ClaimResult.IN_PROGRESS, null, null);
+        }
+        return new Claim(ClaimResult.REPLAY, new StoredResponse(
+                record.getFingerprint(), record.getResponseStatus(), record.getContentType(), record.getResponseBody()),
+                null);
+    }
+
+    /**
+     * Store the response of a claim; false if the lease ran out and another instance took the key over,
+     * whose outcome then wins.
+     */
+    public boolean complete(String id, LocalDateTime lease, StoredResponse response) {
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.complete(id, lease, response.getStatus(), response.getContentType(), response.getBody(),
+                now.plusHours(ttlHours), now) == 0) {
+            leaseLost(id);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forget a claim whose outcome must not be replayed (server error, rate limit, exception),
+     * so the next retry executes again. False if the key was taken over meanwhile; it is left alone.
+     */
+    public boolean release(String id, LocalDateTime lease) {
+        if (repository.release(id, lease) == 0) {
+            leaseLost(id);
+            return false;
+        }
+        return true;
+    }
+
+    private void leaseLost(String id) {
+        log.warn("Lost the lease on idempotency key {}, dropping this execution's outcome", id);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${idempotency.purge-initial-delay-ms:600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+}
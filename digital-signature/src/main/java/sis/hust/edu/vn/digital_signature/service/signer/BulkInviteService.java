@@ -0,0 +1,225 @@
+package sis.hust.edu.vn.digital_signature.service.signer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.dto.signer.BulkInviteResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.BulkInviteRowError;
+import sis.hust.edu.vn.digital_signature.dto.signer.InviteSignersRequest;
+import sis.hust.edu.vn.digital_signature.dto.signer.InviteSignersResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.SignerRequest;
+import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.Field;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
+import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
+import sis.hust.edu.vn.digital_signature.util.csv.CsvReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Invite signers from a CSV file with the columns {@code email,name,order,fields}
+ * ({@code order} optional, defaults to the row position; {@code fields} is a {@code ;}-separated list of field ids).
+ *
+ * The file is read in a single pass without a transaction. Every row is validated; if any is invalid nothing
+ * is invited and the per-row errors are returned. Otherwise all rows go through {@link SignerService#inviteSigners}
+ * in one transaction, where signers and field assignments are written in JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkInviteService {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final DocumentRepository documentRepository;
+    private final FieldRepository fieldRepository;
+    private final SignerService signerService;
+
+    @Value("${signing.bulk-invite.max-rows:2000}")
+    private int maxRows;
+
+    @Value("${signing.bulk-invite.max-errors:200}")
+    private int maxErrors;
+
+    public BulkInviteResponse inviteFromCsv(String documentId, InputStream csv, String ownerId) throws IOException {
+        // Fail fast before reading the file; inviteSigners checks both again inside its transaction
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new EntityNotFoundException("Document not found"));
+        if (!document.getStatus().canTransitionTo(DocumentStatus.SIGNING)) {
+            throw new BusinessException("Cannot invite signers to document with status: " + document.getStatus());
+        }
+        if (!document.getOwnerId().equals(ownerId)) {
+            throw new BusinessException("Only document owner can invite signers");
+        }
+
+        Set<String> documentFieldIds = fieldRepository.findByDocumentId(documentId).stream()
+                .map(Field::getId)
+                .collect(Collectors.toSet());
+
+        ParseResult parsed = parse(csv, documentFieldIds);
+        BulkInviteResponse.BulkInviteResponseBuilder response = BulkInviteResponse.builder()
+                .totalRows(parsed.totalRows)
+                .errors(parsed.errors)
+                .errorsTruncated(parsed.errorsTruncated);
+
+        if (parsed.errorCount > 0) {
+            log.info("Bulk invite for document {} rejected: {} invalid rows", documentId, parsed.errorCount);
+            return response.document(document).build();
+        }
+        if (parsed.signers.isEmpty()) {
+            throw new BusinessException("The CSV file contains no signers");
+        }
+
+        InviteSignersResponse invited = signerService.inviteSigners(documentId, InviteSignersRequest.builder()
+                .signers(parsed.signers)
+                .fieldAssignments(parsed.fieldAssignments)
+                .build(), ownerId);
+
+        log.info("Bulk invited {} signers to document {}", parsed.signers.size(), documentId);
+        return response
+                .document(invited.getDocument())
+                .invitedCount(invited.getSigners().size())
+                .assignedFieldCount(parsed.fieldAssignments.size())
+                .build();
+    }
+
+    private ParseResult parse(InputStream csv, Set<String> documentFieldIds) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8), MAX_RECORD_LENGTH);
+        Map<String, Integer> columns = readHeader(reader);
+        int emailColumn = columns.get("email");
+        int nameColumn = columns.get("name");
+        Integer orderColumn = columns.get("order");
+        Integer fieldsColumn = columns.get("fields");
+
+        ParseResult result = new ParseResult();
+        Set<String> seenEmails = new HashSet<>();
+        Map<String, Long> fieldOwnerRow = new HashMap<>();
+
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            if (record.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            long row = ++result.totalRows;
+            if (row > maxRows) {
+                throw new BusinessException("A CSV invite can contain at most " + maxRows + " signers");
+            }
+
+            String email = value(record, emailColumn);
+            String name = value(record, nameColumn);
+            List<String> rowErrors = new ArrayList<>();
+
+            if (email.isEmpty()) {
+                rowErrors.add("email is required");
+            } else if (!EMAIL_PATTERN.matcher(email).matches()) {
+                rowErrors.add("email is not valid");
+            } else if (!seenEmails.add(email.toLowerCase(Locale.ROOT))) {
+                rowErrors.add("duplicate email");
+            }
+
+            if (name.isEmpty()) {
+                rowErrors.add("name is required");
+            } else if (name.length() > MAX_NAME_LENGTH) {
+                rowErrors.add("name is longer than " + MAX_NAME_LENGTH + " characters");
+            }
+
+            int order = (int) row;
+            String orderValue = orderColumn != null ? value(record, orderColumn) : "";
+            if (!orderValue.isEmpty()) {
+                try {
+                    order = Integer.parseInt(orderValue);
+                    if (order < 1) {
+                        rowErrors.add("order must be 1 or greater");
+                    }
+                } catch (NumberFormatException e) {
+                    rowErrors.add("order is not a number");
+                }
+            }
+
+            List<String> fieldIds = new ArrayList<>();
+            String fieldsValue = fieldsColumn != null ? value(record, fieldsColumn) : "";
+            for (String fieldId : fieldsValue.split(";")) {
+                fieldId = fieldId.trim();
+                if (fieldId.isEmpty()) {
+                    continue;
+                }
+                if (!documentFieldIds.contains(fieldId)) {
+                    rowErrors.add("field " + fieldId + " does not belong to this document");
+                } else if (fieldOwnerRow.putIfAbsent(fieldId, row) != null) {
+                    rowErrors.add("field " + fieldId + " is already assigned in row " + fieldOwnerRow.get(fieldId));
+                } else {
+                    fieldIds.add(fieldId);
+                }
+            }
+
+            if (!rowErrors.isEmpty()) {
+                result.addError(row, email, String.join("; ", rowErrors), maxErrors);
+                continue;
+            }
+            // Rows are only kept while the file is still valid: once an error is found, nothing is invited
+            if (result.errorCount == 0) {
+                result.signers.add(SignerRequest.builder().email(email).name(name).order(order).build());
+                fieldIds.forEach(fieldId -> result.fieldAssignments.put(fieldId, email));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> readHeader(CsvReader reader) throws IOException {
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            throw new BusinessException("The CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("email") || !columns.containsKey("name")) {
+            throw new BusinessException("The CSV header must contain the columns email and name (optional: order, fields)");
+        }
+        return columns;
+    }
+
+    private String value(List<String> record, int column) {
+        return column < record.size() ? record.get(column).trim() : "";
+    }
+
+    private static class ParseResult {
+        private final List<SignerRequest> signers = new ArrayList<>();
+        private final Map<String, String> fieldAssignments = new LinkedHashMap<>();
+        private final List<BulkInviteRowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long errorCount;
+        private boolean errorsTruncated;
+
+        private void addError(long row, String email, String message, int maxErrors) {
+            errorCount++;
+            signers.clear();
+            fieldAssignments.clear();
+            if (errors.size() < maxErrors) {
+                errors.add(BulkInviteRowError.builder().row(row).email(email).message(message).build());
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
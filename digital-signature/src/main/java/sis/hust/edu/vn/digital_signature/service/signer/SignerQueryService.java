@@ -0,0 +1,93 @@
+package sis.hust.edu.vn.digital_signature.service.signer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import sis.hust.edu.vn.digital_signature.dto.signer.SignerResponse;
+import sis.hust.edu.vn.digital_signature.dto.signer.SignerSummary;
+import sis.hust.edu.vn.digital_signature.entity.enums.SignerStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
+import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Signer lists for the document detail and signing session reads.
+ * Only the first {@code signing.display-signer-limit} signers are returned inline, with a per-status
+ * summary; the status counts cost an extra query only when the list was actually cut.
+ */
+@Service
+@RequiredArgsConstructor
+public class SignerQueryService {
+
+    private final SignerRepository signerRepository;
+
+    @Value("${frontend.url:http://localhost:5556}")
+    private String frontendUrl;
+
+    @Value("${signing.display-signer-limit:50}")
+    private int displaySignerLimit;
+
+    public DisplaySigners loadDisplaySigners(String documentId) {
+        List<Signer> signers = signerRepository.findOrderedByDocumentId(
+                documentId, PageRequest.of(0, displaySignerLimit + 1));
+
+        SignerSummary summary;
+        if (signers.size() > displaySignerLimit) {
+            signers = signers.subList(0, displaySignerLimit);
+            summary = summarize(signerRepository.countByStatus(documentId));
+        } else {
+            summary = SignerSummary.builder()
+                    .total(signers.size())
+                    .pending(count(signers, SignerStatus.PENDING))
+                    .signed(count(signers, SignerStatus.SIGNED))
+                    .declined(count(signers, SignerStatus.DECLINED))
+                    .build();
+        }
+
+        return new DisplaySigners(toResponses(signers), summary);
+    }
+
+    public Page<SignerResponse> pageSigners(String documentId, Pageable pageable) {
+        return signerRepository.findPageByDocumentId(documentId, pageable).map(this::toResponse);
+    }
+
+    public SignerResponse toResponse(Signer signer) {
+        return SignerResponse.of(signer, frontendUrl + "/signing/" + signer.getToken());
+    }
+
+    private List<SignerResponse> toResponses(List<Signer> signers) {
+        return signers.stream().map(this::toResponse).collect(Collectors.toList());
+    }
+
+    private SignerSummary summarize(List<Object[]> statusCounts) {
+        SignerSummary summary = SignerSummary.builder().truncated(true).build();
+        for (Object[] row : statusCounts) {
+            long count = (Long) row[1];
+            summary.setTotal(summary.getTotal() + count);
+            switch ((SignerStatus) row[0]) {
+                case PENDING -> summary.setPending(count);
+                case SIGNED -> summary.setSigned(count);
+                case DECLINED -> summary.setDeclined(count);
+            }
+        }
+        return summary;
+    }
+
+    private long count(List<Signer> signers, SignerStatus status) {
+        return signers.stream().filter(signer -> signer.getStatus() == status).count();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DisplaySigners {
+        private final List<SignerResponse> signers;
+        private final SignerSummary summary;
+    }
+}
@@ -3,8 +3,11 @@ package sis.hust.edu.vn.digital_signature.service.signer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEventType;
 import sis.hust.edu.vn.digital_signature.dto.signer.*;
 import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
 import sis.hust.edu.vn.digital_signature.entity.enums.SignerStatus;
@@ -16,12 +19,15 @@ import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundExceptio
 import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
 import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
 import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
-import sis.hust.edu.vn.digital_signature.service.crypto.DigitalSignatureService;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
+import sis.hust.edu.vn.digital_signature.service.crypto.SignatureOutboxService;
+import sis.hust.edu.vn.digital_signature.service.email.EmailService;
+import sis.hust.edu.vn.digital_signature.service.event.DocumentEventPublisher;
 import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,8 +38,11 @@ public class SignerService {
     private final SignerRepository signerRepository;
     private final DocumentRepository documentRepository;
     private final FieldRepository fieldRepository;
-    private final DigitalSignatureService digitalSignatureService;
+    private final SignatureOutboxService signatureOutboxService;
     private final StorageService storageService;
+    private final SignerQueryService signerQueryService;
+    private final DocumentEventPublisher documentEventPublisher;
+    private final EmailService emailService;
 
     @Value("${frontend.url:http://localhost:5556}")
     private String frontendUrl;
@@ -44,7 +53,7 @@ public class SignerService {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new EntityNotFoundException("Document not found"));
 
-        if (document.getStatus() != DocumentStatus.DRAFT) {
+        if (!document.getStatus().canTransitionTo(DocumentStatus.SIGNING)) {
             throw new BusinessException("Cannot invite signers to document with status: " + document.getStatus());
         }
 
@@ -52,14 +61,17 @@ public class SignerService {
             throw new BusinessException("Only document owner can invite signers");
         }
 
-        // Update document status to SIGNING
+        // Update document status to SIGNING; each completion counts down pendingSigners
+        // (a concurrent invite on the same draft fails on the version check)
         document.setStatus(DocumentStatus.SIGNING);
+        document.setPendingSigners(request.getSigners().size());
         document = documentRepository.save(document);
+        documentEventPublisher.publish(DocumentEvent.of(DocumentEventType.DOCUMENT_SENT, document, null));
 
         // Create Signer records with token
         List<Signer> signers = request.getSigners().stream()
                 .map(signerRequest -> {
-                    String token = UUID.randomUUID().toString();
+                    String token = SecureTokens.newToken();
                     return Signer.builder()
                             .documentId(documentId)
                             .email(signerRequest.getEmail())
@@ -72,6 +84,8 @@ public class SignerService {
                 .collect(Collectors.toList());
 
         List<Signer> savedSigners = signerRepository.saveAll(signers);
+        // Invitations are queued in this transaction and sent by the mail workers after commit
+        emailService.sendSignerInvites(document.getTitle(), savedSigners);
 
         // Assign fields to signers based on fieldAssignments (fieldId -> signerEmail)
         if (request.getFieldAssignments() != null && !request.getFieldAssignments().isEmpty()) {
@@ -79,21 +93,15 @@ public class SignerService {
             java.util.Map<String, String> emailToSignerId = savedSigners.stream()
                     .collect(Collectors.toMap(Signer::getEmail, Signer::getId));
 
-            for (java.util.Map.Entry<String, String> entry : request.getFieldAssignments().entrySet()) {
-                String fieldId = entry.getKey();
-                String signerEmail = entry.getValue();
-
-                // Find the signer ID for this email
-                String signerId = emailToSignerId.get(signerEmail);
-                if (signerId != null) {
-                    // Update the field with the signer ID
-                    Field field = fieldRepository.findById(fieldId).orElse(null);
-                    if (field != null && field.getDocumentId().equals(documentId)) {
-                        field.setSignerId(signerId);
-                        fieldRepository.save(field);
-                    }
-                }
-            }
+            // One IN query for the fields, then updates sent in JDBC batches (hibernate.jdbc.batch_size),
+            // so inviting hundreds of signers does not cost a statement round trip per signer
+            List<Field> assignedFields = fieldRepository.findAllById(request.getFieldAssignments().keySet()).stream()
+                    .filter(field -> field.getDocumentId().equals(documentId))
+                    .filter(field -> emailToSignerId.containsKey(request.getFieldAssignments().get(field.getId())))
+                    .collect(Collectors.toList());
+            assignedFields.forEach(field ->
+                    field.setSignerId(emailToSignerId.get(request.getFieldAssignments().get(field.getId()))));
+            fieldRepository.saveAll(assignedFields);
         }
 
         // Generate signingUrl for each signer
@@ -124,13 +132,13 @@ public class SignerService {
     }
 
     public SigningSessionResponse getSigningSession(String token) {
-        // Find signer by token
-        Signer signer = signerRepository.findByToken(token)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid signing token"));
-
-        // Get document first to check document-level status
-        Document document = documentRepository.findById(signer.getDocumentId())
-                .orElseThrow(() -> new EntityNotFoundException("Document not found"));
+        // Signer, document and the signer's fields in one round trip
+        List<Object[]> rows = signerRepository.findSigningSessionRows(token);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("Invalid signing token");
+        }
+        Signer signer = (Signer) rows.get(0)[0];
+        Document document = (Document) rows.get(0)[1];
 
         // Check document status - if document is DECLINED or DONE, signing is not allowed
         if (document.getStatus() == DocumentStatus.DECLINED) {
@@ -154,56 +162,24 @@ public class SignerService {
             throw new BusinessException("Signing session is no longer available. Status: " + signer.getStatus());
         }
 
-        // Get fields assigned to this signer
-        List<Field> fields = fieldRepository.findBySignerId(signer.getId());
-
-        // Get all signers for display
-        List<Signer> allSigners = signerRepository.findByDocumentId(signer.getDocumentId());
-        List<SignerResponse> allSignerResponses = allSigners.stream()
-                .map(s -> {
-                    String signingUrl = frontendUrl + "/signing/" + s.getToken();
-                    return SignerResponse.builder()
-                            .id(s.getId())
-                            .documentId(s.getDocumentId())
-                            .email(s.getEmail())
-                            .name(s.getName())
-                            .order(s.getOrder())
-                            .status(s.getStatus().name())
-                            .signingUrl(signingUrl)
-                            .signedAt(s.getSignedAt())
-                            .declinedAt(s.getDeclinedAt())
-                            .declineReason(s.getDeclineReason())
-                            .createdAt(s.getCreatedAt())
-                            .updatedAt(s.getUpdatedAt())
-                            .build();
-                })
+        // Fields assigned to this signer (a single null when there are none)
+        List<Field> fields = rows.stream()
+                .map(row -> (Field) row[2])
+                .filter(java.util.Objects::nonNull)
                 .collect(Collectors.toList());
 
-        // Build signer response
-        String signingUrl = frontendUrl + "/signing/" + signer.getToken();
-        SignerResponse signerResponse = SignerResponse.builder()
-                .id(signer.getId())
-                .documentId(signer.getDocumentId())
-                .email(signer.getEmail())
-                .name(signer.getName())
-                .order(signer.getOrder())
-                .status(signer.getStatus().name())
-                .signingUrl(signingUrl)
-                .signedAt(signer.getSignedAt())
-                .declinedAt(signer.getDeclinedAt())
-                .declineReason(signer.getDeclineReason())
-                .createdAt(signer.getCreatedAt())
-                .updatedAt(signer.getUpdatedAt())
-                .build();
+        // Signers for display, capped for large documents (second round trip)
+        SignerQueryService.DisplaySigners displaySigners = signerQueryService.loadDisplaySigners(signer.getDocumentId());
 
         // Refresh fileUrl to ensure it's always a valid proxy URL
         document.setFileUrl(refreshFileUrl(document.getFileUrl()));
 
         return SigningSessionResponse.builder()
                 .document(document)
-                .signer(signerResponse)
+                .signer(signerQueryService.toResponse(signer))
                 .fields(fields)
-                .allSigners(allSignerResponses)
+                .allSigners(displaySigners.getSigners())
+                .signerSummary(displaySigners.getSummary())
                 .build();
     }
 
@@ -218,67 +194,66 @@ public class SignerService {
                     .orElseThrow(() -> new EntityNotFoundException("Invalid signing token"));
             log.debug("Found signer: {} ({})", signer.getName(), signer.getEmail());
 
-            if (signer.getStatus() != SignerStatus.PENDING) {
+            if (!signer.getStatus().canTransitionTo(SignerStatus.SIGNED)) {
                 throw new BusinessException("Signing session is no longer available. Status: " + signer.getStatus());
             }
 
-            // Update field values
+            // Update field values: one IN query to load, batched UPDATEs on flush
             log.debug("Step 2: Updating {} field values", request.getFieldValues().size());
+            java.util.Map<String, Field> fieldsById = fieldRepository.findAllById(
+                            request.getFieldValues().stream().map(FieldValue::getFieldId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Field::getId, field -> field));
+
             for (FieldValue fieldValue : request.getFieldValues()) {
-                Field field = fieldRepository.findById(fieldValue.getFieldId())
-                        .orElseThrow(() -> new EntityNotFoundException("Field not found: " + fieldValue.getFieldId()));
-                
+                Field field = fieldsById.get(fieldValue.getFieldId());
+                if (field == null) {
+                    throw new EntityNotFoundException("Field not found: " + fieldValue.getFieldId());
+                }
+
                 // Validate field belongs to this signer
-                if (!field.getSignerId().equals(signer.getId())) {
+                if (!signer.getId().equals(field.getSignerId())) {
                     throw new BusinessException("Field does not belong to this signer");
                 }
-                
+
                 field.setValue(fieldValue.getValue());
-                fieldRepository.save(field);
             }
+            fieldRepository.saveAll(fieldsById.values());
             log.debug("Field values updated successfully");
 
-            // Get document for digital signature
-            log.debug("Step 3: Getting document");
-            Document document = documentRepository.findById(signer.getDocumentId())
-                    .orElseThrow(() -> new EntityNotFoundException("Document not found"));
-            log.debug("Found document: {} (URL: {})", document.getTitle(), document.getFileUrl());
-
-            // === PKI: Create Digital Signature ===
-            // This creates a cryptographic signature using the signer's RSA private key
-            // Only works for registered users (external signers won't have digital signatures)
-            log.debug("Step 4: Creating digital signature");
-            try {
-                digitalSignatureService.createDigitalSignature(
-                        document.getId(),
-                        signer.getId(),
-                        signer.getEmail(),
-                        document.getFileUrl()
-                );
-                log.debug("Digital signature created successfully");
-            } catch (Exception e) {
-                log.warn("Failed to create digital signature for signer {}: {}", 
-                        signer.getEmail(), e.getMessage());
-                // Continue with signing even if digital signature fails
-                // This allows external signers (without accounts) to still complete signing
-            }
-
             // Update signer status = SIGNED, signedAt = now
-            log.debug("Step 5: Updating signer status to SIGNED");
+            // (flushed now: a concurrent submit for the same signer fails on the version check)
+            log.debug("Step 3: Updating signer status to SIGNED");
             signer.setStatus(SignerStatus.SIGNED);
             signer.setSignedAt(LocalDateTime.now());
-            signer = signerRepository.save(signer);
+            signer.setDigitalSignatureStatus(DigitalSignatureStatus.PENDING);
+            signer = signerRepository.saveAndFlush(signer);
             log.debug("Signer status updated");
 
-            // Check if all signers signed → update document status = DONE, completedAt = now
-            log.debug("Step 6: Checking if all signers have signed");
-            long totalSigners = signerRepository.countByDocumentIdAndStatus(document.getId(), SignerStatus.PENDING);
-            if (totalSigners == 0) {
-                // All signers have signed
-                log.debug("All signers have signed, updating document status to DONE");
-                document.setStatus(DocumentStatus.DONE);
-                document.setCompletedAt(LocalDateTime.now());
-                document = documentRepository.save(document);
+            // Count this signer off the document; the last one moves it to DONE in the same statement
+            log.debug("Step 4: Decrementing pending signers");
+            int remaining = countDownPendingSigners(signer.getDocumentId());
+            log.debug("{} signers still pending", remaining);
+
+            // Read after the update so the response shows the new status
+            Document document = documentRepository.findById(signer.getDocumentId())
+                    .orElseThrow(() -> new EntityNotFoundException("Document not found"));
+
+            // === PKI: Create Digital Signature ===
+            // Recorded in the signature outbox within this transaction and created by a background worker
+            // (download + RSA sign); unregistered signers end up SKIPPED there
+            log.debug("Step 5: Queueing digital signature");
+            signatureOutboxService.enqueue(
+                    document.getId(),
+                    signer.getId(),
+                    signer.getEmail(),
+                    document.getFileUrl()
+            );
+
+            // Pushed to the owner's event streams once this transaction commits
+            documentEventPublisher.publish(DocumentEvent.of(DocumentEventType.SIGNER_SIGNED, document, signer));
+            if (remaining == 0) {
+                documentEventPublisher.publish(DocumentEvent.of(DocumentEventType.DOCUMENT_COMPLETED, document, null));
             }
 
             // Build response
@@ -305,7 +280,7 @@ public class SignerService {
                     .document(document)
                     .build();
                     
-        } catch (EntityNotFoundException | BusinessException e) {
+        } catch (EntityNotFoundException | BusinessException | OptimisticLockingFailureException e) {
             log.error("=== completeSigning FAILED (Business Error): {} ===", e.getMessage());
             throw e;
         } catch (Exception e) {
@@ -330,7 +305,7 @@ public class SignerService {
                 .orElseThrow(() -> new EntityNotFoundException("Invalid signing token")); //
 
         // 2. Validate status = PENDING (chỉ cho phép từ chối khi đang chờ ký)
-        if (signer.getStatus() != SignerStatus.PENDING) {
+        if (!signer.getStatus().canTransitionTo(SignerStatus.DECLINED)) {
             throw new BusinessException("Signing session is no longer available. Status: " + signer.getStatus()); //
         }
 
@@ -344,17 +319,19 @@ public class SignerService {
         signer.setStatus(SignerStatus.DECLINED); //
         signer.setDeclinedAt(LocalDateTime.now()); //
         signer.setDeclineReason(request.getReason()); //
-        signer = signerRepository.save(signer); //
+        signer = signerRepository.saveAndFlush(signer); //
+
+        // 5. Update Document (Status -> DECLINED), only while it is still SIGNING:
+        // a completion that already moved it to DONE wins and this decline rolls back
+        int declined = documentRepository.declineIfSigning(
+                signer.getDocumentId(), signer.getId(), request.getReason(), LocalDateTime.now());
+        if (declined == 0) {
+            throw new BusinessException("This document is no longer open for signing.");
+        }
 
-        // 5. Update Document (Status -> DECLINED)
         Document document = documentRepository.findById(signer.getDocumentId())
                 .orElseThrow(() -> new EntityNotFoundException("Document not found")); //
-
-        document.setStatus(DocumentStatus.DECLINED); //
-        document.setDeclinedAt(LocalDateTime.now()); //
-        document.setDeclinedBy(signer.getId()); //
-        document.setDeclineReason(request.getReason()); //
-        document = documentRepository.save(document); //
+        documentEventPublisher.publish(DocumentEvent.of(DocumentEventType.SIGNER_DECLINED, document, signer));
 
         // 6. Build response
         String signingUrl = frontendUrl + "/signing/" + signer.getToken(); //
@@ -385,7 +362,7 @@ public class SignerService {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new EntityNotFoundException("Document not found"));
 
-        if (document.getStatus() != DocumentStatus.DRAFT) {
+        if (!document.getStatus().canTransitionTo(DocumentStatus.SIGNING)) {
             throw new BusinessException("Cannot self-sign document with status: " + document.getStatus());
         }
 
@@ -425,7 +402,7 @@ public class SignerService {
         }
 
         // Create new signer for owner
-        String token = UUID.randomUUID().toString();
+        String token = SecureTokens.newToken();
         Signer signer = Signer.builder()
                 .documentId(documentId)
                 .email(ownerEmail)
@@ -438,15 +415,13 @@ public class SignerService {
         signer = signerRepository.save(signer);
 
         // Assign all unassigned fields to this signer
-        List<Field> unassignedFields = fieldRepository.findByDocumentIdAndSignerIdIsNull(documentId);
-        for (Field field : unassignedFields) {
-            field.setSignerId(signer.getId());
-            fieldRepository.save(field);
-        }
+        fieldRepository.assignUnassigned(documentId, signer.getId(), LocalDateTime.now());
 
-        // Update document status to SIGNING
+        // Update document status to SIGNING with the owner as the only pending signer
         document.setStatus(DocumentStatus.SIGNING);
+        document.setPendingSigners(1);
         documentRepository.save(document);
+        documentEventPublisher.publish(DocumentEvent.of(DocumentEventType.DOCUMENT_SENT, document, null));
 
         // Build response
         String signingUrl = frontendUrl + "/signing/" + token;
@@ -471,6 +446,36 @@ public class SignerService {
                 .build();
     }
 
+    /**
+     * Atomically count one completed signer off the document and return how many are still pending.
+     * Documents sent before the counter existed get it backfilled from their signer rows first.
+     */
+    private int countDownPendingSigners(String documentId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> remaining = documentRepository.decrementPendingSigners(documentId, now);
+        if (!remaining.isEmpty()) {
+            return remaining.get(0);
+        }
+
+        List<Integer> initialized = documentRepository.initializePendingSigners(documentId);
+        if (!initialized.isEmpty()) {
+            if (initialized.get(0) == 0) {
+                documentRepository.completeIfNoPendingSigners(documentId, now);
+            }
+            return initialized.get(0);
+        }
+
+        // A concurrent completion backfilled the counter between our two statements. Our signer row was not
+        // committed yet, so it counted us as pending: count ourselves off the counter it set
+        remaining = documentRepository.decrementPendingSigners(documentId, now);
+        if (!remaining.isEmpty()) {
+            return remaining.get(0);
+        }
+
+        // Not SIGNING any more, e.g. declined by another signer a moment ago
+        throw new BusinessException("This document is no longer open for signing.");
+    }
+
     /**
      * Extract fileName from any URL format and generate fresh proxy URL.
      * Handles both old R2 presigned URLs and new proxy URLs.
@@ -2,21 +2,42 @@ package sis.hust.edu.vn.digital_signature.service.storage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageFileNotFoundException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Local filesystem storage implementation.
  * Used for development and when STORAGE_TYPE=local.
+ *
+ * Files are fanned out by a hash of their name into two directory levels
+ * ({@code uploads/ab/cd/<name>}) so no single directory grows unbounded.
+ * Files written by older versions directly into {@code uploads/} are still
+ * readable there until the background migration has moved them.
  */
 @Slf4j
 public class LocalStorageService implements StorageService {
 
+    private static final Pattern SHARD_NAME = Pattern.compile("[0-9a-f]{2}");
+
     private final String uploadDir;
     private final String baseUrl;
 
@@ -41,12 +62,8 @@ public class LocalStorageService implements StorageService {
     @Override
     public String upload(InputStream data, String fileName, String contentType, long size) {
         try {
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            Path filePath = uploadPath.resolve(fileName);
+            Path filePath = shardedPath(fileName);
+            Files.createDirectories(filePath.getParent());
             Files.copy(data, filePath, StandardCopyOption.REPLACE_EXISTING);
             
             log.info("File uploaded to local storage: {}", filePath);
@@ -60,10 +77,10 @@ public class LocalStorageService implements StorageService {
     @Override
     public byte[] download(String fileName) {
         try {
-            Path filePath = Paths.get(uploadDir, fileName);
-            if (!Files.exists(filePath)) {
+            Path filePath = resolveExisting(fileName);
+            if (filePath == null) {
                 log.error("File not found in local storage: {}", fileName);
-                throw new RuntimeException("File not found: " + fileName);
+                throw new StorageFileNotFoundException("File not found: " + fileName);
             }
             return Files.readAllBytes(filePath);
         } catch (IOException e) {
@@ -75,9 +92,10 @@ public class LocalStorageService implements StorageService {
     @Override
     public void delete(String fileName) {
         try {
-            Path filePath = Paths.get(uploadDir, fileName);
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
+            // A file may exist in both places if it was re-uploaded before migration reached it
+            boolean deleted = Files.deleteIfExists(shardedPath(fileName));
+            deleted |= Files.deleteIfExists(flatPath(fileName));
+            if (deleted) {
                 log.info("File deleted from local storage: {}", fileName);
             } else {
                 log.warn("File not found for deletion: {}", fileName);
@@ -92,4 +110,187 @@ public class LocalStorageService implements StorageService {
         // For local storage, return the API endpoint
         return baseUrl + "/api/files/" + fileName;
     }
+
+    @Override
+    public String beginMultipartUpload(String fileName, String contentType) {
+        try {
+            Path filePath = shardedPath(fileName);
+            Files.createDirectories(filePath.getParent());
+            Files.write(filePath, new byte[0]);
+            return fileName;
+        } catch (IOException e) {
+            log.error("Failed to start local multipart upload: {}", fileName, e);
+            throw new RuntimeException("Failed to start upload", e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String fileName, String uploadId, int partNumber, long offset, InputStream data, long size) {
+        // Parts are appended in place; truncating to the offset first drops whatever a failed attempt left behind
+        try (FileChannel channel = FileChannel.open(shardedPath(fileName), StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            channel.position(offset);
+            long written = data.transferTo(Channels.newOutputStream(channel));
+            log.debug("Appended part {} ({} bytes) to {}", partNumber, written, fileName);
+            return String.valueOf(partNumber);
+        } catch (IOException e) {
+            log.error("Failed to append part {} to {}", partNumber, fileName, e);
+            throw new RuntimeException("Failed to upload part", e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileName, String uploadId, List<String> partTags) {
+        // Already assembled by appending
+        log.info("File uploaded to local storage in {} parts: {}", partTags.size(), fileName);
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileName, String uploadId) {
+        delete(fileName);
+    }
+
+    @Override
+    public List<StoredObject> list(String startAfter, int limit) {
+        // Listing order is (shard, name): shard directories are visited in order starting at the shard
+        // of startAfter, and only the directories needed to fill the page are read
+        String startShard = startAfter == null ? null : hashName(startAfter).substring(0, 4);
+        List<StoredObject> page = new ArrayList<>(limit);
+        try {
+            for (Path first : sortedShardDirectories(Paths.get(uploadDir))) {
+                String firstLevel = first.getFileName().toString();
+                if (startShard != null && firstLevel.compareTo(startShard.substring(0, 2)) < 0) {
+                    continue;
+                }
+                for (Path second : sortedShardDirectories(first)) {
+                    String shard = firstLevel + second.getFileName();
+                    int position = startShard == null ? 1 : shard.compareTo(startShard);
+                    if (position < 0) {
+                        continue;
+                    }
+                    for (Path file : sortedFiles(second)) {
+                        if (position == 0 && file.getFileName().toString().compareTo(startAfter) <= 0) {
+                            continue;
+                        }
+                        page.add(toStoredObject(file));
+                        if (page.size() == limit) {
+                            return page;
+                        }
+                    }
+                }
+            }
+            return page;
+        } catch (IOException e) {
+            log.error("Failed to list local storage after: {}", startAfter, e);
+            throw new RuntimeException("Failed to list files", e);
+        }
+    }
+
+    /**
+     * Two-hex-digit shard directories under {@code parent}, in name order. Files left in the legacy flat
+     * layout are not listed; the migration moves them into shards.
+     */
+    private List<Path> sortedShardDirectories(Path parent) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(parent,
+                entry -> Files.isDirectory(entry) && SHARD_NAME.matcher(entry.getFileName().toString()).matches())) {
+            entries.forEach(directories::add);
+        }
+        directories.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return directories;
+    }
+
+    private List<Path> sortedFiles(Path shard) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(shard, Files::isRegularFile)) {
+            entries.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return files;
+    }
+
+    private StoredObject toStoredObject(Path path) {
+        try {
+            return new StoredObject(path.getFileName().toString(), Files.getLastModifiedTime(path).toInstant());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stat file: " + path, e);
+        }
+    }
+
+    /**
+     * Start moving files from the legacy flat layout into shard directories on a background thread.
+     * Safe to run while serving traffic: reads fall back to the flat location until a file has moved.
+     */
+    public void startFlatLayoutMigration() {
+        Thread migration = new Thread(this::migrateFlatLayout, "local-storage-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    void migrateFlatLayout() {
+        Path root = Paths.get(uploadDir);
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path flat : entries) {
+                String fileName = flat.getFileName().toString();
+                try {
+                    Path target = shardedPath(fileName);
+                    Files.createDirectories(target.getParent());
+                    if (Files.exists(target)) {
+                        // Already rewritten into the new layout; the flat copy is stale
+                        Files.deleteIfExists(flat);
+                    } else {
+                        move(flat, target);
+                    }
+                    moved++;
+                } catch (IOException e) {
+                    log.warn("Failed to migrate {} to sharded layout: {}", fileName, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Flat layout migration aborted for {}", root, e);
+            return;
+        }
+        if (moved > 0) {
+            log.info("Migrated {} files to sharded layout in {}", moved, root.toAbsolutePath());
+        }
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    private Path resolveExisting(String fileName) {
+        Path sharded = shardedPath(fileName);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = flatPath(fileName);
+        return Files.exists(flat) ? flat : null;
+    }
+
+    private Path flatPath(String fileName) {
+        return Paths.get(uploadDir).resolve(fileName);
+    }
+
+    /**
+     * {@code <uploadDir>/ab/cd/<fileName>} where {@code abcd} are the first hex digits of SHA-256(fileName).
+     */
+    private Path shardedPath(String fileName) {
+        String hash = hashName(fileName);
+        return Paths.get(uploadDir, hash.substring(0, 2), hash.substring(2, 4), fileName);
+    }
+
+    private static String hashName(String fileName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(fileName.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
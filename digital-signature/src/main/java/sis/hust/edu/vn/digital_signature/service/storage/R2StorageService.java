@@ -1,9 +1,12 @@
 package sis.hust.edu.vn.digital_signature.service.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageFileNotFoundException;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
@@ -14,6 +17,9 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
 import java.io.InputStream;
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Cloudflare R2 storage implementation using AWS S3 SDK.
@@ -27,6 +33,7 @@ public class R2StorageService implements StorageService {
     private final String bucketName;
     private final int presignedUrlExpiryMinutes;
     private final String baseUrl; // Backend base URL for proxy endpoint
+    private final Duration partTimeout; // multipart parts are up to the maximum chunk size
 
     public R2StorageService(
             String endpoint,
@@ -35,9 +42,15 @@ public class R2StorageService implements StorageService {
             String bucketName,
             String region,
             int presignedUrlExpiryMinutes,
-            String baseUrl) {
+            String baseUrl,
+            int maxConnections,
+            Duration connectionTimeout,
+            Duration socketTimeout,
+            Duration apiCallTimeout,
+            Duration partTimeout) {
         
         this.bucketName = bucketName;
+        this.partTimeout = partTimeout;
         this.presignedUrlExpiryMinutes = presignedUrlExpiryMinutes;
         this.baseUrl = baseUrl;
 
@@ -54,6 +67,16 @@ public class R2StorageService implements StorageService {
                 .credentialsProvider(credentialsProvider)
                 .region(awsRegion)
                 .forcePathStyle(true) // Required for R2
+                // Explicit pool and timeouts instead of SDK defaults, so a slow region cannot hang callers
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .connectionAcquisitionTimeout(connectionTimeout)
+                        .socketTimeout(socketTimeout))
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(apiCallTimeout)
+                        .apiCallAttemptTimeout(socketTimeout)
+                        .build())
                 .build();
 
         // Create S3 Presigner for generating pre-signed URLs
@@ -97,7 +120,7 @@ public class R2StorageService implements StorageService {
             return s3Client.getObjectAsBytes(request).asByteArray();
         } catch (NoSuchKeyException e) {
             log.error("File not found in R2: {}", fileName);
-            throw new RuntimeException("File not found: " + fileName, e);
+            throw new StorageFileNotFoundException("File not found: " + fileName, e);
         } catch (Exception e) {
             log.error("Failed to download file from R2: {}", fileName, e);
             throw new RuntimeException("Failed to download file from R2", e);
@@ -119,6 +142,96 @@ public class R2StorageService implements StorageService {
         }
     }
 
+    @Override
+    public String beginMultipartUpload(String fileName, String contentType) {
+        try {
+            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileName)
+                    .contentType(contentType)
+                    .build();
+
+            return s3Client.createMultipartUpload(request).uploadId();
+        } catch (Exception e) {
+            log.error("Failed to start R2 multipart upload: {}", fileName, e);
+            throw new RuntimeException("Failed to start upload to R2", e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String fileName, String uploadId, int partNumber, long offset, InputStream data, long size) {
+        try {
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileName)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(size)
+                    .overrideConfiguration(o -> o.apiCallTimeout(partTimeout).apiCallAttemptTimeout(partTimeout))
+                    .build();
+
+            return s3Client.uploadPart(request, RequestBody.fromInputStream(data, size)).eTag();
+        } catch (Exception e) {
+            log.error("Failed to upload part {} of {} to R2", partNumber, fileName, e);
+            throw new RuntimeException("Failed to upload part to R2", e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileName, String uploadId, List<String> partTags) {
+        try {
+            List<CompletedPart> parts = new ArrayList<>(partTags.size());
+            for (int i = 0; i < partTags.size(); i++) {
+                parts.add(CompletedPart.builder().partNumber(i + 1).eTag(partTags.get(i)).build());
+            }
+
+            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileName)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+
+            s3Client.completeMultipartUpload(request);
+            log.info("File uploaded to R2 in {} parts: {}/{}", parts.size(), bucketName, fileName);
+        } catch (Exception e) {
+            log.error("Failed to complete R2 multipart upload: {}", fileName, e);
+            throw new RuntimeException("Failed to complete upload to R2", e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileName, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(fileName)
+                    .uploadId(uploadId)
+                    .build());
+            log.info("Aborted R2 multipart upload: {}/{}", bucketName, fileName);
+        } catch (Exception e) {
+            log.error("Failed to abort R2 multipart upload: {}", fileName, e);
+        }
+    }
+
+    @Override
+    public List<StoredObject> list(String startAfter, int limit) {
+        try {
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .startAfter(startAfter)
+                    .maxKeys(limit)
+                    .build();
+
+            return s3Client.listObjectsV2(request).contents().stream()
+                    .map(object -> new StoredObject(object.key(), object.lastModified()))
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Failed to list R2 bucket {} after: {}", bucketName, startAfter, e);
+            throw new RuntimeException("Failed to list files in R2", e);
+        }
+    }
+
     @Override
     public String getFileUrl(String fileName) {
         // Return backend proxy URL instead of presigned URL
@@ -0,0 +1,317 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageFileNotFoundException;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageUnavailableException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator isolating callers from a slow or failing storage backend.
+ *
+ * Every call runs on a dedicated pool behind a semaphore bulkhead, with a per-operation timeout
+ * and a circuit breaker that fails fast while the backend is down. Downloads are hedged: if the
+ * first GET has not answered after {@code hedgeDelay}, a second one races it and the first
+ * result wins. Rejected or timed-out calls surface as {@link StorageUnavailableException} (503),
+ * so request threads are released instead of piling up behind storage. An upload that fails because
+ * the caller's data could not be read says nothing about the backend and leaves the breaker alone.
+ *
+ * Metrics: {@code storage.calls} (timer by operation/outcome), {@code storage.rejections},
+ * {@code storage.hedges}, {@code storage.bulkhead.available}, {@code storage.circuit.state}.
+ */
+@Slf4j
+public class ResilientStorageService implements StorageService {
+
+    private final StorageService delegate;
+    private final StorageResilienceSettings settings;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore bulkhead;
+    private final StorageCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    public ResilientStorageService(StorageService delegate, StorageResilienceSettings settings,
+                                   ThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+        this.circuitBreaker = new StorageCircuitBreaker(
+                settings.getCircuitFailureThreshold(), settings.getCircuitOpenDuration().toMillis());
+
+        // Never more runnable tasks than bulkhead permits, so the queue stays short
+        this.executor = new ThreadPoolExecutor(
+                settings.getMaxConcurrentCalls(), settings.getMaxConcurrentCalls(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("storage.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free storage bulkhead slots")
+                .register(meterRegistry);
+        Gauge.builder("storage.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Storage circuit state: 0=closed, 1=open, 2=half-open")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String upload(InputStream data, String fileName, String contentType, long size) {
+        CallerInputStream input = new CallerInputStream(data);
+        return execute("upload", settings.getUploadTimeout(), false, input,
+                () -> delegate.upload(input, fileName, contentType, size));
+    }
+
+    @Override
+    public byte[] download(String fileName) {
+        boolean hedged = !settings.getHedgeDelay().isZero();
+        return execute("download", settings.getDownloadTimeout(), hedged, null, () -> delegate.download(fileName));
+    }
+
+    @Override
+    public void delete(String fileName) {
+        execute("delete", settings.getDeleteTimeout(), false, null, () -> {
+            delegate.delete(fileName);
+            return null;
+        });
+    }
+
+    @Override
+    public String getFileUrl(String fileName) {
+        // Pure string building, no I/O
+        return delegate.getFileUrl(fileName);
+    }
+
+    @Override
+    public String beginMultipartUpload(String fileName, String contentType) {
+        return execute("multipart_begin", settings.getUploadTimeout(), false, null,
+                () -> delegate.beginMultipartUpload(fileName, contentType));
+    }
+
+    @Override
+    public String uploadPart(String fileName, String uploadId, int partNumber, long offset, InputStream data, long size) {
+        CallerInputStream input = new CallerInputStream(data);
+        return execute("multipart_part", settings.getPartTimeout(), false, input,
+                () -> delegate.uploadPart(fileName, uploadId, partNumber, offset, input, size));
+    }
+
+    @Override
+    public void completeMultipartUpload(String fileName, String uploadId, List<String> partTags) {
+        execute("multipart_complete", settings.getUploadTimeout(), false, null, () -> {
+            delegate.completeMultipartUpload(fileName, uploadId, partTags);
+            return null;
+        });
+    }
+
+    @Override
+    public void abortMultipartUpload(String fileName, String uploadId) {
+        execute("multipart_abort", settings.getDeleteTimeout(), false, null, () -> {
+            delegate.abortMultipartUpload(fileName, uploadId);
+            return null;
+        });
+    }
+
+    @Override
+    public List<StoredObject> list(String startAfter, int limit) {
+        return execute("list", settings.getListTimeout(), false, null, () -> delegate.list(startAfter, limit));
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param input the caller's data for uploads, else null; a call that fails reading it is the caller's
+     *              fault and tells nothing about the backend
+     */
+    private <T> T execute(String operation, Duration timeout, boolean hedged, CallerInputStream input,
+                          Callable<T> task) {
+        acquirePermit(operation);
+        if (!circuitBreaker.allowRequest()) {
+            bulkhead.release();
+            reject(operation, "circuit_open");
+            throw new StorageUnavailableException("Storage is temporarily unavailable");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> attempts = new ArrayList<>(2);
+
+        String outcome = "error";
+        try {
+            attempts.add(submit(completion, task, operation));
+            Future<T> done = hedged
+                    ? completion.poll(Math.min(settings.getHedgeDelay().toNanos(), timeout.toNanos()), TimeUnit.NANOSECONDS)
+                    : null;
+            if (hedged && done == null && bulkhead.tryAcquire()) {
+                attempts.add(submitHedge(completion, task, operation));
+            }
+
+            int failed = 0;
+            ExecutionException lastFailure = null;
+            while (failed < attempts.size()) {
+                if (done == null) {
+                    done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        outcome = "timeout";
+                        circuitBreaker.onFailure();
+                        reject(operation, "timeout");
+                        throw new StorageUnavailableException("Storage " + operation + " timed out after " + timeout.toMillis() + "ms");
+                    }
+                }
+                try {
+                    T result = done.get();
+                    if (attempts.size() > 1 && done != attempts.get(0)) {
+                        hedgeCounter("won").increment();
+                    }
+                    outcome = "success";
+                    circuitBreaker.onSuccess();
+                    return result;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof StorageFileNotFoundException notFound) {
+                        // The backend answered; a missing key is not a storage fault
+                        outcome = "not_found";
+                        circuitBreaker.onSuccess();
+                        throw notFound;
+                    }
+                    if (input != null && input.failed) {
+                        outcome = "caller_error";
+                        circuitBreaker.onNoVerdict();
+                        throw asRuntime(operation, e.getCause());
+                    }
+                    failed++;
+                    lastFailure = e;
+                    done = null;
+                }
+            }
+
+            circuitBreaker.onFailure();
+            throw asRuntime(operation, lastFailure.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            throw new StorageUnavailableException("Interrupted while waiting for storage", e);
+        } finally {
+            if (outcome.equals("interrupted") || attempts.isEmpty()) {
+                // No verdict on the backend, but a half-open trial must not stay in flight forever
+                circuitBreaker.onFailure();
+            }
+            // Losing hedge or abandoned attempt: stop it, its permit is released when it exits
+            attempts.forEach(attempt -> attempt.cancel(true));
+            Timer.builder("storage.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static RuntimeException asRuntime(String operation, Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RuntimeException("Storage " + operation + " failed", cause);
+    }
+
+    private void acquirePermit(String operation) {
+        try {
+            if (!bulkhead.tryAcquire(settings.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                reject(operation, "bulkhead_full");
+                throw new StorageUnavailableException("Storage is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageUnavailableException("Interrupted while waiting for storage", e);
+        }
+    }
+
+    private <T> Future<T> submitHedge(CompletionService<T> completion, Callable<T> task, String operation) {
+        hedgeCounter("launched").increment();
+        log.debug("Hedging slow storage {}", operation);
+        return submit(completion, task, operation);
+    }
+
+    /**
+     * Submit an attempt that already holds a bulkhead permit; the permit is returned when the attempt
+     * really finishes, so abandoned calls still count against the bulkhead while they run.
+     */
+    private <T> Future<T> submit(CompletionService<T> completion, Callable<T> task, String operation) {
+        try {
+            return completion.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            reject(operation, "executor_rejected");
+            throw new StorageUnavailableException("Storage executor rejected " + operation, e);
+        }
+    }
+
+    private void reject(String operation, String reason) {
+        log.warn("Storage {} rejected: {}", operation, reason);
+        Counter.builder("storage.rejections")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter hedgeCounter(String outcome) {
+        return Counter.builder("storage.hedges")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Remembers whether reading the caller's data failed, so that failure is not blamed on the backend.
+     */
+    private static class CallerInputStream extends FilterInputStream {
+        private volatile boolean failed;
+
+        private CallerInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            try {
+                return super.read(buffer, off, len);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+}
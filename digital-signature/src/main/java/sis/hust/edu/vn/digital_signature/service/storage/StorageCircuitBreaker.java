@@ -0,0 +1,72 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+/**
+ * Consecutive-failure circuit breaker for storage calls.
+ * CLOSED lets everything through; after {@code failureThreshold} failures in a row it goes OPEN and
+ * rejects calls for {@code openMillis}; then HALF_OPEN admits a single trial call that decides
+ * whether to close again or re-open.
+ */
+class StorageCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    StorageCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * The call ended without telling anything about the backend: a half-open trial is given to the next call.
+     */
+    synchronized void onNoVerdict() {
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
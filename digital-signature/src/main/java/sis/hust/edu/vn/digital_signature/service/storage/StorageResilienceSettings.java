@@ -0,0 +1,38 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Limits applied by {@link ResilientStorageService}; bound from {@code storage.resilience.*}.
+ */
+@Getter
+@Builder
+public class StorageResilienceSettings {
+
+    /** Bulkhead size: storage calls in flight at once, hedges included. */
+    private final int maxConcurrentCalls;
+
+    /** How long a caller may wait for a bulkhead slot before failing fast. */
+    private final Duration maxWait;
+
+    private final Duration uploadTimeout;
+
+    /** Chunked upload parts are up to {@code upload.chunked.max-chunk-size} each, so they get a longer budget than uploads. */
+    private final Duration partTimeout;
+
+    private final Duration downloadTimeout;
+
+    private final Duration deleteTimeout;
+
+    private final Duration listTimeout;
+
+    private final int circuitFailureThreshold;
+
+    private final Duration circuitOpenDuration;
+
+    /** Delay before a second, racing GET is issued for a slow download; zero disables hedging. */
+    private final Duration hedgeDelay;
+}
@@ -1,6 +1,7 @@
 package sis.hust.edu.vn.digital_signature.service.storage;
 
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * Storage service interface for file operations.
@@ -44,4 +45,49 @@ public interface StorageService {
      * @return URL for accessing the file
      */
     String getFileUrl(String fileName);
+
+    /**
+     * Start a multipart upload that is written part by part across several requests.
+     *
+     * @param fileName    Key the assembled file will be stored under
+     * @param contentType MIME type of the file
+     * @return Backend upload id to pass to the part/complete/abort calls
+     */
+    String beginMultipartUpload(String fileName, String contentType);
+
+    /**
+     * Stream one part of a multipart upload straight to storage.
+     *
+     * @param fileName   Key of the upload
+     * @param uploadId   Id returned by {@link #beginMultipartUpload}
+     * @param partNumber 1-based part number
+     * @param offset     Byte offset of this part in the assembled file
+     * @param data       Part content
+     * @param size       Part size in bytes
+     * @return Part tag to hand back to {@link #completeMultipartUpload}
+     */
+    String uploadPart(String fileName, String uploadId, int partNumber, long offset, InputStream data, long size);
+
+    /**
+     * Assemble the uploaded parts into the final file.
+     *
+     * @param partTags Tags returned by {@link #uploadPart}, in part order
+     */
+    void completeMultipartUpload(String fileName, String uploadId, List<String> partTags);
+
+    /**
+     * Discard a multipart upload and any parts written so far.
+     */
+    void abortMultipartUpload(String fileName, String uploadId);
+
+    /**
+     * List stored objects in the backend's listing order, starting strictly after the given key.
+     * The order is stable (key order for R2, shard then key for local storage), so passing the last key
+     * of a page as {@code startAfter} walks every object once. Used by background maintenance.
+     *
+     * @param startAfter Key to resume after, or null to start from the beginning
+     * @param limit      Maximum number of objects to return
+     * @return Up to {@code limit} objects; fewer means the end of the listing was reached
+     */
+    List<StoredObject> list(String startAfter, int limit);
 }
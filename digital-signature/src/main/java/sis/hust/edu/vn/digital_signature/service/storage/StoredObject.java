@@ -0,0 +1,18 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A blob as seen by a storage listing.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredObject {
+
+    private final String key;
+
+    private final Instant lastModified;
+}
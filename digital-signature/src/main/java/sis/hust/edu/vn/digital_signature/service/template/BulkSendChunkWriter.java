@@ -0,0 +1,131 @@
+package sis.hust.edu.vn.digital_signature.service.template;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEventType;
+import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
+import sis.hust.edu.vn.digital_signature.entity.enums.SignerStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendJob;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendRecipient;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentTemplate;
+import sis.hust.edu.vn.digital_signature.entity.model.Field;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
+import sis.hust.edu.vn.digital_signature.entity.model.TemplateField;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
+import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
+import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.BulkSendJobRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.BulkSendRecipientRepository;
+import sis.hust.edu.vn.digital_signature.service.email.EmailService;
+import sis.hust.edu.vn.digital_signature.service.event.DocumentEventPublisher;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes one chunk of a bulk send in a single transaction: a document, its signer and a copy of the
+ * template layout per recipient. Rows are inserted with saveAll, which Hibernate sends in JDBC batches;
+ * documents point at the template's blob and only its reference count changes. Invitation emails are
+ * queued in the same transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkSendChunkWriter {
+
+    private final DocumentRepository documentRepository;
+    private final SignerRepository signerRepository;
+    private final FieldRepository fieldRepository;
+    private final BulkSendRecipientRepository recipientRepository;
+    private final BulkSendJobRepository jobRepository;
+    private final FileService fileService;
+    private final DocumentEventPublisher documentEventPublisher;
+    private final EmailService emailService;
+
+    /**
+     * Create the documents of the next {@code chunkSize} recipients still waiting for one.
+     * @return how many were written; 0 when the job has no pending recipients left
+     */
+    @Transactional
+    public int writeNextChunk(BulkSendJob job, DocumentTemplate template, List<TemplateField> layout,
+                              int chunkSize, LocalDateTime leaseUntil) {
+        List<BulkSendRecipient> recipients = recipientRepository.findPending(job.getId(), PageRequest.of(0, chunkSize));
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        // One reference per document; fails if the blob was released meanwhile
+        if (!fileService.addReferences(template.getFileId(), recipients.size())) {
+            throw new BusinessException("The template file no longer exists");
+        }
+
+        List<Document> documents = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            documents.add(Document.builder()
+                    .title(job.getTitle())
+                    .fileUrl(template.getFileUrl())
+                    .fileSize(template.getFileSize())
+                    .pageCount(template.getPageCount() != null ? template.getPageCount() : 1)
+                    .status(DocumentStatus.SIGNING)
+                    .pendingSigners(1)
+                    .ownerId(job.getOwnerId())
+                    .build());
+        }
+        documents = documentRepository.saveAll(documents);
+
+        List<Signer> signers = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            BulkSendRecipient recipient = recipients.get(i);
+            signers.add(Signer.builder()
+                    .documentId(documents.get(i).getId())
+                    .email(recipient.getEmail())
+                    .name(recipient.getName())
+                    .token(SecureTokens.newToken())
+                    .order(1)
+                    .status(SignerStatus.PENDING)
+                    .build());
+        }
+        signers = signerRepository.saveAll(signers);
+        emailService.sendSignerInvites(job.getTitle(), signers);
+
+        List<Field> fields = new ArrayList<>(recipients.size() * layout.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            for (TemplateField templateField : layout) {
+                fields.add(Field.builder()
+                        .documentId(documents.get(i).getId())
+                        .signerId(signers.get(i).getId())
+                        .type(templateField.getType())
+                        .pageNumber(templateField.getPageNumber())
+                        .positionX(templateField.getPositionX())
+                        .positionY(templateField.getPositionY())
+                        .width(templateField.getWidth())
+                        .height(templateField.getHeight())
+                        .isRequired(templateField.getIsRequired())
+                        .placeholder(templateField.getPlaceholder())
+                        .build());
+            }
+        }
+        fieldRepository.saveAll(fields);
+
+        for (int i = 0; i < recipients.size(); i++) {
+            recipients.get(i).setDocumentId(documents.get(i).getId());
+        }
+        recipientRepository.saveAll(recipients);
+
+        List<DocumentEvent> events = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            events.add(DocumentEvent.of(DocumentEventType.DOCUMENT_SENT, documents.get(i), signers.get(i)));
+        }
+        documentEventPublisher.publishAll(events);
+
+        jobRepository.recordProgress(job.getId(), recipients.size(), leaseUntil, LocalDateTime.now());
+        return recipients.size();
+    }
+}
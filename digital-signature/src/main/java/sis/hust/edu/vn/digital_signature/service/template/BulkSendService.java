@@ -0,0 +1,268 @@
+package sis.hust.edu.vn.digital_signature.service.template;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.dto.template.BulkSendJobResponse;
+import sis.hust.edu.vn.digital_signature.dto.template.BulkSendRecipientRequest;
+import sis.hust.edu.vn.digital_signature.dto.template.BulkSendRequest;
+import sis.hust.edu.vn.digital_signature.entity.enums.BulkSendStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendJob;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendRecipient;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentTemplate;
+import sis.hust.edu.vn.digital_signature.entity.model.TemplateField;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.template.BulkSendJobRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.BulkSendRecipientRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.DocumentTemplateRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.TemplateFieldRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a template to many recipients as a background job.
+ *
+ * {@link #startBulkSend} only stores the job and its recipients. Workers lease a job, then write its
+ * recipients chunk by chunk ({@link BulkSendChunkWriter}, one short transaction each) with a pause in
+ * between, so a send of thousands never holds a connection for long or floods the database. Progress is
+ * stored on the job after every chunk. A worker that dies loses its lease and the job resumes from
+ * the first recipient without a document; a failed chunk is retried after a delay, up to
+ * {@code bulk-send.max-attempts} times in a row.
+ *
+ * Metrics: {@code bulk.send.documents} (counter), {@code bulk.send.jobs} (counter by outcome).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkSendService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final BulkSendJobRepository jobRepository;
+    private final BulkSendRecipientRepository recipientRepository;
+    private final DocumentTemplateRepository templateRepository;
+    private final TemplateFieldRepository templateFieldRepository;
+    private final TemplateService templateService;
+    private final BulkSendChunkWriter chunkWriter;
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+
+    @Value("${bulk-send.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bulk-send.workers:1}")
+    private int workers;
+
+    @Value("${bulk-send.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${bulk-send.pause-ms:100}")
+    private long pauseMillis;
+
+    @Value("${bulk-send.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${bulk-send.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${bulk-send.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    @Value("${bulk-send.max-recipients:10000}")
+    private int maxRecipients;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                workerThreads.factory("bulk-send-worker-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Transactional
+    public BulkSendJobResponse startBulkSend(String templateId, BulkSendRequest request, String ownerId) {
+        DocumentTemplate template = templateService.getOwnedTemplate(templateId, ownerId);
+
+        List<BulkSendRecipientRequest> recipients = request.getRecipients();
+        if (recipients.size() > maxRecipients) {
+            throw new BusinessException("A bulk send can have at most " + maxRecipients + " recipients");
+        }
+        Set<String> seenEmails = new HashSet<>();
+        for (BulkSendRecipientRequest recipient : recipients) {
+            if (!seenEmails.add(recipient.getEmail().trim().toLowerCase(Locale.ROOT))) {
+                throw new BusinessException("Duplicate recipient email: " + recipient.getEmail());
+            }
+        }
+
+        BulkSendJob job = jobRepository.save(BulkSendJob.builder()
+                .templateId(template.getId())
+                .ownerId(ownerId)
+                .title(request.getTitle())
+                .totalRecipients(recipients.size())
+                .build());
+
+        List<BulkSendRecipient> rows = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            rows.add(BulkSendRecipient.builder()
+                    .jobId(job.getId())
+                    .rowNumber(i + 1)
+                    .email(recipients.get(i).getEmail().trim())
+                    .name(recipients.get(i).getName().trim())
+                    .build());
+        }
+        recipientRepository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(BulkSendService.this::pollSafely);
+                }
+            });
+        }
+
+        log.info("Bulk send {} queued: template {} to {} recipients", job.getId(), templateId, recipients.size());
+        return BulkSendJobResponse.of(job);
+    }
+
+    public BulkSendJobResponse getJob(String jobId, String ownerId) {
+        BulkSendJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Bulk send job not found"));
+        if (!job.getOwnerId().equals(ownerId)) {
+            throw new BusinessException("Access denied. Only the job owner can view its progress.");
+        }
+        return BulkSendJobResponse.of(job);
+    }
+
+    @Scheduled(fixedDelayString = "${bulk-send.poll-interval-ms:2000}",
+            initialDelayString = "${bulk-send.initial-delay-ms:15000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (String jobId : jobRepository.findClaimableIds(now, PageRequest.of(0, capacity))) {
+            if (jobRepository.claim(jobId, now, now.plusSeconds(leaseSeconds)) == 0) {
+                continue; // taken by another instance
+            }
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    runJob(jobId);
+                } catch (Exception e) {
+                    log.error("Bulk send {} stopped unexpectedly", jobId, e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Bulk send poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void runJob(String jobId) {
+        Optional<BulkSendJob> found = jobRepository.findById(jobId);
+        if (found.isEmpty()) {
+            return;
+        }
+        BulkSendJob job = found.get();
+        DocumentTemplate template = templateRepository.findById(job.getTemplateId()).orElse(null);
+        if (template == null) {
+            failJob(job, "Template was deleted");
+            return;
+        }
+        List<TemplateField> layout = templateFieldRepository.findByTemplateId(template.getId());
+        int attempts = job.getAttempts();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int written;
+            try {
+                written = chunkWriter.writeNextChunk(
+                        job, template, layout, chunkSize, LocalDateTime.now().plusSeconds(leaseSeconds));
+                attempts = 0;
+            } catch (Exception e) {
+                attempts++;
+                String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+                if (attempts >= maxAttempts) {
+                    failJob(job, error);
+                    return;
+                }
+                LocalDateTime retryAt = LocalDateTime.now().plusSeconds(retryDelaySeconds);
+                log.warn("Bulk send {} chunk failed (attempt {}), retrying at {}: {}", jobId, attempts, retryAt, error);
+                jobRepository.recordFailure(jobId, error, retryAt, LocalDateTime.now());
+                return;
+            }
+
+            if (written == 0) {
+                jobRepository.finish(jobId, BulkSendStatus.COMPLETED, LocalDateTime.now());
+                jobCounter("completed").increment();
+                log.info("Bulk send {} completed: {} documents", jobId, job.getTotalRecipients());
+                return;
+            }
+            Counter.builder("bulk.send.documents").register(meterRegistry).increment(written);
+
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void failJob(BulkSendJob job, String error) {
+        log.error("Bulk send {} failed: {}", job.getId(), error);
+        LocalDateTime now = LocalDateTime.now();
+        jobRepository.recordFailure(job.getId(), error, null, now);
+        jobRepository.finish(job.getId(), BulkSendStatus.FAILED, now);
+        jobCounter("failed").increment();
+    }
+
+    private String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private Counter jobCounter(String outcome) {
+        return Counter.builder("bulk.send.jobs")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
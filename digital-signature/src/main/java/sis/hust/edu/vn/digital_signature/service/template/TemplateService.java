@@ -0,0 +1,133 @@
+package sis.hust.edu.vn.digital_signature.service.template;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.dto.template.CreateTemplateRequest;
+import sis.hust.edu.vn.digital_signature.dto.template.TemplateResponse;
+import sis.hust.edu.vn.digital_signature.entity.enums.BulkSendStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentTemplate;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.TemplateField;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
+import sis.hust.edu.vn.digital_signature.repository.field.FieldRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.BulkSendJobRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.DocumentTemplateRepository;
+import sis.hust.edu.vn.digital_signature.repository.template.TemplateFieldRepository;
+import sis.hust.edu.vn.digital_signature.service.document.DocumentService;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Document templates: a stored blob shared by reference plus a saved field layout.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateService {
+
+    private final DocumentTemplateRepository templateRepository;
+    private final TemplateFieldRepository templateFieldRepository;
+    private final BulkSendJobRepository bulkSendJobRepository;
+    private final DocumentRepository documentRepository;
+    private final FieldRepository fieldRepository;
+    private final DocumentService documentService;
+    private final FileService fileService;
+
+    /**
+     * Save a document's file and field layout as a template. The blob is shared, not copied;
+     * signer assignments and values are not part of the layout.
+     */
+    @Transactional
+    public TemplateResponse createFromDocument(CreateTemplateRequest request, String ownerId) {
+        Document document = documentRepository.findById(request.getDocumentId())
+                .orElseThrow(() -> new EntityNotFoundException("Document not found"));
+        if (!document.getOwnerId().equals(ownerId)) {
+            throw new BusinessException("Access denied. Only the document owner can perform this action.");
+        }
+
+        File file = fileService.acquireByName(documentService.extractFileName(document.getFileUrl()));
+
+        DocumentTemplate template = templateRepository.save(DocumentTemplate.builder()
+                .ownerId(ownerId)
+                .name(request.getName())
+                .fileId(file.getId())
+                .fileUrl(document.getFileUrl())
+                .fileSize(document.getFileSize())
+                .pageCount(document.getPageCount())
+                .build());
+
+        List<TemplateField> fields = fieldRepository.findByDocumentId(document.getId()).stream()
+                .map(field -> TemplateField.builder()
+                        .templateId(template.getId())
+                        .type(field.getType())
+                        .pageNumber(field.getPageNumber())
+                        .positionX(field.getPositionX())
+                        .positionY(field.getPositionY())
+                        .width(field.getWidth())
+                        .height(field.getHeight())
+                        .isRequired(field.getIsRequired())
+                        .placeholder(field.getPlaceholder())
+                        .build())
+                .collect(Collectors.toList());
+        fields = templateFieldRepository.saveAll(fields);
+
+        log.info("Template {} created from document {} with {} fields", template.getId(), document.getId(), fields.size());
+        return toResponse(template, fields);
+    }
+
+    public List<TemplateResponse> listTemplates(String ownerId) {
+        return templateRepository.findByOwnerIdOrderByCreatedAtDesc(ownerId).stream()
+                .map(template -> toResponse(template, null))
+                .collect(Collectors.toList());
+    }
+
+    public TemplateResponse getTemplate(String templateId, String ownerId) {
+        DocumentTemplate template = getOwnedTemplate(templateId, ownerId);
+        return toResponse(template, templateFieldRepository.findByTemplateId(templateId));
+    }
+
+    @Transactional
+    public void deleteTemplate(String templateId, String ownerId) {
+        DocumentTemplate template = getOwnedTemplate(templateId, ownerId);
+        if (bulkSendJobRepository.existsByTemplateIdAndStatusIn(
+                templateId, EnumSet.of(BulkSendStatus.QUEUED, BulkSendStatus.RUNNING))) {
+            throw new BusinessException("Cannot delete a template while a bulk send from it is running");
+        }
+
+        templateFieldRepository.deleteByTemplateId(templateId);
+        templateRepository.delete(template);
+
+        // Documents sent from the template keep their own references on the blob
+        fileService.deleteFile(template.getFileId());
+    }
+
+    public DocumentTemplate getOwnedTemplate(String templateId, String ownerId) {
+        DocumentTemplate template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new EntityNotFoundException("Template not found"));
+        if (!template.getOwnerId().equals(ownerId)) {
+            throw new BusinessException("Access denied. Only the template owner can perform this action.");
+        }
+        return template;
+    }
+
+    private TemplateResponse toResponse(DocumentTemplate template, List<TemplateField> fields) {
+        return TemplateResponse.builder()
+                .id(template.getId())
+                .name(template.getName())
+                .fileUrl(documentService.refreshFileUrl(template.getFileUrl()))
+                .fileSize(template.getFileSize())
+                .pageCount(template.getPageCount())
+                .fields(fields)
+                .createdAt(template.getCreatedAt())
+                .updatedAt(template.getUpdatedAt())
+                .build();
+    }
+}
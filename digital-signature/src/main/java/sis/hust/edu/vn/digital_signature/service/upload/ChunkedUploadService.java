@@ -0,0 +1,375 @@
+package sis.hust.edu.vn.digital_signature.service.upload;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import sis.hust.edu.vn.digital_signature.dto.upload.CreateUploadRequest;
+import sis.hust.edu.vn.digital_signature.dto.upload.UploadSessionResponse;
+import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.UploadSession;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.upload.UploadSessionRepository;
+import sis.hust.edu.vn.digital_signature.service.document.DocumentService;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resumable chunked uploads for documents too large for a single multipart request.
+ *
+ * Protocol: create a session, PUT raw chunks in order at the offset the session reports, then
+ * finalize. Each chunk is spooled to a temporary file, then sent as one storage multipart part (R2)
+ * or appended to the file (local), so neither the servlet container nor the service ever holds a
+ * whole document, and storage is only called once the client has delivered the whole chunk.
+ * A client that loses its connection asks for the status and resumes from {@code receivedBytes}.
+ *
+ * A SHA-256 of the content is kept across chunks so the finished file joins the content-addressed
+ * store. Its running state is saved on the session with every chunk, like the offset and part tags,
+ * so no chunk depends on the instance that took the previous one: the session row is the only state,
+ * and a chunk is recorded only if the session is still at the offset it was sent for.
+ *
+ * Finalizing is resumable too: the assembled object and its hash are recorded on the session first,
+ * then the file row, the document and the session's completion are written in one transaction. A
+ * finalize that fails after assembly can simply be retried.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final int MAX_PARTS = 10_000; // S3/R2 multipart limit
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StorageService storageService;
+    private final FileService fileService;
+    private final DocumentService documentService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${upload.chunked.max-file-size:500MB}")
+    private DataSize maxFileSize;
+
+    // R2 rejects non-final parts below 5 MiB
+    @Value("${upload.chunked.min-chunk-size:5MB}")
+    private DataSize minChunkSize;
+
+    @Value("${upload.chunked.max-chunk-size:16MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${upload.chunked.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${upload.chunked.cleanup-batch-size:100}")
+    private int cleanupBatchSize;
+
+    public UploadSessionResponse createSession(CreateUploadRequest request, String ownerId) {
+        if (request.getTotalSize() > maxFileSize.toBytes()) {
+            throw new BusinessException("File exceeds the maximum upload size of " + maxFileSize.toMegabytes() + "MB");
+        }
+
+        String storageKey = fileService.newStorageKey(getFileExtension(request.getFileName()));
+        String backendUploadId = storageService.beginMultipartUpload(storageKey, request.getContentType());
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .ownerId(ownerId)
+                .title(request.getTitle())
+                .originalName(request.getFileName())
+                .contentType(request.getContentType())
+                .totalSize(request.getTotalSize())
+                .storageKey(storageKey)
+                .backendUploadId(backendUploadId)
+                .digestState(new ResumableSha256().exportState())
+                .build());
+
+        log.info("Chunked upload {} started: {} ({} bytes)", session.getId(), request.getFileName(), request.getTotalSize());
+        return toResponse(session);
+    }
+
+    public UploadSessionResponse getStatus(String uploadId, String ownerId) {
+        return toResponse(loadSession(uploadId, ownerId));
+    }
+
+    /**
+     * Store one chunk. The chunk must start exactly at the session's current offset;
+     * a retried chunk that already landed is rejected with the expected offset so the client can skip ahead.
+     */
+    public UploadSessionResponse appendChunk(String uploadId, String ownerId, long offset,
+                                             InputStream body, long contentLength) {
+        UploadSession session = loadUploading(uploadId, ownerId);
+        if (contentLength <= 0) {
+            throw new BusinessException("Chunk must be sent with a Content-Length");
+        }
+        if (contentLength > maxChunkSize.toBytes()) {
+            throw new BusinessException("Chunk exceeds the maximum size of " + maxChunkSize.toBytes() + " bytes");
+        }
+        if (offset + contentLength > session.getTotalSize()) {
+            throw new BusinessException("Chunk runs past the declared file size");
+        }
+        if (offset + contentLength < session.getTotalSize() && contentLength < minChunkSize.toBytes()) {
+            throw new BusinessException("Only the last chunk may be smaller than " + minChunkSize.toBytes() + " bytes");
+        }
+        if (offset != session.getReceivedBytes()) {
+            throw new BusinessException("Expected chunk at offset " + session.getReceivedBytes());
+        }
+        if (session.getPartCount() >= MAX_PARTS) {
+            throw new BusinessException("Too many chunks");
+        }
+
+        // Continue the hash from the state saved with the previous chunk; a failed chunk never saves its copy
+        ResumableSha256 hash = restoreHash(session);
+
+        // Read the whole chunk from the client first: a slow or broken connection must not hold a storage
+        // slot, and must not count as a storage failure
+        Path spooled = spool(body, contentLength, hash);
+        try {
+            int partNumber = session.getPartCount() + 1;
+            String partTag;
+            try (InputStream in = Files.newInputStream(spooled)) {
+                partTag = storageService.uploadPart(session.getStorageKey(), session.getBackendUploadId(),
+                        partNumber, offset, in, contentLength);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spooled chunk of upload " + uploadId, e);
+            }
+
+            String partTags = session.getPartTags() == null ? partTag : session.getPartTags() + "," + partTag;
+            if (uploadSessionRepository.recordChunk(uploadId, offset, offset + contentLength, partNumber, partTags,
+                    hash != null ? hash.exportState() : null, LocalDateTime.now()) == 0) {
+                // A concurrent retry of the same chunk was recorded first, under the same part number
+                UploadSession current = loadUploading(uploadId, ownerId);
+                throw new BusinessException("Expected chunk at offset " + current.getReceivedBytes());
+            }
+        } finally {
+            deleteSpooled(spooled);
+        }
+        return toResponse(loadSession(uploadId, ownerId));
+    }
+
+    /**
+     * Assemble the chunks and create the draft document.
+     */
+    public Document completeUpload(String uploadId, String ownerId) {
+        UploadSession session = loadUploading(uploadId, ownerId);
+        if (!session.getReceivedBytes().equals(session.getTotalSize())) {
+            throw new BusinessException("Upload incomplete: received " + session.getReceivedBytes()
+                    + " of " + session.getTotalSize() + " bytes");
+        }
+
+        if (!session.getAssembled()) {
+            storageService.completeMultipartUpload(session.getStorageKey(), session.getBackendUploadId(),
+                    partTags(session));
+
+            ResumableSha256 hash = restoreHash(session);
+            if (hash == null) {
+                log.warn("Chunked upload {} has no digest state, storing without deduplication", uploadId);
+            }
+            session.setContentHash(hash != null ? hash.hexDigest() : null);
+            session.setAssembled(true);
+            // A concurrent finalize may have assembled it first; it recorded the same hash
+            uploadSessionRepository.markAssembled(uploadId, session.getContentHash(), LocalDateTime.now());
+        }
+
+        UploadSession assembled = session;
+        Document document = transactionTemplate.execute(status -> {
+            File savedFile = fileService.registerStoredFile(assembled.getStorageKey(),
+                    assembled.getOriginalName(), assembled.getContentType(), assembled.getTotalSize(),
+                    assembled.getContentHash(), FileType.DOCUMENT, ownerId);
+            Document created = documentService.createDocument(savedFile, assembled.getTitle(),
+                    assembled.getOriginalName(), ownerId);
+
+            if (uploadSessionRepository.markCompleted(assembled.getId(), created.getId(), LocalDateTime.now()) == 0) {
+                // Rolls back the file and document: the concurrent finalize created them already
+                throw new BusinessException("Upload session is already completed");
+            }
+            return created;
+        });
+
+        log.info("Chunked upload {} completed as document {}", uploadId, document.getId());
+        return document;
+    }
+
+    public void abortUpload(String uploadId, String ownerId) {
+        UploadSession session = loadUploading(uploadId, ownerId);
+        abort(session);
+    }
+
+    /**
+     * Abort sessions abandoned for longer than the session TTL, releasing their partial blobs.
+     */
+    @Scheduled(fixedDelayString = "${upload.chunked.cleanup-interval-ms:3600000}",
+            initialDelayString = "${upload.chunked.cleanup-initial-delay-ms:600000}")
+    public void abortStaleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        List<UploadSession> stale = uploadSessionRepository.findStale(
+                UploadStatus.UPLOADING, cutoff, PageRequest.of(0, cleanupBatchSize));
+        for (UploadSession session : stale) {
+            try {
+                abort(session);
+            } catch (Exception e) {
+                log.error("Failed to abort stale upload {}", session.getId(), e);
+            }
+        }
+        if (!stale.isEmpty()) {
+            log.info("Aborted {} stale chunked uploads", stale.size());
+        }
+    }
+
+    private void abort(UploadSession session) {
+        if (session.getAssembled()) {
+            // The parts are already joined into the object; there is no multipart upload left to abort
+            storageService.delete(session.getStorageKey());
+        } else {
+            storageService.abortMultipartUpload(session.getStorageKey(), session.getBackendUploadId());
+        }
+        uploadSessionRepository.delete(session);
+        log.info("Chunked upload {} aborted", session.getId());
+    }
+
+    private UploadSession loadSession(String uploadId, String ownerId) {
+        return uploadSessionRepository.findById(uploadId)
+                .filter(session -> session.getOwnerId().equals(ownerId))
+                .orElseThrow(() -> new EntityNotFoundException("Upload session not found"));
+    }
+
+    private UploadSession loadUploading(String uploadId, String ownerId) {
+        UploadSession session = loadSession(uploadId, ownerId);
+        if (session.getStatus() != UploadStatus.UPLOADING) {
+            throw new BusinessException("Upload session is already completed");
+        }
+        return session;
+    }
+
+    private List<String> partTags(UploadSession session) {
+        return session.getPartTags() == null
+                ? new ArrayList<>()
+                : Arrays.asList(session.getPartTags().split(","));
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return UploadSessionResponse.builder()
+                .uploadId(session.getId())
+                .fileName(session.getOriginalName())
+                .totalSize(session.getTotalSize())
+                .receivedBytes(session.getReceivedBytes())
+                .minChunkSize(minChunkSize.toBytes())
+                .maxChunkSize(maxChunkSize.toBytes())
+                .status(session.getStatus())
+                .documentId(session.getDocumentId())
+                .build();
+    }
+
+    private String getFileExtension(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf("."));
+    }
+
+    /**
+     * Copy the chunk to a temporary file, hashing it on the way if {@code hash} is not null.
+     */
+    private static Path spool(InputStream body, long contentLength, ResumableSha256 hash) {
+        Path spooled;
+        try {
+            spooled = Files.createTempFile("upload-chunk-", ".part");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a spool file for the chunk", e);
+        }
+
+        CountingInputStream counted = new CountingInputStream(body, contentLength);
+        try (OutputStream out = Files.newOutputStream(spooled)) {
+            byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+            int read;
+            while ((read = counted.read(buffer, 0, buffer.length)) != -1) {
+                out.write(buffer, 0, read);
+                if (hash != null) {
+                    hash.update(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            deleteSpooled(spooled);
+            throw new BusinessException("Chunk could not be read after " + counted.count + " of "
+                    + contentLength + " bytes, please resend it");
+        }
+        if (counted.count != contentLength) {
+            deleteSpooled(spooled);
+            throw new BusinessException("Chunk ended after " + counted.count + " of " + contentLength + " bytes");
+        }
+        return spooled;
+    }
+
+    private static void deleteSpooled(Path spooled) {
+        try {
+            Files.deleteIfExists(spooled);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled chunk {}: {}", spooled, e.getMessage());
+        }
+    }
+
+    /**
+     * Running hash after the session's received bytes, or null if it was lost (a session started before the
+     * state was saved, and already past its first chunk).
+     */
+    private static ResumableSha256 restoreHash(UploadSession session) {
+        if (session.getDigestState() != null) {
+            return ResumableSha256.restore(session.getDigestState());
+        }
+        return session.getReceivedBytes() == 0 ? new ResumableSha256() : null;
+    }
+
+    /**
+     * Counts the bytes read and never reads past the declared chunk length.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int read = super.read(buffer, off, (int) Math.min(len, limit - count));
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package sis.hust.edu.vn.digital_signature.service.verification;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import sis.hust.edu.vn.digital_signature.dto.verification.SignatureVerification;
 import sis.hust.edu.vn.digital_signature.dto.verification.VerificationResponse;
@@ -16,11 +15,8 @@ import sis.hust.edu.vn.digital_signature.repository.crypto.UserKeyPairRepository
 import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
 import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
 import sis.hust.edu.vn.digital_signature.service.crypto.CryptoService;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.PublicKey;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -39,9 +35,7 @@ public class VerificationService {
     private final UserKeyPairRepository userKeyPairRepository;
     private final SignerRepository signerRepository;
     private final CryptoService cryptoService;
-
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
+    private final FileService fileService;
 
     /**
      * Verify all digital signatures on a document.
@@ -173,35 +167,19 @@ public class VerificationService {
      * Calculate the current SHA-256 hash of the document file.
      */
     private String calculateCurrentDocumentHash(Document document) {
-        try {
-            // Extract filename from fileUrl (e.g., "http://localhost:8555/api/files/uuid.pdf" -> "uuid.pdf")
-            String fileUrl = document.getFileUrl();
-            String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-            
-            Path filePath = Paths.get(uploadDir, fileName);
-            
-            if (!Files.exists(filePath)) {
-                log.error("Document file not found: {}", filePath);
-                throw new RuntimeException("Document file not found");
-            }
-
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            return cryptoService.hashDocument(fileBytes);
-        } catch (IOException e) {
-            log.error("Error reading document file: {}", e.getMessage());
-            throw new RuntimeException("Error reading document file", e);
-        }
+        return cryptoService.hashDocument(getDocumentBytes(document.getFileUrl()));
     }
 
     /**
      * Get document file bytes for hashing during signing.
+     * The file key in the URL maps to the stored object, which identical uploads share.
      */
     public byte[] getDocumentBytes(String fileUrl) {
         try {
+            // Extract filename from fileUrl (e.g., "http://localhost:8555/api/files/uuid.pdf" -> "uuid.pdf")
             String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-            Path filePath = Paths.get(uploadDir, fileName);
-            return Files.readAllBytes(filePath);
-        } catch (IOException e) {
+            return fileService.getFileBytes(fileName);
+        } catch (Exception e) {
             log.error("Error reading document file: {}", e.getMessage());
             throw new RuntimeException("Error reading document file", e);
         }
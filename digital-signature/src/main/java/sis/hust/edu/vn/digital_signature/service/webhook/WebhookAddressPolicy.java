@@ -0,0 +1,66 @@
+package sis.hust.edu.vn.digital_signature.service.webhook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+/**
+ * Keeps webhook requests away from the server's own network.
+ *
+ * Endpoint URLs are chosen by users, so without this check a webhook could reach loopback services,
+ * the private network or the cloud metadata endpoint (169.254.169.254). Every address the host
+ * resolves to must be public. The check runs on registration and again before each send, since
+ * the DNS record can be changed to point inward after the endpoint was accepted.
+ */
+@Component
+public class WebhookAddressPolicy {
+
+    // Local development only: lets webhooks target a receiver on localhost or the LAN
+    @Value("${webhooks.allow-private-addresses:false}")
+    private boolean allowPrivateAddresses;
+
+    /**
+     * Resolve the URL's host and reject it if any of its addresses is not public.
+     */
+    public void checkDestination(URI uri) {
+        if (allowPrivateAddresses) {
+            return;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new BusinessException("Webhook host cannot be resolved: " + uri.getHost());
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new BusinessException("Webhook URL must not point to a private or local address");
+            }
+        }
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0.0.0.0/8 and carrier-grade NAT 100.64.0.0/10
+            return first != 0 && !(first == 100 && (second & 0xc0) == 64);
+        }
+        if (address instanceof Inet6Address) {
+            // Unique local fc00::/7
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        return true;
+    }
+}
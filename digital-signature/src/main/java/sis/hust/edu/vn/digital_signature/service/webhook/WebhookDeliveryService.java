@@ -0,0 +1,351 @@
+package sis.hust.edu.vn.digital_signature.service.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.config.scheduling.WorkerThreads;
+import sis.hust.edu.vn.digital_signature.entity.enums.WebhookDeliveryStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookDelivery;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookEndpoint;
+import sis.hust.edu.vn.digital_signature.repository.webhook.WebhookDeliveryRepository;
+import sis.hust.edu.vn.digital_signature.repository.webhook.WebhookEndpointRepository;
+import sis.hust.edu.vn.digital_signature.util.id.TimeOrderedIds;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Sends stored webhook deliveries to integrators.
+ *
+ * Workers claim due rows per endpoint with {@code FOR UPDATE SKIP LOCKED} under a lease and POST up
+ * to {@code batch-size} events in one request. Each endpoint gets at most
+ * {@code max-concurrency-per-endpoint} requests in flight per instance, so a slow receiver only
+ * holds its own slots, never request threads or other endpoints' deliveries. Failures are retried
+ * with capped, jittered exponential backoff until {@code max-attempts}.
+ *
+ * Requests carry {@code Webhook-Id}, {@code Webhook-Timestamp} and
+ * {@code Webhook-Signature: v1=<hex HMAC-SHA256(secret, timestamp + "." + body)>}.
+ *
+ * Metrics: {@code webhook.deliveries} (counter by outcome, one per event), {@code webhook.pending}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookDeliveryService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookEndpointRepository endpointRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+    private final WebhookAddressPolicy addressPolicy;
+
+    @Value("${webhooks.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webhooks.workers:4}")
+    private int workers;
+
+    @Value("${webhooks.max-concurrency-per-endpoint:2}")
+    private int maxConcurrencyPerEndpoint;
+
+    @Value("${webhooks.batch-size:20}")
+    private int batchSize;
+
+    @Value("${webhooks.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${webhooks.base-backoff-ms:5000}")
+    private long baseBackoffMs;
+
+    @Value("${webhooks.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    // Must comfortably exceed the request timeout, or a slow delivery is handed out twice
+    @Value("${webhooks.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${webhooks.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${webhooks.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    @Value("${webhooks.retention-days:14}")
+    private int retentionDays;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final Map<String, AtomicInteger> inFlightByEndpoint = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                workerThreads.factory("webhook-worker-"));
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        Gauge.builder("webhook.pending", deliveryRepository,
+                        repository -> repository.countByStatus(WebhookDeliveryStatus.PENDING))
+                .description("Webhook events waiting to be delivered")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Wake the workers once the current transaction commits instead of waiting for the next poll.
+     */
+    public void nudgeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(WebhookDeliveryService.this::pollSafely);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${webhooks.poll-interval-ms:2000}",
+            initialDelayString = "${webhooks.initial-delay-ms:15000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        // A lock rather than synchronized: the claim queries block, and a virtual thread must not pin its carrier
+        pollLock.lock();
+        try {
+            pollLocked();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void pollLocked() {
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (String endpointId : deliveryRepository.findEndpointsWithDueDeliveries(now, capacity * 4)) {
+            AtomicInteger endpointInFlight = inFlightByEndpoint.computeIfAbsent(endpointId, id -> new AtomicInteger());
+            int slots = Math.min(capacity, maxConcurrencyPerEndpoint - endpointInFlight.get());
+            if (slots <= 0) {
+                continue; // this endpoint is saturated; its deliveries wait without blocking the others
+            }
+
+            List<WebhookDelivery> claimed = new ArrayList<>(deliveryRepository.claimDue(
+                    endpointId, now, now.plusSeconds(leaseSeconds), slots * batchSize));
+            claimed.sort(Comparator.comparing(WebhookDelivery::getNextAttemptAt));
+            for (int from = 0; from < claimed.size(); from += batchSize) {
+                List<WebhookDelivery> batch = List.copyOf(claimed.subList(from, Math.min(from + batchSize, claimed.size())));
+                capacity--;
+                inFlight.incrementAndGet();
+                endpointInFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        deliver(endpointId, batch);
+                    } finally {
+                        endpointInFlight.decrementAndGet();
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            if (capacity <= 0) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${webhooks.purge-cron:0 30 3 * * *}")
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = deliveryRepository.deleteFinishedBefore(cutoff, 1000);
+            total += deleted;
+        } while (deleted > 0);
+        if (total > 0) {
+            log.info("Purged {} finished webhook deliveries", total);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Webhook poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(String endpointId, List<WebhookDelivery> batch) {
+        List<String> ids = batch.stream().map(WebhookDelivery::getId).collect(Collectors.toList());
+        // One claim statement leased the whole batch with the same locked_until
+        LocalDateTime lease = batch.get(0).getLockedUntil();
+        WebhookEndpoint endpoint = endpointRepository.findById(endpointId)
+                .filter(WebhookEndpoint::getActive)
+                .orElse(null);
+        if (endpoint == null) {
+            finish(endpointId, ids, lease, WebhookDeliveryStatus.FAILED, "Endpoint removed or disabled");
+            return;
+        }
+
+        try {
+            URI uri = URI.create(endpoint.getUrl());
+            // Again at send time: the host may have been re-pointed at an internal address since registration.
+            // The client resolves through the same JVM DNS cache right after, so it connects to what was checked
+            addressPolicy.checkDestination(uri);
+
+            String body = buildBody(batch);
+            String timestamp = String.valueOf(Instant.now().getEpochSecond());
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .header("Webhook-Id", TimeOrderedIds.newId())
+                    .header("Webhook-Timestamp", timestamp)
+                    .header("Webhook-Signature", "v1=" + sign(endpoint.getSecret(), timestamp + "." + body))
+                    .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                    .build();
+
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                finish(endpointId, ids, lease, WebhookDeliveryStatus.DELIVERED, null);
+                return;
+            }
+            retryOrFail(endpoint, batch, lease, "HTTP " + response.statusCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            retryOrFail(endpoint, batch, lease, "Interrupted");
+        } catch (Exception e) {
+            retryOrFail(endpoint, batch, lease, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Body: {@code {"events": [{"id", "attempt", "type", "data"}, ...]}}; {@code id} is stable across
+     * retries so receivers can drop duplicates.
+     */
+    private String buildBody(List<WebhookDelivery> batch) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode events = root.putArray("events");
+        for (WebhookDelivery delivery : batch) {
+            ObjectNode event = events.addObject();
+            event.put("id", delivery.getId());
+            event.put("attempt", delivery.getAttempts());
+            event.put("type", delivery.getEventType());
+            event.set("data", objectMapper.readTree(delivery.getPayload()));
+        }
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private String sign(String secret, String content) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void retryOrFail(WebhookEndpoint endpoint, List<WebhookDelivery> batch, LocalDateTime lease,
+                             String error) {
+        String message = truncate(error);
+        // Attempts are counted per event; an event that joined the batch late keeps its own budget
+        Map<Boolean, List<String>> exhausted = batch.stream().collect(Collectors.partitioningBy(
+                delivery -> delivery.getAttempts() >= maxAttempts,
+                Collectors.mapping(WebhookDelivery::getId, Collectors.toList())));
+
+        if (!exhausted.get(true).isEmpty()) {
+            log.error("Webhook delivery to endpoint {} failed for good after {} attempts: {}",
+                    endpoint.getId(), maxAttempts, message);
+            finish(endpoint.getId(), exhausted.get(true), lease, WebhookDeliveryStatus.FAILED, message);
+        }
+        if (!exhausted.get(false).isEmpty()) {
+            int attempt = batch.stream().mapToInt(WebhookDelivery::getAttempts).min().orElse(1);
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(attempt)));
+            log.warn("Webhook delivery to endpoint {} failed (attempt {}), retrying at {}: {}",
+                    endpoint.getId(), attempt, nextAttemptAt, message);
+            int updated = deliveryRepository.scheduleRetry(exhausted.get(false), lease, nextAttemptAt, message,
+                    LocalDateTime.now());
+            outcomeCounter("retry").increment(updated);
+            leaseLost(endpoint.getId(), exhausted.get(false).size() - updated);
+        }
+    }
+
+    private void finish(String endpointId, List<String> ids, LocalDateTime lease, WebhookDeliveryStatus status,
+                        String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = deliveryRepository.markFinished(ids, lease, status,
+                status == WebhookDeliveryStatus.DELIVERED ? now : null, error, now);
+        outcomeCounter(status.name().toLowerCase()).increment(updated);
+        leaseLost(endpointId, ids.size() - updated);
+    }
+
+    private void leaseLost(String endpointId, int lost) {
+        if (lost <= 0) {
+            return;
+        }
+        // Took longer than the lease: those deliveries were reclaimed and the new holder's outcome wins
+        log.warn("Lost the lease on {} deliveries to endpoint {}, dropping this attempt's outcome", lost, endpointId);
+        outcomeCounter("lease_lost").increment(lost);
+    }
+
+    private long backoffMillis(int attempt) {
+        // Exponential and capped, jittered over the upper half so retries against one endpoint spread out
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("webhook.deliveries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,183 @@
+package sis.hust.edu.vn.digital_signature.service.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEvent;
+import sis.hust.edu.vn.digital_signature.dto.event.DocumentEventType;
+import sis.hust.edu.vn.digital_signature.dto.webhook.CreateWebhookRequest;
+import sis.hust.edu.vn.digital_signature.dto.webhook.WebhookEndpointResponse;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookDelivery;
+import sis.hust.edu.vn.digital_signature.entity.model.WebhookEndpoint;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.exception.entity.EntityNotFoundException;
+import sis.hust.edu.vn.digital_signature.repository.webhook.WebhookDeliveryRepository;
+import sis.hust.edu.vn.digital_signature.repository.webhook.WebhookEndpointRepository;
+import sis.hust.edu.vn.digital_signature.util.id.SecureTokens;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Webhook subscriptions and the write side of their outbox.
+ * {@link #enqueue} stores one delivery row per matching endpoint in the caller's transaction;
+ * {@link WebhookDeliveryService} sends them once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookService {
+
+
+    private final WebhookEndpointRepository endpointRepository;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookDeliveryService deliveryService;
+    private final WebhookAddressPolicy addressPolicy;
+    private final ObjectMapper objectMapper;
+
+    @Value("${webhooks.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webhooks.max-endpoints-per-user:10}")
+    private int maxEndpointsPerUser;
+
+    @Value("${webhooks.allow-http:false}")
+    private boolean allowHttp;
+
+    @Transactional
+    public WebhookEndpointResponse createEndpoint(CreateWebhookRequest request, String ownerId) {
+        validateUrl(request.getUrl());
+        if (endpointRepository.countByOwnerId(ownerId) >= maxEndpointsPerUser) {
+            throw new BusinessException("You can register at most " + maxEndpointsPerUser + " webhook endpoints");
+        }
+
+        String eventTypes = request.getEventTypes() == null || request.getEventTypes().isEmpty()
+                ? null
+                : request.getEventTypes().stream().distinct().map(Enum::name).collect(Collectors.joining(","));
+
+        WebhookEndpoint endpoint = endpointRepository.save(WebhookEndpoint.builder()
+                .ownerId(ownerId)
+                .url(request.getUrl())
+                .secret(generateSecret())
+                .eventTypes(eventTypes)
+                .build());
+        log.info("Webhook endpoint {} registered by {}", endpoint.getId(), ownerId);
+
+        // The secret is shown once; integrators need it to verify signatures
+        WebhookEndpointResponse response = toResponse(endpoint);
+        response.setSecret(endpoint.getSecret());
+        return response;
+    }
+
+    public List<WebhookEndpointResponse> listEndpoints(String ownerId) {
+        return endpointRepository.findByOwnerIdOrderByCreatedAtDesc(ownerId).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void deleteEndpoint(String endpointId, String ownerId) {
+        WebhookEndpoint endpoint = endpointRepository.findById(endpointId)
+                .filter(found -> found.getOwnerId().equals(ownerId))
+                .orElseThrow(() -> new EntityNotFoundException("Webhook endpoint not found"));
+        deliveryRepository.deleteByEndpointId(endpoint.getId());
+        endpointRepository.delete(endpoint);
+    }
+
+    /**
+     * Record these events for every active endpoint of their owners that subscribes to them.
+     * Must run inside the transaction that made the change, so an event is stored if and only if it happened.
+     */
+    public void enqueue(List<DocumentEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        Set<String> ownerIds = events.stream().map(DocumentEvent::getOwnerId).collect(Collectors.toSet());
+        Map<String, List<WebhookEndpoint>> endpointsByOwner = endpointRepository.findByOwnerIdInAndActiveTrue(ownerIds)
+                .stream()
+                .collect(Collectors.groupingBy(WebhookEndpoint::getOwnerId));
+        if (endpointsByOwner.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<WebhookDelivery> deliveries = new ArrayList<>();
+        for (DocumentEvent event : events) {
+            List<WebhookEndpoint> endpoints = endpointsByOwner.getOrDefault(event.getOwnerId(), List.of());
+            String payload = null;
+            for (WebhookEndpoint endpoint : endpoints) {
+                if (!subscribes(endpoint, event.getType())) {
+                    continue;
+                }
+                if (payload == null) {
+                    payload = toJson(event);
+                }
+                deliveries.add(WebhookDelivery.builder()
+                        .endpointId(endpoint.getId())
+                        .eventType(event.getType().name())
+                        .payload(payload)
+                        .nextAttemptAt(now)
+                        .build());
+            }
+        }
+        if (!deliveries.isEmpty()) {
+            deliveryRepository.saveAll(deliveries);
+            deliveryService.nudgeAfterCommit();
+        }
+    }
+
+    private boolean subscribes(WebhookEndpoint endpoint, DocumentEventType type) {
+        return endpoint.getEventTypes() == null
+                || Arrays.asList(endpoint.getEventTypes().split(",")).contains(type.name());
+    }
+
+    private String toJson(DocumentEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize document event", e);
+        }
+    }
+
+    private void validateUrl(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new BusinessException("Invalid webhook URL");
+        }
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase();
+        boolean schemeAllowed = scheme.equals("https") || (allowHttp && scheme.equals("http"));
+        if (!schemeAllowed || uri.getHost() == null) {
+            throw new BusinessException(allowHttp
+                    ? "Webhook URL must be an absolute http(s) URL"
+                    : "Webhook URL must be an absolute https URL");
+        }
+        addressPolicy.checkDestination(uri);
+    }
+
+    private String generateSecret() {
+        return "whsec_" + SecureTokens.newToken();
+    }
+
+    private WebhookEndpointResponse toResponse(WebhookEndpoint endpoint) {
+        return WebhookEndpointResponse.builder()
+                .id(endpoint.getId())
+                .url(endpoint.getUrl())
+                .eventTypes(endpoint.getEventTypes() == null ? List.of() : Arrays.asList(endpoint.getEventTypes().split(",")))
+                .active(endpoint.getActive())
+                .createdAt(endpoint.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package sis.hust.edu.vn.digital_signature.util.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: one record at a time, quoted values may contain
+ * commas, doubled quotes and line breaks. A leading UTF-8 BOM is skipped.
+ */
+public class CsvReader {
+
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+    private boolean started;
+
+    public CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return the next record's values, or null at end of input
+     * @throws IOException on read errors or a record longer than the configured limit
+     */
+    public List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+
+        while (c != -1) {
+            if (++length > maxRecordLength) {
+                throw new IOException("CSV record longer than " + maxRecordLength + " characters");
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+}
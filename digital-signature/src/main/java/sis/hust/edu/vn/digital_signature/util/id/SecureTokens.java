@@ -0,0 +1,74 @@
+package sis.hust.edu.vn.digital_signature.util.id;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Unguessable tokens for signing links, refresh tokens and secrets.
+ *
+ * Draws come from a small striped array of DRBGs (NIST SP 800-90A, 256-bit strength), each seeded
+ * from the system entropy source and personalized with its stripe index; each draw picks a stripe
+ * at random, so token generation does not serialize on one shared SecureRandom. Striping rather than a
+ * DRBG per thread keeps the cost fixed when requests run on short-lived virtual threads.
+ * Tokens are base64url without padding: 32 bytes make 43 URL-safe chars.
+ */
+public final class SecureTokens {
+
+    private static final int DEFAULT_TOKEN_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final SecureRandom[] STRIPES = newStripes();
+    private static final int STRIPE_MASK = STRIPES.length - 1;
+
+    private SecureTokens() {
+    }
+
+    public static String newToken() {
+        return newToken(DEFAULT_TOKEN_BYTES);
+    }
+
+    public static String newToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random().nextBytes(buffer);
+        return ENCODER.encodeToString(buffer);
+    }
+
+    public static void nextBytes(byte[] bytes) {
+        random().nextBytes(bytes);
+    }
+
+    /**
+     * Uniform in {@code [0, bound)}.
+     */
+    public static int nextInt(int bound) {
+        return random().nextInt(bound);
+    }
+
+    private static SecureRandom random() {
+        // DRBG instances synchronize internally, so sharing a stripe is safe, only contended.
+        // The stripe index only spreads load; ThreadLocalRandom is cheap and needs no thread id
+        return STRIPES[ThreadLocalRandom.current().nextInt() & STRIPE_MASK];
+    }
+
+    private static SecureRandom[] newStripes() {
+        // Power of two at least twice the core count, so the mask spreads threads evenly
+        int stripes = Integer.highestOneBit(Math.max(1, 2 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        SecureRandom[] randoms = new SecureRandom[stripes];
+        for (int i = 0; i < stripes; i++) {
+            randoms[i] = newDrbg(i);
+        }
+        return randoms;
+    }
+
+    private static SecureRandom newDrbg(int stripe) {
+        byte[] personalization = ("secure-tokens-" + stripe).getBytes();
+        try {
+            return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(
+                    256, DrbgParameters.Capability.RESEED_ONLY, personalization));
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
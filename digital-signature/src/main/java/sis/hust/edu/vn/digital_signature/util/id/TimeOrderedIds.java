@@ -0,0 +1,38 @@
+package sis.hust.edu.vn.digital_signature.util.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 (RFC 9562) identifiers: a 48-bit millisecond timestamp followed by random bits, so new
+ * rows land at the right-hand edge of primary key indexes instead of on random pages.
+ *
+ * Ids from this process are strictly increasing: the 12-bit {@code rand_a} field is a counter
+ * within the millisecond, and a burst of more than 4096 ids in one millisecond borrows from the next.
+ * Ids are not secrets; use {@link SecureTokens} for anything that must be unguessable.
+ */
+public final class TimeOrderedIds {
+
+    // Millisecond timestamp << 12 | counter of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedIds() {
+    }
+
+    public static UUID newUuid() {
+        long now = System.currentTimeMillis() << 12;
+        long next = LAST.updateAndGet(last -> Math.max(now, last + 1));
+
+        long mostSignificant = (next >>> 12) << 16 // unix_ts_ms
+                | 0x7000L                          // version 7
+                | (next & 0xFFFL);                 // rand_a: sequence within the millisecond
+        long leastSignificant = ThreadLocalRandom.current().nextLong() >>> 2
+                | 0x8000000000000000L;             // variant 10, then 62 random bits
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    public static String newId() {
+        return newUuid().toString();
+    }
+}
@@ -1,9 +1,13 @@
 package sis.hust.edu.vn.digital_signature;
 
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+
+@SpringBootTest(properties = "storage.local.upload-dir=target/test-uploads")
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
 class DigitalSignatureWebApplicationTests {
 
 	@Test
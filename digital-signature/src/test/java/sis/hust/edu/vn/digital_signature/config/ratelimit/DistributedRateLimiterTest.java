@@ -0,0 +1,136 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
+import sis.hust.edu.vn.digital_signature.repository.ratelimit.RateLimitBucketRepository;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Buckets shared through the {@code rate_limit_buckets} table of a real Postgres, with two limiters
+ * standing in for two instances.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DistributedRateLimiterTest {
+
+    private static final int PER_MINUTE = 10;
+    private static final long LOCAL_TOKENS = 1;
+    private static final Map<String, BucketConfiguration> CONFIGURATIONS = Map.of("login", BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(PER_MINUTE).refillIntervally(PER_MINUTE, Duration.ofMinutes(1)))
+            .build());
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RateLimitBucketRepository rateLimitBucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void cleanUp() {
+        rateLimitBucketRepository.deleteAll();
+    }
+
+    @Test
+    void limitHoldsAcrossInstances() {
+        DistributedRateLimiter instanceA = limiter(dataSource, true);
+        DistributedRateLimiter instanceB = limiter(dataSource, true);
+
+        int allowed = 0;
+        for (int i = 0; i < 2 * PER_MINUTE; i++) {
+            DistributedRateLimiter instance = i % 2 == 0 ? instanceA : instanceB;
+            if (instance.tryConsume("login", "client-1", 1)) {
+                allowed++;
+            }
+        }
+
+        // Each instance may run ahead of the table by its local tokens, never by a whole limit
+        assertThat(allowed).isBetween(PER_MINUTE, PER_MINUTE + 2 * (int) LOCAL_TOKENS);
+        assertThat(rateLimitBucketRepository.existsById("login:client-1")).isTrue();
+        assertThat(instanceA.tryConsume("login", "client-2", 1)).isTrue();
+    }
+
+    @Test
+    void unreachableTableFallsBackToLocalBucketsWhenFailingOpen() throws SQLException {
+        DistributedRateLimiter limiter = limiter(brokenDataSource(), true);
+
+        int allowed = 0;
+        for (int i = 0; i < 2 * PER_MINUTE; i++) {
+            if (limiter.tryConsume("login", "client-1", 1)) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(PER_MINUTE);
+        assertThat(meterRegistry.get("rate.limit.degraded").counter().count()).isEqualTo(2 * PER_MINUTE);
+    }
+
+    @Test
+    void unreachableTableRejectsWhenFailingClosed() throws SQLException {
+        DistributedRateLimiter limiter = limiter(brokenDataSource(), false);
+
+        assertThatThrownBy(() -> limiter.tryConsume("login", "client-1", 1))
+                .isInstanceOfSatisfying(CapacityExceededException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void idleBucketsArePurgedAndUsedOnesKept() {
+        DistributedRateLimiter limiter = limiter(dataSource, true);
+        limiter.tryConsume("login", "idle", 1);
+        limiter.tryConsume("login", "active", 1);
+        limiter.flushTouched();
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET touched_at = now() - interval '2 hours' WHERE id = ?",
+                "login:idle");
+
+        limiter.purgeIdle();
+
+        assertThat(rateLimitBucketRepository.existsById("login:idle")).isFalse();
+        assertThat(rateLimitBucketRepository.existsById("login:active")).isTrue();
+    }
+
+    private DistributedRateLimiter limiter(DataSource source, boolean failOpen) {
+        SQLProxyConfiguration<String> proxyConfiguration = SQLProxyConfiguration.builder()
+                .withTableSettings(BucketTableSettings.customSettings("rate_limit_buckets", "id", "state"))
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .build(source);
+        return new DistributedRateLimiter(new PostgreSQLSelectForUpdateBasedProxyManager<>(proxyConfiguration),
+                CONFIGURATIONS, LOCAL_TOKENS, Duration.ofMillis(1), 100, Duration.ofHours(1), failOpen,
+                Duration.ofMinutes(1), rateLimitBucketRepository, meterRegistry);
+    }
+
+    private static DataSource brokenDataSource() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("Connection refused"));
+        return broken;
+    }
+}
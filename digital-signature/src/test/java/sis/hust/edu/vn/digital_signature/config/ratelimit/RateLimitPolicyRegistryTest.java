@@ -0,0 +1,133 @@
+package sis.hust.edu.vn.digital_signature.config.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitPolicyRegistryTest {
+
+    private RateLimitPolicyRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitBucketProperties.BucketLimits auth = new RateLimitBucketProperties.BucketLimits();
+        auth.setTokensPerMinute(10);
+        auth.setTokensPerHour(100);
+        RateLimitBucketProperties properties = new RateLimitBucketProperties();
+        properties.getBuckets().put("auth", auth);
+
+        RateLimitConfig config = new RateLimitConfig(properties);
+        ReflectionTestUtils.setField(config, "requestsPerMinute", 60);
+        ReflectionTestUtils.setField(config, "requestsPerHour", 1000);
+        config.init();
+        registry = new RateLimitPolicyRegistry(config);
+    }
+
+    @Test
+    void resolvesMethodAndClassLevelPolicies() {
+        refresh(ValidController.class);
+
+        assertThat(registry.resolve(handler(ValidController.class, "login")))
+                .isEqualTo(new RateLimitPolicy("auth", 5));
+        assertThat(registry.resolve(handler(ValidController.class, "inherited")))
+                .isEqualTo(new RateLimitPolicy("default", 2));
+    }
+
+    @Test
+    void unannotatedRoutesAndOtherHandlersGetTheDefault() {
+        refresh(ValidController.class);
+
+        assertThat(registry.resolve(handler(PlainController.class, "list"))).isEqualTo(RateLimitPolicy.DEFAULT);
+        assertThat(registry.resolve(new Object())).isEqualTo(RateLimitPolicy.DEFAULT);
+    }
+
+    @Test
+    void unknownBucketFailsStartup() {
+        assertThatThrownBy(() -> refresh(UnknownBucketController.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Unknown rate limit bucket 'nope'");
+    }
+
+    @Test
+    void costAboveBucketCapacityFailsStartup() {
+        // "auth" holds 10 tokens per minute
+        assertThatThrownBy(() -> refresh(OversizedCostController.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("does not fit bucket 'auth'");
+    }
+
+    @Test
+    void costBelowOneFailsStartup() {
+        assertThatThrownBy(() -> refresh(ZeroCostController.class))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void refresh(Class<?> controller) {
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+        Arrays.stream(controller.getDeclaredMethods()).forEach(method -> handlerMethods.put(
+                RequestMappingInfo.paths("/" + method.getName()).build(), handler(controller, method.getName())));
+
+        RequestMappingHandlerMapping mapping = mock(RequestMappingHandlerMapping.class);
+        when(mapping.getHandlerMethods()).thenReturn(handlerMethods);
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getBeansOfType(RequestMappingHandlerMapping.class)).thenReturn(Map.of("mapping", mapping));
+
+        registry.onContextRefreshed(new ContextRefreshedEvent(context));
+    }
+
+    private static HandlerMethod handler(Class<?> controller, String methodName) {
+        try {
+            return new HandlerMethod(controller.getDeclaredConstructor().newInstance(),
+                    controller.getDeclaredMethod(methodName));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @RateLimited(cost = 2)
+    static class ValidController {
+        @RateLimited(bucket = "auth", cost = 5)
+        public void login() {
+        }
+
+        public void inherited() {
+        }
+    }
+
+    static class PlainController {
+        public void list() {
+        }
+    }
+
+    static class UnknownBucketController {
+        @RateLimited(bucket = "nope")
+        public void call() {
+        }
+    }
+
+    static class OversizedCostController {
+        @RateLimited(bucket = "auth", cost = 11)
+        public void call() {
+        }
+    }
+
+    static class ZeroCostController {
+        @RateLimited(cost = 0)
+        public void call() {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package sis.hust.edu.vn.digital_signature.repository.crypto;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.entity.enums.DigitalSignatureStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.DocumentSignature;
+import sis.hust.edu.vn.digital_signature.entity.model.SignatureTask;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs with the application's {@code ddl-auto=update} and skipped unique constraints, so the
+ * uniqueness checked here is the one {@link SchemaMaintenance} creates.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SchemaMaintenance.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SignatureTaskRepositoryTest {
+
+    @Autowired
+    private SignatureTaskRepository signatureTaskRepository;
+
+    @Autowired
+    private DocumentSignatureRepository documentSignatureRepository;
+
+    @AfterEach
+    void cleanUp() {
+        signatureTaskRepository.deleteAll();
+        documentSignatureRepository.deleteAll();
+    }
+
+    @Test
+    void secondTaskForTheSameSignerIsRejected() {
+        signatureTaskRepository.save(task("doc-1", "signer-1", LocalDateTime.now()));
+
+        assertThatThrownBy(() -> signatureTaskRepository.save(task("doc-1", "signer-1", LocalDateTime.now())))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(signatureTaskRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void secondDocumentSignatureForTheSameSignerIsRejected() {
+        documentSignatureRepository.save(signature("doc-1", "signer-1"));
+
+        assertThatThrownBy(() -> documentSignatureRepository.save(signature("doc-1", "signer-1")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void claimHandsOutEachDueTaskOnceWhileLeased() {
+        LocalDateTime now = LocalDateTime.now();
+        signatureTaskRepository.save(task("doc-1", "signer-1", now.minusSeconds(1)));
+        signatureTaskRepository.save(task("doc-1", "signer-2", now.plusMinutes(5)));
+
+        List<SignatureTask> claimed = signatureTaskRepository.claimDue(now, now.plusMinutes(1), 10);
+
+        assertThat(claimed).extracting(SignatureTask::getSignerId).containsExactly("signer-1");
+        assertThat(claimed.get(0).getAttempts()).isEqualTo(1);
+        assertThat(signatureTaskRepository.claimDue(now, now.plusMinutes(1), 10)).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndTheOldHolderCannotRecordItsOutcome() {
+        LocalDateTime now = LocalDateTime.now();
+        signatureTaskRepository.save(task("doc-1", "signer-1", now.minusSeconds(1)));
+        SignatureTask first = signatureTaskRepository.claimDue(now, now.plusSeconds(30), 10).get(0);
+
+        LocalDateTime later = now.plusMinutes(1);
+        SignatureTask second = signatureTaskRepository.claimDue(later, later.plusSeconds(30), 10).get(0);
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(signatureTaskRepository.markFinished(first.getId(), first.getLockedUntil(),
+                DigitalSignatureStatus.COMPLETED, null, later)).isZero();
+        assertThat(signatureTaskRepository.scheduleRetry(first.getId(), first.getLockedUntil(), later, "late",
+                later)).isZero();
+        assertThat(signatureTaskRepository.markFinished(second.getId(), second.getLockedUntil(),
+                DigitalSignatureStatus.COMPLETED, null, later)).isEqualTo(1);
+    }
+
+    private static SignatureTask task(String documentId, String signerId, LocalDateTime nextAttemptAt) {
+        return SignatureTask.builder()
+                .documentId(documentId)
+                .signerId(signerId)
+                .signerEmail(signerId + "@example.com")
+                .fileUrl("/api/files/contract.pdf")
+                .nextAttemptAt(nextAttemptAt)
+                .build();
+    }
+
+    private static DocumentSignature signature(String documentId, String signerId) {
+        return DocumentSignature.builder()
+                .documentId(documentId)
+                .signerId(signerId)
+                .userId("user-1")
+                .documentHash("hash")
+                .signature("signature")
+                .signedAt(LocalDateTime.now())
+                .build();
+    }
+}
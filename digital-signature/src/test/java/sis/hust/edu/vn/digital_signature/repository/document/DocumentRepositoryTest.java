@@ -0,0 +1,87 @@
+package sis.hust.edu.vn.digital_signature.repository.document;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.repository.file.FileRepository;
+import sis.hust.edu.vn.digital_signature.util.id.TimeOrderedIds;
+
+import java.time.LocalDateTime;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deleting a document and releasing its file happen in one transaction, as in
+ * {@code DocumentService.deleteDocument}. The release queries clear the persistence context, which
+ * must not throw away the pending document delete.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SchemaMaintenance.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentRepositoryTest {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        documentRepository.deleteAll();
+        fileRepository.deleteAll();
+    }
+
+    @Test
+    void documentDeleteSurvivesReleasingItsFileInTheSameTransaction() {
+        File file = fileRepository.insertOrAcquire(newFile());
+        Document document = documentRepository.save(Document.builder()
+                .title("Contract")
+                .fileUrl(file.getFileUrl())
+                .fileSize(file.getFileSize())
+                .ownerId("alice")
+                .build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            documentRepository.delete(documentRepository.findById(document.getId()).orElseThrow());
+            fileRepository.decrementRefCount(file.getId());
+            fileRepository.deleteIfUnreferenced(file.getId());
+        });
+
+        assertThat(documentRepository.findById(document.getId())).isEmpty();
+        assertThat(fileRepository.findById(file.getId())).isEmpty();
+    }
+
+    private static File newFile() {
+        String fileName = TimeOrderedIds.newId() + ".pdf";
+        return File.builder()
+                .id(TimeOrderedIds.newId())
+                .fileName(fileName)
+                .originalName("contract.pdf")
+                .filePath(fileName)
+                .fileUrl("/api/files/" + fileName)
+                .fileSize(1024L)
+                .mimeType("application/pdf")
+                .fileType(FileType.DOCUMENT)
+                .uploadedAt(LocalDateTime.now())
+                .uploadedBy("alice")
+                .contentHash("hash-" + fileName)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package sis.hust.edu.vn.digital_signature.repository.file;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.util.id.TimeOrderedIds;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on a real Postgres: the upsert relies on ON CONFLICT, which H2 does not support. The unique
+ * index it targets comes from {@link SchemaMaintenance}, as in production. Tests commit their own
+ * transactions so concurrent uploads really race.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SchemaMaintenance.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileRepositoryTest {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @AfterEach
+    void cleanUp() {
+        fileRepository.deleteAll();
+    }
+
+    @Test
+    void insertOrAcquireTakesAReferenceOnTheUploadersExistingRow() {
+        File first = fileRepository.insertOrAcquire(newFile("alice", "hash-1"));
+        File second = fileRepository.insertOrAcquire(newFile("alice", "hash-1"));
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getFileName()).isEqualTo(first.getFileName());
+        assertThat(second.getRefCount()).isEqualTo(2);
+        assertThat(fileRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void insertOrAcquireKeepsUploadersApart() {
+        File alice = fileRepository.insertOrAcquire(newFile("alice", "hash-1"));
+        File bob = fileRepository.insertOrAcquire(newFile("bob", "hash-1"));
+
+        assertThat(bob.getId()).isNotEqualTo(alice.getId());
+        assertThat(bob.getRefCount()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentUploadsOfTheSameContentShareOneRow() throws Exception {
+        int uploads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(uploads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<File>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < uploads; i++) {
+                File file = newFile("alice", "hash-race");
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return fileRepository.insertOrAcquire(file);
+                }));
+            }
+            start.countDown();
+
+            String winner = null;
+            for (Future<File> result : results) {
+                File file = result.get();
+                if (winner == null) {
+                    winner = file.getId();
+                }
+                assertThat(file.getId()).isEqualTo(winner);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(fileRepository.count()).isEqualTo(1);
+        assertThat(fileRepository.findByUploadedByAndContentHash("alice", "hash-race"))
+                .hasValueSatisfying(file -> assertThat(file.getRefCount()).isEqualTo(uploads));
+    }
+
+    @Test
+    void gcOnlyCollectsFilesReleasedToZero() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(1);
+        File referenced = fileRepository.insertOrAcquire(newFile("alice", "hash-live", longAgo));
+        File released = fileRepository.insertOrAcquire(newFile("alice", "hash-released", longAgo));
+        File releasedRecently = fileRepository.insertOrAcquire(newFile("alice", "hash-recent", LocalDateTime.now()));
+        fileRepository.decrementRefCount(released.getId());
+        fileRepository.decrementRefCount(releasedRecently.getId());
+
+        List<File> collectable = fileRepository.findUnreferencedAfter("", LocalDateTime.now().minusHours(1),
+                PageRequest.of(0, 100));
+
+        assertThat(collectable).extracting(File::getId)
+                .containsExactly(released.getId())
+                .doesNotContain(referenced.getId(), releasedRecently.getId());
+    }
+
+    @Test
+    void deleteIfUnreferencedSparesARevivedRow() {
+        File file = fileRepository.insertOrAcquire(newFile("alice", "hash-revived"));
+        fileRepository.decrementRefCount(file.getId());
+        // A deduplicated upload took the row back between the collector's scan and its delete
+        fileRepository.incrementRefCount(file.getId());
+
+        assertThat(fileRepository.deleteIfUnreferenced(file.getId())).isZero();
+        assertThat(fileRepository.findById(file.getId())).isPresent();
+    }
+
+    private static File newFile(String uploadedBy, String contentHash) {
+        return newFile(uploadedBy, contentHash, LocalDateTime.now());
+    }
+
+    private static File newFile(String uploadedBy, String contentHash, LocalDateTime uploadedAt) {
+        String fileName = TimeOrderedIds.newId() + ".pdf";
+        return File.builder()
+                .id(TimeOrderedIds.newId())
+                .fileName(fileName)
+                .originalName("contract.pdf")
+                .filePath(fileName)
+                .fileUrl("/api/files/" + fileName)
+                .fileSize(1024L)
+                .mimeType("application/pdf")
+                .fileType(FileType.DOCUMENT)
+                .uploadedAt(uploadedAt)
+                .uploadedBy(uploadedBy)
+                .contentHash(contentHash)
+                .build();
+    }
+}
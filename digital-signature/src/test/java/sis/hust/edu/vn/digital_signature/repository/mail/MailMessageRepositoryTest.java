@@ -0,0 +1,103 @@
+package sis.hust.edu.vn.digital_signature.repository.mail;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.MailStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.MailMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailMessageRepositoryTest {
+
+    @Autowired
+    private MailMessageRepository mailMessageRepository;
+
+    @AfterEach
+    void cleanUp() {
+        mailMessageRepository.deleteAll();
+    }
+
+    @Test
+    void claimHandsOutEachDueMessageOnceWhileLeased() {
+        LocalDateTime now = LocalDateTime.now();
+        mailMessageRepository.save(message("due@example.com", now.minusSeconds(1), null));
+        mailMessageRepository.save(message("later@example.com", now.plusMinutes(5), null));
+
+        List<MailMessage> claimed = mailMessageRepository.claimDue(now, now.plusMinutes(1), 10);
+
+        assertThat(claimed).extracting(MailMessage::getRecipient).containsExactly("due@example.com");
+        assertThat(claimed.get(0).getStatus()).isEqualTo(MailStatus.SENDING);
+        assertThat(claimed.get(0).getAttempts()).isEqualTo(1);
+        assertThat(mailMessageRepository.claimDue(now, now.plusMinutes(1), 10)).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndTheOldHolderCannotRecordItsOutcome() {
+        LocalDateTime now = LocalDateTime.now();
+        mailMessageRepository.save(message("user@example.com", now.minusSeconds(1), null));
+        MailMessage first = mailMessageRepository.claimDue(now, now.plusSeconds(30), 10).get(0);
+
+        LocalDateTime later = now.plusMinutes(1);
+        MailMessage second = mailMessageRepository.claimDue(later, later.plusSeconds(30), 10).get(0);
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getAttempts()).isEqualTo(2);
+
+        assertThat(mailMessageRepository.markSent(List.of(first.getId()), first.getLockedUntil(), later)).isZero();
+        assertThat(mailMessageRepository.markFailed(first.getId(), first.getLockedUntil(), "late", later)).isZero();
+        assertThat(mailMessageRepository.scheduleRetry(first.getId(), first.getLockedUntil(), later, "late", later))
+                .isZero();
+
+        assertThat(mailMessageRepository.markSent(List.of(second.getId()), second.getLockedUntil(), later)).isEqualTo(1);
+        MailMessage sent = mailMessageRepository.findById(second.getId()).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(MailStatus.SENT);
+        assertThat(sent.getBody()).isNull();
+    }
+
+    @Test
+    void overdueMessagesAreNeverClaimedAndExpireWithoutTheirBody() {
+        LocalDateTime now = LocalDateTime.now();
+        MailMessage overdue = mailMessageRepository.save(
+                message("otp@example.com", now.minusMinutes(1), now.minusSeconds(1)));
+
+        assertThat(mailMessageRepository.claimDue(now, now.plusSeconds(30), 10)).isEmpty();
+        assertThat(mailMessageRepository.expireOverdue(now)).isEqualTo(1);
+
+        MailMessage expired = mailMessageRepository.findById(overdue.getId()).orElseThrow();
+        assertThat(expired.getStatus()).isEqualTo(MailStatus.EXPIRED);
+        assertThat(expired.getBody()).isNull();
+    }
+
+    @Test
+    void messageBeingSentExpiresOnlyOnceItsLeaseRunsOut() {
+        LocalDateTime now = LocalDateTime.now();
+        mailMessageRepository.save(message("otp@example.com", now.minusSeconds(1), now.plusSeconds(10)));
+        MailMessage claimed = mailMessageRepository.claimDue(now, now.plusSeconds(30), 10).get(0);
+
+        assertThat(mailMessageRepository.expireOverdue(now.plusSeconds(20))).isZero();
+        assertThat(mailMessageRepository.expireOverdue(now.plusSeconds(40))).isEqualTo(1);
+        assertThat(mailMessageRepository.markSent(List.of(claimed.getId()), claimed.getLockedUntil(), now)).isZero();
+    }
+
+    private static MailMessage message(String recipient, LocalDateTime nextAttemptAt, LocalDateTime expiresAt) {
+        return MailMessage.builder()
+                .kind("otp")
+                .recipient(recipient)
+                .subject("Your code")
+                .body("Your code is 123456")
+                .nextAttemptAt(nextAttemptAt)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package sis.hust.edu.vn.digital_signature.repository.template;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.entity.model.BulkSendRecipient;
+
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SchemaMaintenance.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkSendRecipientRepositoryTest {
+
+    @Autowired
+    private BulkSendRecipientRepository recipientRepository;
+
+    @AfterEach
+    void cleanUp() {
+        recipientRepository.deleteAll();
+    }
+
+    @Test
+    void sameRowOfAJobCannotBeInsertedTwice() {
+        recipientRepository.save(recipient("job-1", 1));
+
+        assertThatThrownBy(() -> recipientRepository.save(recipient("job-1", 1)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(recipientRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingRecipientsComeInRowOrder() {
+        recipientRepository.saveAll(List.of(recipient("job-1", 2), recipient("job-1", 1), recipient("job-2", 1)));
+
+        assertThat(recipientRepository.findPending("job-1", PageRequest.of(0, 10)))
+                .extracting(BulkSendRecipient::getRowNumber)
+                .containsExactly(1, 2);
+    }
+
+    private static BulkSendRecipient recipient(String jobId, int rowNumber) {
+        return BulkSendRecipient.builder()
+                .jobId(jobId)
+                .rowNumber(rowNumber)
+                .email("row" + rowNumber + "@example.com")
+                .name("Row " + rowNumber)
+                .build();
+    }
+}
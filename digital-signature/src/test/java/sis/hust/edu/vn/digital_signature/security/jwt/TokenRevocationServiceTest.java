@@ -0,0 +1,74 @@
+package sis.hust.edu.vn.digital_signature.security.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private static final long SYNC_INTERVAL_MS = 5_000;
+
+    private UserRepository userRepository;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.getExpirationMillis()).thenReturn(900_000L);
+        service = new TokenRevocationService(userRepository, jwtService);
+        ReflectionTestUtils.setField(service, "syncIntervalMs", SYNC_INTERVAL_MS);
+        service.init();
+    }
+
+    @Test
+    void tokensIssuedUpToTheRevocationAreRejected() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        service.revokeUser("u1");
+
+        assertThat(service.isRevoked("u1", issuedAt)).isTrue();
+        assertThat(service.isRevoked("u1", issuedAt.plusSeconds(60))).isFalse();
+        assertThat(service.isRevoked("u2", issuedAt)).isFalse();
+    }
+
+    @Test
+    void syncPicksUpUsersDeactivatedElsewhere() {
+        LocalDateTime deactivatedAt = LocalDateTime.now();
+        when(userRepository.findDeactivatedSince(any())).thenReturn(List.<Object[]>of(new Object[]{"u1", deactivatedAt}));
+
+        service.syncDeactivatedUsers();
+
+        Instant issuedBefore = deactivatedAt.minusMinutes(1).atZone(ZoneId.systemDefault()).toInstant();
+        assertThat(service.isRevoked("u1", issuedBefore)).isTrue();
+    }
+
+    @Test
+    void nextSyncOverlapsTheConfiguredInterval() {
+        when(userRepository.findDeactivatedSince(any())).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now();
+        service.syncDeactivatedUsers();
+        LocalDateTime after = LocalDateTime.now();
+
+        service.syncDeactivatedUsers();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository, times(2)).findDeactivatedSince(since.capture());
+        assertThat(since.getAllValues().get(1))
+                .isBetween(before.minusNanos(SYNC_INTERVAL_MS * 1_000_000), after.minusNanos(SYNC_INTERVAL_MS * 1_000_000));
+    }
+}
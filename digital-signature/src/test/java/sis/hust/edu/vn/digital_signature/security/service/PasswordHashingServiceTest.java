@@ -0,0 +1,107 @@
+package sis.hust.edu.vn.digital_signature.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import sis.hust.edu.vn.digital_signature.exception.capacity.CapacityExceededException;
+import sis.hust.edu.vn.digital_signature.security.service.PasswordHashingService.Operation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void hashesAndVerifiesOnThePool() {
+        service = start(new BCryptPasswordEncoder(4), 2, 4, 5_000);
+
+        String hash = service.encode("secret", Operation.REGISTER);
+
+        assertThat(service.matches("secret", hash, Operation.LOGIN)).isTrue();
+        assertThat(service.matches("wrong", hash, Operation.LOGIN)).isFalse();
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "login").tag("outcome", "success")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() throws Exception {
+        service = start(blockingEncoder(), 1, 1, 5_000);
+        occupyThreadAndQueue();
+
+        assertThatThrownBy(() -> service.encode("third", Operation.REGISTER))
+                .isInstanceOfSatisfying(CapacityExceededException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    @Test
+    void callerThatWaitsTooLongIsTurnedAway() {
+        service = start(blockingEncoder(), 1, 1, 100);
+
+        assertThatThrownBy(() -> service.encode("slow", Operation.LOGIN))
+                .isInstanceOfSatisfying(CapacityExceededException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.get("password.hashing").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundRehashIsSkippedWhenBusy() throws Exception {
+        service = start(blockingEncoder(), 1, 1, 5_000);
+        occupyThreadAndQueue();
+
+        assertThat(service.encodeIfIdle("rehash").get(1, TimeUnit.SECONDS)).isNull();
+    }
+
+    private void occupyThreadAndQueue() throws InterruptedException {
+        callers.submit(() -> service.encode("first", Operation.REGISTER));
+        callers.submit(() -> service.encode("second", Operation.REGISTER));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("password.hashing.queue").gauge().value() < 1) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private PasswordEncoder blockingEncoder() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return "hash";
+        });
+        return encoder;
+    }
+
+    private PasswordHashingService start(PasswordEncoder encoder, int threads, int queueCapacity, long maxWaitMs) {
+        PasswordHashingService hashing = new PasswordHashingService(encoder, meterRegistry);
+        ReflectionTestUtils.setField(hashing, "threads", threads);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hashing, "maxWaitMs", maxWaitMs);
+        hashing.start();
+        return hashing;
+    }
+}
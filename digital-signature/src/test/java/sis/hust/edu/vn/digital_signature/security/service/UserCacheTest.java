@@ -0,0 +1,108 @@
+package sis.hust.edu.vn.digital_signature.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userCache = new UserCache(userRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(userCache, "maxSize", 100L);
+        userCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedLookupsAreAnsweredFromTheCache() {
+        when(userRepository.findByIdWithAvatar("u1")).thenReturn(Optional.of(user("u1", "Alice")));
+
+        userCache.findById("u1");
+        userCache.findById("u1");
+
+        verify(userRepository, times(1)).findByIdWithAvatar("u1");
+    }
+
+    @Test
+    void callersCannotChangeTheCachedUser() {
+        when(userRepository.findByIdWithAvatar("u1")).thenReturn(Optional.of(user("u1", "Alice")));
+
+        User first = userCache.findById("u1").orElseThrow();
+        first.setFullName("Mallory");
+        first.getAvatar().setFileUrl("http://elsewhere");
+
+        User second = userCache.findById("u1").orElseThrow();
+        assertThat(second.getFullName()).isEqualTo("Alice");
+        assertThat(second.getAvatar().getFileUrl()).isEqualTo("http://files/u1.png");
+    }
+
+    @Test
+    void batchLookupQueriesOnlyTheUncachedIds() {
+        when(userRepository.findByIdWithAvatar("u1")).thenReturn(Optional.of(user("u1", "Alice")));
+        when(userRepository.findAllWithAvatarByIdIn(anyList())).thenReturn(List.of(user("u2", "Bob")));
+        userCache.findById("u1");
+
+        Map<String, User> found = userCache.findAllById(List.of("u1", "u2", "missing"));
+
+        assertThat(found).containsOnlyKeys("u1", "u2");
+        verify(userRepository).findAllWithAvatarByIdIn(
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of("u2", "missing"))));
+    }
+
+    @Test
+    void invalidationInsideATransactionIsRepeatedAfterCommit() {
+        when(userRepository.findByIdWithAvatar("u1"))
+                .thenReturn(Optional.of(user("u1", "Alice")))
+                .thenReturn(Optional.of(user("u1", "Alice Updated")));
+        TransactionSynchronizationManager.initSynchronization();
+
+        userCache.invalidate("u1");
+        // A concurrent read before the update commits caches the old row again
+        assertThat(userCache.findById("u1").orElseThrow().getFullName()).isEqualTo("Alice");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(userCache.findById("u1").orElseThrow().getFullName()).isEqualTo("Alice Updated");
+    }
+
+    private static User user(String id, String fullName) {
+        return User.builder()
+                .id(id)
+                .username(id)
+                .email(id + "@example.com")
+                .fullName(fullName)
+                .avatar(File.builder().id("avatar-" + id).fileUrl("http://files/" + id + ".png").build())
+                .build();
+    }
+}
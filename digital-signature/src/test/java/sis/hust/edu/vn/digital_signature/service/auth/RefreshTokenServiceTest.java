@@ -0,0 +1,132 @@
+package sis.hust.edu.vn.digital_signature.service.auth;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.constants.error.ErrorMessages;
+import sis.hust.edu.vn.digital_signature.entity.model.RefreshToken;
+import sis.hust.edu.vn.digital_signature.entity.model.User;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.repository.auth.RefreshTokenRepository;
+import sis.hust.edu.vn.digital_signature.repository.user.UserRepository;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import({RefreshTokenService.class, SchemaMaintenance.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = user("alice");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void onlyTheHashOfTheTokenIsStored() {
+        String token = refreshTokenService.createRefreshToken(user);
+
+        RefreshToken stored = refreshTokenRepository.findAll().get(0);
+        assertThat(stored.getTokenHash()).hasSize(64).isNotEqualTo(token);
+        assertThat(refreshTokenService.findValid(token).getId()).isEqualTo(stored.getId());
+    }
+
+    @Test
+    void rotatedTokenNoLongerWorks() {
+        String token = refreshTokenService.createRefreshToken(user);
+
+        String rotated = refreshTokenService.rotate(refreshTokenService.findValid(token));
+
+        assertThat(refreshTokenService.findValid(rotated)).isNotNull();
+        assertThatThrownBy(() -> refreshTokenService.findValid(token))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage(ErrorMessages.INVALID_REFRESH_TOKEN);
+    }
+
+    @Test
+    void sameTokenRotatesOnlyOnce() {
+        String token = refreshTokenService.createRefreshToken(user);
+        RefreshToken presented = refreshTokenService.findValid(token);
+        RefreshToken presentedAgain = refreshTokenService.findValid(token);
+
+        refreshTokenService.rotate(presented);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(presentedAgain)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void newLoginReplacesThePreviousSession() {
+        String first = refreshTokenService.createRefreshToken(user);
+        String second = refreshTokenService.createRefreshToken(user);
+
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+        assertThat(refreshTokenService.findValid(second)).isNotNull();
+        assertThatThrownBy(() -> refreshTokenService.findValid(first)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void revokedTokenIsGone() {
+        String token = refreshTokenService.createRefreshToken(user);
+
+        refreshTokenService.revoke(token);
+
+        assertThatThrownBy(() -> refreshTokenService.findValid(token)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> refreshTokenService.revoke(token)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void purgeDeletesOnlyExpiredTokens() {
+        String expired = refreshTokenService.createRefreshToken(user);
+        String live = refreshTokenService.createRefreshToken(user("bob"));
+        jdbcTemplate.update("UPDATE refresh_token SET expirt_date = now() - interval '1 day' WHERE user_id = ?",
+                user.getId());
+
+        assertThatThrownBy(() -> refreshTokenService.findValid(expired))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage(ErrorMessages.REFRESH_TOKEN_EXPIRED);
+        refreshTokenService.purgeExpired();
+
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+        assertThat(refreshTokenService.findValid(live)).isNotNull();
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("hash")
+                .email(username + "@example.com")
+                .fullName(username)
+                .build());
+    }
+}
@@ -0,0 +1,89 @@
+package sis.hust.edu.vn.digital_signature.service.auth.otp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void expiresAtTheDeadlineRoundedUpToATick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, START);
+        wheel.schedule("a", START + 250);
+
+        assertThat(wheel.advance(START + 299)).isEmpty();
+        assertThat(wheel.advance(START + 300)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, START);
+        wheel.advance(START + 1_000);
+        wheel.schedule("late", START + 500);
+
+        assertThat(wheel.advance(START + 1_099)).isEmpty();
+        assertThat(wheel.advance(START + 1_100)).containsExactly("late");
+    }
+
+    @Test
+    void cascadesFromHigherLevelsWithoutFiringEarly() {
+        // Level 0 spans 8 ticks, level 1 64, level 2 512
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 8, 3, START);
+        wheel.schedule("level1", START + 30);
+        wheel.schedule("level2", START + 200);
+
+        assertThat(wheel.advance(START + 29)).isEmpty();
+        assertThat(wheel.advance(START + 30)).containsExactly("level1");
+        assertThat(wheel.advance(START + 199)).isEmpty();
+        assertThat(wheel.advance(START + 200)).containsExactly("level2");
+    }
+
+    @Test
+    void deadlinesBeyondTheHorizonAreParkedAndStillFireOnTime() {
+        // Horizon is 8^2 = 64 ticks
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 8, 2, START);
+        wheel.schedule("far", START + 1_000);
+
+        assertThat(wheel.advance(START + 999)).isEmpty();
+        assertThat(wheel.advance(START + 1_000)).containsExactly("far");
+    }
+
+    @Test
+    void matchesNaiveExpiryForRandomDeadlinesAndSteps() {
+        Random random = new Random(42);
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 16, 3, START);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = START;
+        int next = 0;
+
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                long deadline = now + random.nextInt(60_000); // past the 40 960 ms horizon too
+                deadlines.put(next, deadline);
+                wheel.schedule(next++, deadline);
+            }
+            now += random.nextInt(200);
+            List<Integer> expired = wheel.advance(now);
+            for (Integer item : expired) {
+                // Never early...
+                assertThat(deadlines.remove(item)).isLessThanOrEqualTo(now);
+            }
+            // ...and nothing that is due is left behind
+            long currentNow = now;
+            assertThat(deadlines.values()).allMatch(deadline -> ceilToTick(deadline) > currentNow);
+        }
+        assertThat(wheel.size()).isEqualTo(deadlines.size());
+    }
+
+    private static long ceilToTick(long deadline) {
+        return START + Math.floorDiv(deadline - START + 9, 10) * 10;
+    }
+}
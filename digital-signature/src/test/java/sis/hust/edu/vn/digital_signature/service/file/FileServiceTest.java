@@ -0,0 +1,97 @@
+package sis.hust.edu.vn.digital_signature.service.file;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.config.data.SchemaMaintenance;
+import sis.hust.edu.vn.digital_signature.entity.enums.FileType;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.repository.file.BlobRepository;
+import sis.hust.edu.vn.digital_signature.repository.file.FileRepository;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import({SchemaMaintenance.class, FileService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileServiceTest {
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @MockitoBean
+    private StorageService storageService;
+
+    @AfterEach
+    void cleanUp() {
+        fileRepository.deleteAll();
+        blobRepository.deleteAll();
+    }
+
+    @Test
+    void differentUploadersGetTheirOwnFileOverOneStoredObject() throws IOException {
+        File alice = fileService.saveFile(contract(), FileType.DOCUMENT, "alice");
+        File bob = fileService.saveFile(contract(), FileType.DOCUMENT, "bob");
+
+        assertThat(bob.getId()).isNotEqualTo(alice.getId());
+        assertThat(bob.getFileName()).isNotEqualTo(alice.getFileName());
+        assertThat(bob.getFilePath()).isEqualTo(alice.getFilePath());
+        verify(storageService, times(1)).upload(any(), anyString(), anyString(), anyLong());
+        assertThat(fileService.resolveStorageKey(bob.getFileName())).isEqualTo(alice.getFilePath());
+    }
+
+    @Test
+    void sharedObjectIsDeletedWithItsLastFile() throws IOException {
+        File alice = fileService.saveFile(contract(), FileType.DOCUMENT, "alice");
+        File bob = fileService.saveFile(contract(), FileType.DOCUMENT, "bob");
+
+        fileService.deleteFile(alice.getId());
+        verify(storageService, never()).delete(anyString());
+        assertThat(blobRepository.findById(alice.getContentHash()))
+                .hasValueSatisfying(blob -> assertThat(blob.getRefCount()).isEqualTo(1));
+
+        fileService.deleteFile(bob.getId());
+        verify(storageService).delete(bob.getFilePath());
+        assertThat(blobRepository.count()).isZero();
+    }
+
+    @Test
+    void objectWithoutABlobRowBelongsToItsFile() {
+        File file = fileService.registerStoredFile("legacy.pdf", "contract.pdf", "application/pdf", 8,
+                null, FileType.DOCUMENT, "alice");
+
+        fileService.deleteFile(file.getId());
+
+        verify(storageService).delete("legacy.pdf");
+    }
+
+    private static MockMultipartFile contract() {
+        return new MockMultipartFile("file", "contract.pdf", "application/pdf",
+                "%PDF-1.7 contract".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package sis.hust.edu.vn.digital_signature.service.idempotency;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sis.hust.edu.vn.digital_signature.entity.enums.IdempotencyStatus;
+import sis.hust.edu.vn.digital_signature.repository.idempotency.IdempotencyRecordRepository;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService.Claim;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService.ClaimResult;
+import sis.hust.edu.vn.digital_signature.service.idempotency.IdempotencyService.StoredResponse;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(IdempotencyService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+        ReflectionTestUtils.setField(idempotencyService, "lockSeconds", 120L);
+    }
+
+    @Test
+    void completedKeyIsReplayedToTheSameRequest() {
+        Claim claim = idempotencyService.claim("key", "body");
+        assertThat(claim.getResult()).isEqualTo(ClaimResult.CLAIMED);
+        assertThat(idempotencyService.complete("key", claim.getLease(), response("body", "{\"id\":1}"))).isTrue();
+
+        Claim retry = idempotencyService.claim("key", "body");
+
+        assertThat(retry.getResult()).isEqualTo(ClaimResult.REPLAY);
+        assertThat(retry.getResponse().getStatus()).isEqualTo(201);
+        assertThat(retry.getResponse().getBody()).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsAMismatch() {
+        Claim claim = idempotencyService.claim("key", "body");
+        idempotencyService.complete("key", claim.getLease(), response("body", "{}"));
+
+        assertThat(idempotencyService.claim("key", "other body").getResult()).isEqualTo(ClaimResult.MISMATCH);
+    }
+
+    @Test
+    void keyBeingExecutedIsNotClaimedAgain() {
+        idempotencyService.claim("key", "body");
+
+        assertThat(idempotencyService.claim("key", "body").getResult()).isEqualTo(ClaimResult.IN_PROGRESS);
+    }
+
+    @Test
+    void releasedKeyExecutesAgain() {
+        Claim claim = idempotencyService.claim("key", "body");
+        assertThat(idempotencyService.release("key", claim.getLease())).isTrue();
+
+        assertThat(idempotencyService.claim("key", "body").getResult()).isEqualTo(ClaimResult.CLAIMED);
+    }
+
+    @Test
+    void lateOwnerCannotOverwriteOrReleaseATakenOverKey() throws InterruptedException {
+        ReflectionTestUtils.setField(idempotencyService, "lockSeconds", 0L);
+        Claim abandoned = idempotencyService.claim("key", "body");
+        Thread.sleep(5);
+
+        ReflectionTestUtils.setField(idempotencyService, "lockSeconds", 120L);
+        Claim takenOver = idempotencyService.claim("key", "body");
+        assertThat(takenOver.getResult()).isEqualTo(ClaimResult.CLAIMED);
+
+        assertThat(idempotencyService.complete("key", abandoned.getLease(), response("body", "stale"))).isFalse();
+        assertThat(idempotencyService.release("key", abandoned.getLease())).isFalse();
+        assertThat(repository.findById("key").orElseThrow().getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+
+        assertThat(idempotencyService.complete("key", takenOver.getLease(), response("body", "fresh"))).isTrue();
+        assertThat(idempotencyService.claim("key", "body").getResponse().getBody()).isEqualTo("fresh");
+    }
+
+    private static StoredResponse response(String fingerprint, String body) {
+        return new StoredResponse(fingerprint, 201, "application/json", body);
+    }
+}
@@ -0,0 +1,185 @@
+package sis.hust.edu.vn.digital_signature.service.signer;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sis.hust.edu.vn.digital_signature.dto.signer.SigningCompleteRequest;
+import sis.hust.edu.vn.digital_signature.entity.enums.DocumentStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.Signer;
+import sis.hust.edu.vn.digital_signature.repository.document.DocumentRepository;
+import sis.hust.edu.vn.digital_signature.repository.signer.SignerRepository;
+import sis.hust.edu.vn.digital_signature.service.crypto.SignatureOutboxService;
+import sis.hust.edu.vn.digital_signature.service.email.EmailService;
+import sis.hust.edu.vn.digital_signature.service.event.DocumentEventPublisher;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Completions counting down {@code pending_signers} on a real Postgres, where the races between them
+ * play out under the database's own locking.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SignerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SignerServiceTest {
+
+    @Autowired
+    private SignerService signerService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SignerRepository signerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private SignatureOutboxService signatureOutboxService;
+
+    @MockitoBean
+    private StorageService storageService;
+
+    @MockitoBean
+    private SignerQueryService signerQueryService;
+
+    @MockitoBean
+    private DocumentEventPublisher documentEventPublisher;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @AfterEach
+    void cleanUp() {
+        signerRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void lastCompletionMovesTheDocumentToDone() {
+        Document document = signingDocument(2);
+        Signer first = signer(document, 1);
+        Signer second = signer(document, 2);
+
+        signerService.completeSigning(first.getToken(), noFields());
+        assertThat(reload(document).getStatus()).isEqualTo(DocumentStatus.SIGNING);
+
+        signerService.completeSigning(second.getToken(), noFields());
+        assertThat(reload(document).getStatus()).isEqualTo(DocumentStatus.DONE);
+        assertThat(reload(document).getPendingSigners()).isZero();
+    }
+
+    @Test
+    void concurrentCompletionsOnALegacyDocumentBothCount() throws Exception {
+        // Sent before the counter existed: the first completion has to backfill it
+        Document document = signingDocument(null);
+        List<Signer> signers = List.of(signer(document, 1), signer(document, 2));
+
+        ExecutorService pool = Executors.newFixedThreadPool(signers.size() + 1);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Hold the document row so both completions miss the decrement together, then race to backfill
+            Future<?> holder = pool.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("SELECT id FROM documents WHERE id = ? FOR UPDATE", document.getId());
+                locked.countDown();
+                await(release);
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<?>> completions = new ArrayList<>();
+            for (Signer signer : signers) {
+                completions.add(pool.submit(() -> signerService.completeSigning(signer.getToken(), noFields())));
+            }
+            awaitBlockedOnLocks(signers.size());
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+
+            for (Future<?> completion : completions) {
+                completion.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        Document done = reload(document);
+        assertThat(done.getStatus()).isEqualTo(DocumentStatus.DONE);
+        assertThat(done.getPendingSigners()).isZero();
+    }
+
+    private void awaitBlockedOnLocks(int sessions) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_stat_activity "
+                    + "WHERE datname = current_database() AND wait_event_type = 'Lock'", Integer.class);
+            if (waiting != null && waiting >= sessions) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Completions never blocked on the document row");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Document signingDocument(Integer pendingSigners) {
+        return documentRepository.save(Document.builder()
+                .title("Contract")
+                .fileUrl("/api/files/contract.pdf")
+                .fileSize(1024L)
+                .ownerId("owner")
+                .status(DocumentStatus.SIGNING)
+                .pendingSigners(pendingSigners)
+                .build());
+    }
+
+    private Signer signer(Document document, int order) {
+        return signerRepository.save(Signer.builder()
+                .documentId(document.getId())
+                .email("signer" + order + "@example.com")
+                .name("Signer " + order)
+                .token("token-" + document.getId() + "-" + order)
+                .order(order)
+                .build());
+    }
+
+    private Document reload(Document document) {
+        return documentRepository.findById(document.getId()).orElseThrow();
+    }
+
+    private static SigningCompleteRequest noFields() {
+        return SigningCompleteRequest.builder().fieldValues(List.of()).build();
+    }
+}
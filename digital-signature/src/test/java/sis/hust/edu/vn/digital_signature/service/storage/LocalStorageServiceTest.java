@@ -0,0 +1,62 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void listPagesVisitEveryObjectExactlyOnce() {
+        LocalStorageService storage = new LocalStorageService(uploadDir.toString(), "http://localhost");
+        Set<String> stored = new HashSet<>();
+        for (int i = 0; i < 60; i++) {
+            String key = "file-" + i + ".pdf";
+            storage.upload(new ByteArrayInputStream(new byte[]{1}), key, "application/pdf", 1);
+            stored.add(key);
+        }
+
+        List<String> listed = new ArrayList<>();
+        String cursor = null;
+        List<StoredObject> page;
+        do {
+            page = storage.list(cursor, 7);
+            page.forEach(object -> listed.add(object.getKey()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getKey();
+            }
+        } while (page.size() == 7);
+
+        assertThat(listed).hasSize(stored.size());
+        assertThat(new HashSet<>(listed)).isEqualTo(stored);
+    }
+
+    @Test
+    void listSkipsFilesLeftInTheFlatLayout() throws Exception {
+        LocalStorageService storage = new LocalStorageService(uploadDir.toString(), "http://localhost");
+        storage.upload(new ByteArrayInputStream(new byte[]{1}), "sharded.pdf", "application/pdf", 1);
+        Files.write(uploadDir.resolve("legacy.pdf"), new byte[]{1});
+
+        assertThat(storage.list(null, 10)).extracting(StoredObject::getKey).containsExactly("sharded.pdf");
+    }
+
+    @Test
+    void listOnEmptyStorageReturnsNothing() {
+        LocalStorageService storage = new LocalStorageService(uploadDir.toString(), "http://localhost");
+
+        assertThat(storage.list(null, 10)).isEmpty();
+        assertThat(storage.list("missing.pdf", 10)).isEmpty();
+    }
+}
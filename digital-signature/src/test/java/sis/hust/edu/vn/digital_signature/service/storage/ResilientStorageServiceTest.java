@@ -0,0 +1,166 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageFileNotFoundException;
+import sis.hust.edu.vn.digital_signature.exception.storage.StorageUnavailableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResilientStorageServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StorageService backend;
+    private ResilientStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        backend = mock(StorageService.class);
+        storage = new ResilientStorageService(backend, settings(2, 1, Duration.ofSeconds(5)),
+                Executors.defaultThreadFactory(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void unreadableCallerDataDoesNotOpenTheCircuit() {
+        // Like the SDKs, the backend wraps whatever went wrong reading the body
+        when(backend.upload(any(), anyString(), any(), anyLong())).thenAnswer(invocation -> {
+            try {
+                invocation.<InputStream>getArgument(0).readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return "key";
+        });
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> storage.upload(brokenStream(), "key", "application/pdf", 10))
+                    .isInstanceOf(UncheckedIOException.class);
+        }
+
+        assertThat(circuitState()).isZero();
+        assertThat(meterRegistry.get("storage.calls").tag("outcome", "caller_error").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void backendFailuresOpenTheCircuit() {
+        when(backend.download("key")).thenThrow(new IllegalStateException("backend down"));
+
+        assertThatThrownBy(() -> storage.download("key")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(circuitState()).isEqualTo(1);
+        assertThatThrownBy(() -> storage.download("key")).isInstanceOf(StorageUnavailableException.class);
+    }
+
+    @Test
+    void callsBeyondTheBulkheadFailFast() throws Exception {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(backend.download(anyString())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new byte[]{1};
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<byte[]>> running = List.of(
+                    callers.submit(() -> storage.download("a")), callers.submit(() -> storage.download("b")));
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> storage.download("c"))
+                    .isInstanceOf(StorageUnavailableException.class)
+                    .hasMessageContaining("busy");
+            assertThat(meterRegistry.get("storage.rejections").tag("reason", "bulkhead_full").counter().count())
+                    .isEqualTo(1);
+
+            release.countDown();
+            for (Future<byte[]> call : running) {
+                assertThat(call.get(5, TimeUnit.SECONDS)).containsExactly(1);
+            }
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+        assertThat(meterRegistry.get("storage.bulkhead.available").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void slowCallTimesOutAndCountsAsAFailure() {
+        storage.shutdown();
+        storage = new ResilientStorageService(backend, settings(2, 1, Duration.ofMillis(100)),
+                Executors.defaultThreadFactory(), meterRegistry);
+        when(backend.download("key")).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return new byte[0];
+        });
+
+        assertThatThrownBy(() -> storage.download("key"))
+                .isInstanceOf(StorageUnavailableException.class)
+                .hasMessageContaining("timed out");
+        assertThatThrownBy(() -> storage.download("key"))
+                .isInstanceOf(StorageUnavailableException.class)
+                .hasMessageContaining("temporarily unavailable");
+    }
+
+    @Test
+    void missingKeyIsNotABackendFailure() {
+        when(backend.download("gone")).thenThrow(new StorageFileNotFoundException("gone"));
+
+        assertThatThrownBy(() -> storage.download("gone")).isInstanceOf(StorageFileNotFoundException.class);
+
+        assertThat(circuitState()).isZero();
+    }
+
+    private double circuitState() {
+        return meterRegistry.get("storage.circuit.state").gauge().value();
+    }
+
+    private static InputStream brokenStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset by peer");
+            }
+        };
+    }
+
+    private static StorageResilienceSettings settings(int maxConcurrentCalls, int circuitFailureThreshold,
+                                                      Duration timeout) {
+        return StorageResilienceSettings.builder()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWait(Duration.ofMillis(50))
+                .uploadTimeout(timeout)
+                .partTimeout(timeout)
+                .downloadTimeout(timeout)
+                .deleteTimeout(timeout)
+                .listTimeout(timeout)
+                .circuitFailureThreshold(circuitFailureThreshold)
+                .circuitOpenDuration(Duration.ofMinutes(1))
+                .hedgeDelay(Duration.ZERO)
+                .build();
+    }
+}
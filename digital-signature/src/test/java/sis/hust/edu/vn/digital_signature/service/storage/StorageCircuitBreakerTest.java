@@ -0,0 +1,70 @@
+package sis.hust.edu.vn.digital_signature.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageCircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    @Test
+    void opensAfterConsecutiveFailuresOnly() {
+        StorageCircuitBreaker breaker = new StorageCircuitBreaker(3, OPEN_MILLIS);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.CLOSED);
+
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void halfOpenAdmitsOneTrialThatDecides() throws InterruptedException {
+        StorageCircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MILLIS + 10);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        StorageCircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void trialWithoutVerdictIsHandedToTheNextCall() throws InterruptedException {
+        StorageCircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MILLIS + 10);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.onNoVerdict();
+
+        assertThat(breaker.getState()).isEqualTo(StorageCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private static StorageCircuitBreaker openBreaker() {
+        StorageCircuitBreaker breaker = new StorageCircuitBreaker(1, OPEN_MILLIS);
+        breaker.onFailure();
+        return breaker;
+    }
+}
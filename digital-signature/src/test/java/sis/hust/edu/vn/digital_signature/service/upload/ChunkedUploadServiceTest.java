@@ -0,0 +1,199 @@
+package sis.hust.edu.vn.digital_signature.service.upload;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import sis.hust.edu.vn.digital_signature.dto.upload.CreateUploadRequest;
+import sis.hust.edu.vn.digital_signature.entity.enums.UploadStatus;
+import sis.hust.edu.vn.digital_signature.entity.model.Document;
+import sis.hust.edu.vn.digital_signature.entity.model.File;
+import sis.hust.edu.vn.digital_signature.entity.model.UploadSession;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+import sis.hust.edu.vn.digital_signature.repository.upload.UploadSessionRepository;
+import sis.hust.edu.vn.digital_signature.service.document.DocumentService;
+import sis.hust.edu.vn.digital_signature.service.file.FileService;
+import sis.hust.edu.vn.digital_signature.service.storage.StorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chunked uploads driven through two service instances sharing one database, as behind a load balancer
+ * without sticky sessions.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChunkedUploadServiceTest {
+
+    private static final String OWNER = "owner";
+    private static final byte[] CONTENT = "%PDF-1.7 chunked upload test content".getBytes();
+    private static final int CHUNK = 16;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final StorageService storageService = mock(StorageService.class);
+    private final FileService fileService = mock(FileService.class);
+    private final DocumentService documentService = mock(DocumentService.class);
+
+    private ChunkedUploadService instanceA;
+    private ChunkedUploadService instanceB;
+
+    @BeforeEach
+    void setUp() {
+        instanceA = newInstance();
+        instanceB = newInstance();
+        when(fileService.newStorageKey(anyString())).thenReturn("object.pdf");
+        when(storageService.beginMultipartUpload(anyString(), any())).thenReturn("multipart-1");
+        when(storageService.uploadPart(anyString(), anyString(), anyInt(), anyLong(), any(), anyLong()))
+                .thenAnswer(invocation -> "etag-" + invocation.getArgument(2));
+        when(fileService.registerStoredFile(anyString(), anyString(), any(), anyLong(), any(), any(), anyString()))
+                .thenReturn(File.builder().id("file-1").build());
+        when(documentService.createDocument(any(), any(), any(), anyString()))
+                .thenReturn(Document.builder().id("document-1").build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        uploadSessionRepository.deleteAll();
+    }
+
+    @Test
+    void chunksSpreadOverInstancesAreHashedAsOneFile() throws Exception {
+        String uploadId = instanceA.createSession(request(), OWNER).getUploadId();
+
+        instanceA.appendChunk(uploadId, OWNER, 0, chunk(0), CHUNK);
+        instanceB.appendChunk(uploadId, OWNER, CHUNK, chunk(CHUNK), CHUNK);
+        instanceA.appendChunk(uploadId, OWNER, 2 * CHUNK, chunk(2 * CHUNK), CONTENT.length - 2 * CHUNK);
+        Document document = instanceB.completeUpload(uploadId, OWNER);
+
+        assertThat(document.getId()).isEqualTo("document-1");
+        verify(storageService).completeMultipartUpload("object.pdf", "multipart-1", List.of("etag-1", "etag-2", "etag-3"));
+        verify(fileService).registerStoredFile(eq("object.pdf"), anyString(), any(), eq((long) CONTENT.length),
+                eq(sha256(CONTENT)), any(), eq(OWNER));
+        UploadSession session = uploadSessionRepository.findById(uploadId).orElseThrow();
+        assertThat(session.getStatus()).isEqualTo(UploadStatus.COMPLETED);
+        assertThat(session.getDocumentId()).isEqualTo("document-1");
+    }
+
+    @Test
+    void chunkThatAlreadyLandedIsRejectedWithTheOffsetToResumeFrom() {
+        String uploadId = instanceA.createSession(request(), OWNER).getUploadId();
+        instanceA.appendChunk(uploadId, OWNER, 0, chunk(0), CHUNK);
+
+        assertThatThrownBy(() -> instanceB.appendChunk(uploadId, OWNER, 0, chunk(0), CHUNK))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("offset " + CHUNK);
+        assertThat(instanceB.getStatus(uploadId, OWNER).getReceivedBytes()).isEqualTo(CHUNK);
+        verify(storageService, times(1)).uploadPart(anyString(), anyString(), anyInt(), anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void chunkTheClientFailsToDeliverNeverReachesStorage() {
+        String uploadId = instanceA.createSession(request(), OWNER).getUploadId();
+
+        assertThatThrownBy(() -> instanceA.appendChunk(uploadId, OWNER, 0, brokenAfter(5), CHUNK))
+                .isInstanceOf(BusinessException.class);
+
+        verify(storageService, never()).uploadPart(anyString(), anyString(), anyInt(), anyLong(), any(), anyLong());
+        assertThat(instanceA.getStatus(uploadId, OWNER).getReceivedBytes()).isZero();
+    }
+
+    @Test
+    void finalizeRetriedAfterAFailureDoesNotAssembleAgain() throws Exception {
+        String uploadId = instanceA.createSession(request(), OWNER).getUploadId();
+        instanceA.appendChunk(uploadId, OWNER, 0, chunk(0), CHUNK);
+        instanceA.appendChunk(uploadId, OWNER, CHUNK, chunk(CHUNK), CHUNK);
+        instanceA.appendChunk(uploadId, OWNER, 2 * CHUNK, chunk(2 * CHUNK), CONTENT.length - 2 * CHUNK);
+        when(documentService.createDocument(any(), any(), any(), anyString()))
+                .thenThrow(new IllegalStateException("database hiccup"))
+                .thenReturn(Document.builder().id("document-1").build());
+
+        assertThatThrownBy(() -> instanceA.completeUpload(uploadId, OWNER)).isInstanceOf(IllegalStateException.class);
+        UploadSession assembled = uploadSessionRepository.findById(uploadId).orElseThrow();
+        assertThat(assembled.getAssembled()).isTrue();
+        assertThat(assembled.getStatus()).isEqualTo(UploadStatus.UPLOADING);
+        assertThat(assembled.getContentHash()).isEqualTo(sha256(CONTENT));
+
+        instanceB.completeUpload(uploadId, OWNER);
+
+        verify(storageService, times(1)).completeMultipartUpload(anyString(), anyString(), any());
+        assertThat(uploadSessionRepository.findById(uploadId).orElseThrow().getStatus())
+                .isEqualTo(UploadStatus.COMPLETED);
+        assertThatThrownBy(() -> instanceA.completeUpload(uploadId, OWNER))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("already completed");
+    }
+
+    private ChunkedUploadService newInstance() {
+        ChunkedUploadService service = new ChunkedUploadService(uploadSessionRepository, storageService,
+                fileService, documentService, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "minChunkSize", DataSize.ofBytes(CHUNK));
+        ReflectionTestUtils.setField(service, "maxChunkSize", DataSize.ofBytes(CHUNK));
+        return service;
+    }
+
+    private static CreateUploadRequest request() {
+        return CreateUploadRequest.builder()
+                .fileName("contract.pdf")
+                .contentType("application/pdf")
+                .totalSize((long) CONTENT.length)
+                .title("Contract")
+                .build();
+    }
+
+    private static InputStream chunk(int offset) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, offset, Math.min(offset + CHUNK, CONTENT.length)));
+    }
+
+    private static InputStream brokenAfter(int bytes) {
+        return new InputStream() {
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                if (read++ >= bytes) {
+                    throw new IOException("Connection reset by peer");
+                }
+                return 'x';
+            }
+        };
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
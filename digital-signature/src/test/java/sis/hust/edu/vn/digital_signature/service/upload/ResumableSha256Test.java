@@ -0,0 +1,67 @@
+package sis.hust.edu.vn.digital_signature.service.upload;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResumableSha256Test {
+
+    @Test
+    void matchesTheJdkDigestAcrossBlockBoundaries() throws Exception {
+        Random random = new Random(42);
+        for (int length : new int[]{0, 1, 55, 56, 63, 64, 65, 119, 120, 128, 1000, 100_003}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            ResumableSha256 hash = new ResumableSha256();
+            hash.update(data, 0, data.length);
+
+            assertThat(hash.hexDigest()).as("length %d", length).isEqualTo(jdkSha256(data));
+        }
+    }
+
+    @Test
+    void restoredStateContinuesTheSameHash() throws Exception {
+        byte[] data = new byte[10_000];
+        new Random(7).nextBytes(data);
+
+        ResumableSha256 hash = new ResumableSha256();
+        int offset = 0;
+        for (int chunk : new int[]{1, 63, 64, 1000, 3333, 5000, 539}) {
+            hash.update(data, offset, chunk);
+            offset += chunk;
+            // Every chunk continues on a fresh instance, as on another server
+            hash = ResumableSha256.restore(hash.exportState());
+        }
+
+        assertThat(offset).isEqualTo(data.length);
+        assertThat(hash.hexDigest()).isEqualTo(jdkSha256(data));
+    }
+
+    @Test
+    void digestLeavesTheStateUsable() throws Exception {
+        ResumableSha256 hash = new ResumableSha256();
+        hash.update(new byte[]{1, 2, 3}, 0, 3);
+        hash.hexDigest();
+        hash.update(new byte[]{4}, 0, 1);
+
+        assertThat(hash.hexDigest()).isEqualTo(jdkSha256(new byte[]{1, 2, 3, 4}));
+    }
+
+    @Test
+    void garbledStateIsRejected() {
+        String state = new ResumableSha256().exportState();
+
+        assertThatThrownBy(() -> ResumableSha256.restore(state + "ab")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ResumableSha256.restore("zz")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String jdkSha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
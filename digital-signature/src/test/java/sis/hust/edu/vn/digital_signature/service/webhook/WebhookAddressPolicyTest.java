@@ -0,0 +1,37 @@
+package sis.hust.edu.vn.digital_signature.service.webhook;
+
+import org.junit.jupiter.api.Test;
+import sis.hust.edu.vn.digital_signature.exception.business.BusinessException;
+
+import java.net.InetAddress;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookAddressPolicyTest {
+
+    @Test
+    void rejectsLocalAndPrivateAddresses() throws Exception {
+        for (String address : new String[]{"127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1",
+                "169.254.169.254", "100.64.0.1", "0.0.0.0", "::1", "fe80::1", "fd00::1", "::ffff:127.0.0.1"}) {
+            assertThat(WebhookAddressPolicy.isPublic(InetAddress.getByName(address))).as(address).isFalse();
+        }
+    }
+
+    @Test
+    void acceptsPublicAddresses() throws Exception {
+        for (String address : new String[]{"93.184.216.34", "8.8.8.8", "172.32.0.1", "2606:4700::1111"}) {
+            assertThat(WebhookAddressPolicy.isPublic(InetAddress.getByName(address))).as(address).isTrue();
+        }
+    }
+
+    @Test
+    void checkDestinationRejectsLoopbackHost() {
+        WebhookAddressPolicy policy = new WebhookAddressPolicy();
+        assertThatThrownBy(() -> policy.checkDestination(URI.create("https://localhost/hook")))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> policy.checkDestination(URI.create("https://169.254.169.254/latest/meta-data")))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package sis.hust.edu.vn.digital_signature.util.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        assertThat(readAll("email,name\na@x.com,Alice\n"))
+                .containsExactly(List.of("email", "name"), List.of("a@x.com", "Alice"));
+    }
+
+    @Test
+    void quotedValuesKeepCommasDoubledQuotesAndLineBreaks() throws IOException {
+        assertThat(readAll("\"Nguyen, Van A\",\"say \"\"hi\"\"\",\"line1\nline2\"\n"))
+                .containsExactly(List.of("Nguyen, Van A", "say \"hi\"", "line1\nline2"));
+    }
+
+    @Test
+    void handlesCrLfAndLoneCr() throws IOException {
+        assertThat(readAll("a,b\r\nc,d\re,f"))
+                .containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"));
+    }
+
+    @Test
+    void crLfInsideQuotesIsPartOfTheValue() throws IOException {
+        assertThat(readAll("\"x\r\ny\",z\r\n"))
+                .containsExactly(List.of("x\r\ny", "z"));
+    }
+
+    @Test
+    void skipsLeadingBomOnly() throws IOException {
+        assertThat(readAll("\uFEFFemail\n\uFEFFb\n"))
+                .containsExactly(List.of("email"), List.of("\uFEFFb"));
+    }
+
+    @Test
+    void keepsEmptyValues() throws IOException {
+        assertThat(readAll(",a,\n"))
+                .containsExactly(List.of("", "a", ""));
+    }
+
+    @Test
+    void rejectsRecordsOverTheLimit() {
+        CsvReader reader = new CsvReader(new StringReader("abcdefghijk\n"), 10);
+        assertThatThrownBy(reader::readRecord).isInstanceOf(IOException.class);
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv), 1_000);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
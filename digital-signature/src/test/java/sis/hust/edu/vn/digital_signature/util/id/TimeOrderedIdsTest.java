@@ -0,0 +1,80 @@
+package sis.hust.edu.vn.digital_signature.util.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void idsAreStrictlyIncreasingAsStrings() {
+        // Far more than 4096 per millisecond, so the counter has to borrow from the next millisecond
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            ids.add(TimeOrderedIds.newId());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+    }
+
+    @Test
+    void carriesVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIds.newUuid();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        // Borrowing can run the timestamp slightly ahead of the clock, never behind
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1_000);
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws InterruptedException {
+        int threads = 8;
+        int perThread = 10_000;
+        ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                List<String> local = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    local.add(TimeOrderedIds.newId());
+                }
+                // Each caller still sees its own ids in order
+                List<String> sorted = new ArrayList<>(local);
+                Collections.sort(sorted);
+                if (sorted.equals(local)) {
+                    ids.addAll(local);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        Set<String> unique = new HashSet<>(ids);
+        assertThat(ids).hasSize(threads * perThread);
+        assertThat(unique).hasSize(threads * perThread);
+    }
+}